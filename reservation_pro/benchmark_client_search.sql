@@ -0,0 +1,108 @@
+-- Benchmark de la recherche de clients (GET /client/search) sur 1 000 000 de clients générés.
+-- À exécuter sur une base de test : psql -d agence_voyage_bench -f benchmark_client_search.sql
+-- Le script travaille dans un schéma séparé et le supprime à la fin.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+SET search_path = bench, public;
+
+CREATE TABLE client (
+    id_client     BIGSERIAL PRIMARY KEY,
+    nom_client    VARCHAR(100) NOT NULL,
+    prenom_client VARCHAR(100) NOT NULL,
+    date_naiss    TIMESTAMP(6) NOT NULL,
+    mail_client   VARCHAR(100) NOT NULL,
+    tel_client    VARCHAR(50)  NOT NULL,
+    sexe_client   VARCHAR(255) NOT NULL,
+    login         VARCHAR(100) NOT NULL,
+    password      VARCHAR(50)  NOT NULL
+);
+
+INSERT INTO client (nom_client, prenom_client, date_naiss, mail_client, tel_client, sexe_client, login, password)
+SELECT (ARRAY['Agbeko','Mensah','Koffi','Adjovi','Amegah','Tchalla','Kodjo','Afi','Dossou','Lawson'])[1 + g % 10] || md5(g::text)::varchar(6),
+       (ARRAY['Yao','Ama','Kossi','Akossiwa','Edem','Enyonam','Komla','Sena','Elom','Dela'])[1 + (g / 10) % 10],
+       TIMESTAMP '1950-01-01' + (g % 20000) * INTERVAL '1 day',
+       'client' || g || '@' || (ARRAY['gmail.com','yahoo.fr','outlook.com','voyage.tg'])[1 + g % 4],
+       '+228 9' || lpad((g % 10000000)::text, 7, '0'),
+       CASE WHEN g % 2 = 0 THEN 'M' ELSE 'F' END,
+       'login' || g,
+       'secret'
+FROM generate_series(1, 1000000) g;
+
+CREATE INDEX idx_client_nom_trgm ON client USING gin (nom_client gin_trgm_ops);
+CREATE INDEX idx_client_prenom_trgm ON client USING gin (prenom_client gin_trgm_ops);
+CREATE INDEX idx_client_mail_trgm ON client USING gin (mail_client gin_trgm_ops);
+CREATE INDEX idx_client_tel_trgm ON client USING gin (tel_client gin_trgm_ops);
+CREATE INDEX idx_client_date_naiss ON client (date_naiss);
+CREATE INDEX idx_client_nom_prenom_gist ON client USING gist ((nom_client || ' ' || prenom_client) gist_trgm_ops);
+CREATE INDEX idx_client_mail_gist ON client USING gist (mail_client gist_trgm_ops);
+CREATE INDEX idx_client_tel_gist ON client USING gist (tel_client gist_trgm_ops);
+ANALYZE client;
+
+-- Plans des requêtes typiques (mêmes formes que ClientSearchRepositoryImpl)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.* FROM client c
+WHERE (c.nom_client ILIKE '%mensah3%' OR c.prenom_client ILIKE '%mensah3%')
+ORDER BY (c.nom_client || ' ' || c.prenom_client) <-> 'mensah3', c.id_client DESC
+LIMIT 20;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.* FROM client c
+WHERE c.mail_client ILIKE '%client4242%' AND (c.date_naiss >= '1980-01-01' AND c.date_naiss < '1990-01-01')
+ORDER BY c.mail_client <-> 'client4242', c.id_client DESC
+LIMIT 20;
+
+-- Latences p50 / p99 sur 500 recherches aléatoires (nom, mail, téléphone, date)
+CREATE TEMP TABLE timings (kind TEXT, ms DOUBLE PRECISION);
+
+DO $$
+DECLARE
+    t0 TIMESTAMPTZ;
+    term TEXT;
+    i INT;
+BEGIN
+    FOR i IN 1..500 LOOP
+        term := (ARRAY['agbeko','mensah','koffi','adjovi','tchalla'])[1 + i % 5] || substr(md5(i::text), 1, 2);
+        t0 := clock_timestamp();
+        PERFORM c.id_client FROM client c
+        WHERE (c.nom_client ILIKE '%' || term || '%' OR c.prenom_client ILIKE '%' || term || '%')
+        ORDER BY (c.nom_client || ' ' || c.prenom_client) <-> term, c.id_client DESC
+        LIMIT 20;
+        INSERT INTO timings VALUES ('nom', extract(epoch FROM clock_timestamp() - t0) * 1000);
+
+        term := 'client' || (i * 1997 % 1000000);
+        t0 := clock_timestamp();
+        PERFORM c.id_client FROM client c
+        WHERE c.mail_client ILIKE '%' || term || '%'
+        ORDER BY c.mail_client <-> term, c.id_client DESC
+        LIMIT 20;
+        INSERT INTO timings VALUES ('mail', extract(epoch FROM clock_timestamp() - t0) * 1000);
+
+        term := lpad((i * 7919 % 10000000)::text, 7, '0');
+        t0 := clock_timestamp();
+        PERFORM c.id_client FROM client c
+        WHERE c.tel_client LIKE '%' || term || '%'
+        ORDER BY c.tel_client <-> term, c.id_client DESC
+        LIMIT 20;
+        INSERT INTO timings VALUES ('tel', extract(epoch FROM clock_timestamp() - t0) * 1000);
+
+        t0 := clock_timestamp();
+        PERFORM c.id_client FROM client c
+        WHERE c.date_naiss >= TIMESTAMP '1950-01-01' + (i * 37 % 20000) * INTERVAL '1 day'
+          AND c.date_naiss < TIMESTAMP '1950-01-01' + (i * 37 % 20000 + 7) * INTERVAL '1 day'
+        ORDER BY c.id_client DESC
+        LIMIT 20;
+        INSERT INTO timings VALUES ('date', extract(epoch FROM clock_timestamp() - t0) * 1000);
+    END LOOP;
+END $$;
+
+SELECT kind,
+       count(*) AS runs,
+       round(percentile_cont(0.50) WITHIN GROUP (ORDER BY ms)::numeric, 2) AS p50_ms,
+       round(percentile_cont(0.99) WITHIN GROUP (ORDER BY ms)::numeric, 2) AS p99_ms
+FROM timings GROUP BY kind ORDER BY kind;
+
+RESET search_path;
+DROP SCHEMA bench CASCADE;
@@ -17,4 +17,112 @@ WHERE montant_paiement IS NULL OR status IS NULL;
 -- Vérifier que les contraintes sont correctes
 COMMENT ON COLUMN paiement.montant_paiement IS 'Montant du paiement en FCFA';
 COMMENT ON COLUMN paiement.status IS 'Statut du paiement (Payée, En attente, Remboursé)';
-COMMENT ON COLUMN paiement.method IS 'Méthode de paiement (Carte bancaire, Moov Money, MTN Mobile Money)'; 
\ No newline at end of file
+COMMENT ON COLUMN paiement.method IS 'Méthode de paiement (Carte bancaire, Moov Money, MTN Mobile Money)'; 
+-- Stock de places par voyage (capacite NULL = voyage non limité)
+ALTER TABLE voyage
+ADD COLUMN IF NOT EXISTS capacite INTEGER,
+ADD COLUMN IF NOT EXISTS places_restantes INTEGER;
+
+-- Initialiser le stock des voyages dont la capacité est renseignée
+UPDATE voyage v
+SET places_restantes = v.capacite - (
+    SELECT COALESCE(SUM(r.nombre_places_reservees), 0) FROM reservation r
+    WHERE r.voyage_id = v.id_voyage AND r.status NOT IN ('CANCELLED', 'EXPIRED'))
+WHERE v.capacite IS NOT NULL AND v.places_restantes IS NULL;
+
+COMMENT ON COLUMN voyage.capacite IS 'Nombre total de places du voyage (NULL = non limité)';
+COMMENT ON COLUMN voyage.places_restantes IS 'Places encore disponibles, décrémentées par UPDATE conditionnel';
+
+-- Recherche de clients : index trigrammes (ILIKE '%x%', tri par <->) et intervalle de dates
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_client_nom_trgm ON client USING gin (nom_client gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_prenom_trgm ON client USING gin (prenom_client gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_mail_trgm ON client USING gin (mail_client gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_tel_trgm ON client USING gin (tel_client gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_date_naiss ON client (date_naiss);
+-- Tri par distance (<->) des résultats de la recherche, du plus proche au plus loin
+CREATE INDEX IF NOT EXISTS idx_client_nom_prenom_gist ON client USING gist ((nom_client || ' ' || prenom_client) gist_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_mail_gist ON client USING gist (mail_client gist_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_client_tel_gist ON client USING gist (tel_client gist_trgm_ops);
+
+-- Ids client/reservation par séquence (allocationSize = 50) pour les INSERT en batch JDBC
+CREATE SEQUENCE IF NOT EXISTS client_seq INCREMENT BY 50;
+SELECT setval('client_seq', (SELECT COALESCE(MAX(id_client), 0) + 50 FROM client));
+CREATE SEQUENCE IF NOT EXISTS reservation_seq INCREMENT BY 50;
+SELECT setval('reservation_seq', (SELECT COALESCE(MAX(id_reservation), 0) + 50 FROM reservation));
+
+-- Expiration des réservations PENDING : fin de retenue des places
+ALTER TABLE reservation ADD COLUMN IF NOT EXISTS hold_expires_at TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_reservation_hold ON reservation (status, hold_expires_at);
+
+-- Les réservations PENDING existantes reçoivent la retenue par défaut (30 minutes)
+UPDATE reservation SET hold_expires_at = now() + interval '30 minutes'
+WHERE status = 'PENDING' AND hold_expires_at IS NULL;
+
+COMMENT ON COLUMN reservation.hold_expires_at IS 'Fin de retenue d''une réservation PENDING ; passée cette date elle devient EXPIRED';
+
+-- Clés d'idempotence des créations (en-tête Idempotency-Key) et réponse rendue
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    cle VARCHAR(300) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    http_status INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_idempotency_created ON idempotency_key (created_at);
+
+-- Historique et relevés des paiements par agent
+CREATE INDEX IF NOT EXISTS idx_paiement_agent ON paiement (agent, date_paiement);
+
+-- Factures générées en arrière-plan (une par réservation)
+CREATE TABLE IF NOT EXISTS facture (
+    id_reservation BIGINT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    requested_at TIMESTAMP NOT NULL,
+    generated_at TIMESTAMP,
+    fichier VARCHAR(100),
+    erreur VARCHAR(500)
+);
+CREATE INDEX IF NOT EXISTS idx_facture_status ON facture (status, requested_at);
+
+-- Repère des écritures pour l'agrégation incrémentale de daily_stats
+ALTER TABLE reservation ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+ALTER TABLE paiement ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+CREATE INDEX IF NOT EXISTS idx_reservation_updated ON reservation (updated_at);
+CREATE INDEX IF NOT EXISTS idx_paiement_updated ON paiement (updated_at);
+
+-- Agrégats journaliers par (jour, voyage, type de billet) ; 0 = voyage ou type absent
+CREATE TABLE IF NOT EXISTS daily_stats (
+    day DATE NOT NULL,
+    voyage_id BIGINT NOT NULL,
+    type_billet_id BIGINT NOT NULL,
+    reservations BIGINT NOT NULL,
+    places_vendues BIGINT NOT NULL,
+    revenu_confirme DOUBLE PRECISION NOT NULL,
+    paiements BIGINT NOT NULL,
+    montant_paye DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (day, voyage_id, type_billet_id)
+);
+CREATE INDEX IF NOT EXISTS idx_daily_stats_voyage ON daily_stats (voyage_id, day);
+
+-- Jours à recalculer, et repère du dernier passage
+CREATE TABLE IF NOT EXISTS daily_stats_dirty (
+    day DATE PRIMARY KEY,
+    marked_at TIMESTAMP NOT NULL
+);
+CREATE TABLE IF NOT EXISTS rollup_state (
+    name VARCHAR(50) PRIMARY KEY,
+    watermark TIMESTAMP NOT NULL
+);
+
+-- Flux de changements partagé par les instances (GET /changes)
+CREATE TABLE IF NOT EXISTS change_log (
+    version BIGSERIAL PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    entity_id VARCHAR(300) NOT NULL,
+    op CHAR(1) NOT NULL,
+    xid BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_change_log_xid ON change_log (xid);
+CREATE INDEX IF NOT EXISTS idx_change_log_created ON change_log (created_at);
@@ -9,8 +9,10 @@ import lombok.Setter;
 
 import java.util.Date;
 import java.util.List;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
 
 @Entity
+@EntityListeners(ChangeFeedListener.class)
 @Setter
 @Getter
 @Table(name="agent")
@@ -0,0 +1,50 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entrée du flux de changements : une création / modification (U) ou suppression (D) d'une
+ * entité, écrite dans la transaction qui la fait. {@code xid} (txid_current()) sert à lire les
+ * entrées dans l'ordre où elles deviennent visibles, {@code version} seulement à paginer.
+ */
+@Entity
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_xid", columnList = "xid"),
+        @Index(name = "idx_change_log_created", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CHANGE_LOG {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "version")
+    private Long version ;
+
+    @Column(name = "type", nullable = false, length = 20)
+    private String type ;
+
+    @Column(name = "entity_id", nullable = false, length = 300)
+    private String entityId ;
+
+    @Column(name = "op", nullable = false, length = 1)
+    private String op ;
+
+    @Column(name = "xid", nullable = false)
+    private Long xid ;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt ;
+}
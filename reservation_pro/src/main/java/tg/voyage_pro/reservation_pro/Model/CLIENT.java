@@ -8,10 +8,14 @@ import lombok.*;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
 
 
 @Entity
-@Table(name = "client")
+@EntityListeners(ChangeFeedListener.class)
+@Table(name = "client" , indexes = {
+        @Index(name = "idx_client_nom", columnList = "nom_client, id_client")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,9 +25,10 @@ import java.util.List;
 public class CLIENT implements Serializable {
 
 
+    // Séquence allouée par blocs : permet le batch JDBC des INSERT (import en masse)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "client_seq")
+    @SequenceGenerator(name = "client_seq", sequenceName = "client_seq", allocationSize = 50)
     private Long  idClient ;
     @Column(name = "nom_client", nullable = false , length = 100)
     private String nomClient ;
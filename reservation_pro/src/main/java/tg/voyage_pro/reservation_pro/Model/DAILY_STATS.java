@@ -0,0 +1,72 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Agrégat journalier par (jour, voyage, type de billet), tenu à jour par {@code RollupService}.
+ * Les réservations sont rangées à leur date de réservation, les paiements à leur date de
+ * paiement (sous le voyage et le type de billet de leur réservation). Un voyage ou un type de
+ * billet absent est rangé sous l'id 0.
+ */
+@Entity
+@Table(name = "daily_stats", indexes = {
+        @Index(name = "idx_daily_stats_voyage", columnList = "voyage_id, day")
+})
+@IdClass(DAILY_STATS.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class DAILY_STATS {
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private LocalDate day ;
+        private Long voyageId ;
+        private Long typeBilletId ;
+    }
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day ;
+
+    @Id
+    @Column(name = "voyage_id")
+    private Long voyageId ;
+
+    @Id
+    @Column(name = "type_billet_id")
+    private Long typeBilletId ;
+
+    // Réservations créées ce jour (tous statuts)
+    @Column(name = "reservations", nullable = false)
+    private long reservations ;
+
+    // Places des réservations confirmées
+    @Column(name = "places_vendues", nullable = false)
+    private long placesVendues ;
+
+    // (prix du voyage + prix du type de billet) × places des réservations confirmées
+    @Column(name = "revenu_confirme", nullable = false)
+    private double revenuConfirme ;
+
+    @Column(name = "paiements", nullable = false)
+    private long paiements ;
+
+    @Column(name = "montant_paye", nullable = false)
+    private double montantPaye ;
+}
@@ -0,0 +1,31 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Jour de daily_stats à recalculer. {@code markedAt} est la dernière demande : un jour redemandé
+ * pendant son recalcul reste marqué pour le passage suivant.
+ */
+@Entity
+@Table(name = "daily_stats_dirty")
+@Getter
+@Setter
+@NoArgsConstructor
+public class DAILY_STATS_DIRTY {
+
+    @Id
+    @Column(name = "day")
+    private LocalDate day ;
+
+    @Column(name = "marked_at", nullable = false)
+    private Timestamp markedAt ;
+}
@@ -0,0 +1,51 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Facture d'une réservation (une par réservation) et état de sa génération. Chaque demande
+ * (confirmation, nouveau paiement) repasse la facture EN_ATTENTE avec un nouveau
+ * {@code requestedAt} ; le fichier est écrit dans {@code invoice.dir}.
+ */
+@Entity
+@Table(name = "facture", indexes = {
+        @Index(name = "idx_facture_status", columnList = "status, requested_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class FACTURE {
+
+    public static final String EN_ATTENTE = "EN_ATTENTE";
+    public static final String GENEREE = "GENEREE";
+    public static final String ECHEC = "ECHEC";
+
+    @Id
+    @Column(name = "id_reservation")
+    private Long idReservation ;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status ;
+
+    @Column(name = "requested_at", nullable = false)
+    private Timestamp requestedAt ;
+
+    @Column(name = "generated_at")
+    private Timestamp generatedAt ;
+
+    // Nom du fichier dans invoice.dir
+    @Column(name = "fichier", length = 100)
+    private String fichier ;
+
+    @Column(name = "erreur", length = 500)
+    private String erreur ;
+}
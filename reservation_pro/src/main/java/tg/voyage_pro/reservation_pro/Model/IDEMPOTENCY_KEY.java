@@ -0,0 +1,43 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Clé d'idempotence d'une requête de création (en-tête {@code Idempotency-Key}) et la réponse
+ * rendue la première fois. {@code httpStatus} reste nul tant que la requête est en cours.
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class IDEMPOTENCY_KEY {
+
+    // Portée (ex : "reservation") + ":" + clé envoyée par le client
+    @Id
+    @Column(name = "cle", length = 300)
+    private String cle ;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash ;
+
+    @Column(name = "http_status")
+    private Integer httpStatus ;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody ;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt ;
+}
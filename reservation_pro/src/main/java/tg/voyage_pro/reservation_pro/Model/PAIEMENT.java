@@ -7,11 +7,19 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.io.Serializable;
+import java.sql.Timestamp;
 import java.util.Date;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
 
 
 @Entity
-@Table(name = "paiement")
+@EntityListeners(ChangeFeedListener.class)
+@Table(name = "paiement" , indexes = {
+        @Index(name = "idx_paiement_date", columnList = "date_paiement, code_paiement"),
+        @Index(name = "idx_paiement_reservation", columnList = "reservation, date_paiement"),
+        @Index(name = "idx_paiement_agent", columnList = "agent, date_paiement"),
+        @Index(name = "idx_paiement_updated", columnList = "updated_at")
+})
 @Setter
 @Getter
 
@@ -42,4 +50,15 @@ public class PAIEMENT implements Serializable {
     @Column(name = "method" , nullable = true)
     private String method;
 
+    // Dernière écriture : repère (watermark) de la mise à jour incrémentale de daily_stats
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Timestamp updatedAt ;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = new Timestamp(System.currentTimeMillis());
+    }
+
 }
@@ -2,19 +2,27 @@ package tg.voyage_pro.reservation_pro.Model;
 
 import java.io.Serializable;
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,12 +30,20 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
  
 
 
 
 @Entity
-@Table(name = "reservation")
+@EntityListeners(ChangeFeedListener.class)
+@Table(name = "reservation" , indexes = {
+        @Index(name = "idx_reservation_date", columnList = "date_reservation, id_reservation"),
+        @Index(name = "idx_reservation_status", columnList = "status, id_reservation"),
+        @Index(name = "idx_reservation_client", columnList = "client_id, id_reservation"),
+        @Index(name = "idx_reservation_hold", columnList = "status, hold_expires_at"),
+        @Index(name = "idx_reservation_updated", columnList = "updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -36,18 +52,22 @@ import lombok.ToString;
 @ToString
 
 public class RESERVATION implements Serializable{
+    // Séquence allouée par blocs : permet le batch JDBC des INSERT (import en masse)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_seq")
+    @SequenceGenerator(name = "reservation_seq", sequenceName = "reservation_seq", allocationSize = 50)
     private Long idReservation ; 
 
-    @ManyToOne 
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="client_id")
     @JsonIgnore
+    @ToString.Exclude
     private CLIENT client ; 
 
-    @ManyToOne 
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "voyage_id")
     @JsonIgnore
+    @ToString.Exclude
     private VOYAGE voyage ; 
 
     private Integer nombrePlacesReservees;
@@ -55,9 +75,10 @@ public class RESERVATION implements Serializable{
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
     private Date dateReservation ; 
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "type_billet_id" )
     @JsonIgnore
+    @ToString.Exclude
     private TYPE_BILLET typeBillet ;
 
     @OneToMany(mappedBy = "reservation", cascade = CascadeType.ALL)
@@ -66,6 +87,22 @@ public class RESERVATION implements Serializable{
 
     private String status = "PENDING";
 
+    // Fin de la retenue des places d'une réservation PENDING ; passée cette date elle devient EXPIRED
+    @Column(name = "hold_expires_at")
+    @JsonIgnore
+    private Timestamp holdExpiresAt ;
+
+    // Dernière écriture : repère (watermark) de la mise à jour incrémentale de daily_stats
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Timestamp updatedAt ;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = new Timestamp(System.currentTimeMillis());
+    }
+
     public RESERVATION(Long idReservation) {
         this.idReservation = idReservation;
     }
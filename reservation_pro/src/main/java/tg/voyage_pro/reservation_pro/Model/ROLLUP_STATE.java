@@ -0,0 +1,30 @@
+package tg.voyage_pro.reservation_pro.Model;
+
+import java.sql.Timestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Repère (watermark) d'un agrégat : les écritures dont updated_at est antérieur ont été prises
+ * en compte.
+ */
+@Entity
+@Table(name = "rollup_state")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ROLLUP_STATE {
+
+    @Id
+    @Column(name = "name", length = 50)
+    private String name ;
+
+    @Column(name = "watermark", nullable = false)
+    private Timestamp watermark ;
+}
@@ -6,11 +6,13 @@ import java.util.List;
 import jakarta.persistence.*;
 import lombok.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
 
 
 
 
 @Entity
+@EntityListeners(ChangeFeedListener.class)
 @Table(name = "type_billet")
 @Getter
 @Setter
@@ -9,15 +9,19 @@ import lombok.*;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
+import tg.voyage_pro.reservation_pro.core.ChangeFeedListener;
 
 
 @Entity
+@EntityListeners(ChangeFeedListener.class)
 @Setter
 @Getter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name="voyage")
+@Table(name="voyage" , indexes = {
+        @Index(name = "idx_voyage_date", columnList = "date_voyage, id_voyage")
+})
 public class VOYAGE implements Serializable {
 
 
@@ -38,6 +42,11 @@ public class VOYAGE implements Serializable {
     private Date dateVoyage ;
     @Column(name = "prix", nullable = false)
     private Double prix;
+    @Column(name = "capacite")
+    private Integer capacite;
+    // Maintenu uniquement par les UPDATE conditionnels de VoyageRepository
+    @Column(name = "places_restantes" , updatable = false)
+    private Integer placesRestantes;
 
     @OneToMany(mappedBy = "voyage" , cascade = CascadeType.ALL)
     @JsonIgnore
@@ -2,10 +2,12 @@ package tg.voyage_pro.reservation_pro;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
  
 
 
 @SpringBootApplication
+@EnableScheduling
 public class ReservationProApplication {
 
 	public static void main(String[] args) {
@@ -7,6 +7,8 @@ import org.springframework.web.bind.annotation.*;
 import tg.voyage_pro.reservation_pro.Model.AGENT;
 import tg.voyage_pro.reservation_pro.core.AgentService;
 import tg.voyage_pro.reservation_pro.dto.AgentDTO;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.LoginRequest;
 import tg.voyage_pro.reservation_pro.mappers.AgentMapper;
 
@@ -52,6 +54,12 @@ public class AgentController {
         return new ResponseEntity<>(agentDTOs, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<AgentDTO>> page(ListQuery query) {
+        PageResponse<AGENT> page = agentService.page(query);
+        return new ResponseEntity<>(page.map(agentMapper::toListAgentDto), HttpStatus.OK);
+    }
+
     @GetMapping("/get/{idAgent}")
     public ResponseEntity<AgentDTO> getAgentById(@PathVariable Long idAgent) {
         AGENT agent = agentService.get(idAgent); // Corrected method name
@@ -0,0 +1,85 @@
+package tg.voyage_pro.reservation_pro.controllers;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import tg.voyage_pro.reservation_pro.core.AnalyticsService;
+import tg.voyage_pro.reservation_pro.core.DashboardBootstrapService;
+import tg.voyage_pro.reservation_pro.core.KpiService;
+import tg.voyage_pro.reservation_pro.core.RollupService;
+import tg.voyage_pro.reservation_pro.dto.DailyStatsDTO;
+import tg.voyage_pro.reservation_pro.dto.DashboardBootstrapDTO;
+import tg.voyage_pro.reservation_pro.dto.DashboardStatsDTO;
+import tg.voyage_pro.reservation_pro.dto.KpiSnapshotDTO;
+
+@RestController
+@RequestMapping(value = "/tg/voyage_pro/reservation/auth/analytics")
+@CrossOrigin("*")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService ;
+
+    @Autowired
+    private KpiService kpiService ;
+
+    @Autowired
+    private RollupService rollupService ;
+
+    @Autowired
+    private DashboardBootstrapService bootstrapService ;
+
+    @GetMapping(value = "/dashboard")
+    public ResponseEntity<DashboardStatsDTO> dashboard(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to,
+            @RequestParam(required = false) Integer top){
+        return new ResponseEntity<>(this.analyticsService.dashboard(from, to, top) , HttpStatus.OK);
+    }
+
+    // Premier affichage du tableau de bord : indicateurs, première page de chaque table et types de billet
+    @GetMapping(value = "/bootstrap")
+    public ResponseEntity<DashboardBootstrapDTO> bootstrap(@RequestParam(required = false) Integer size){
+        return new ResponseEntity<>(this.bootstrapService.bootstrap(size) , HttpStatus.OK);
+    }
+
+    // Compteurs en mémoire : peut être interrogé chaque seconde sans requête en base
+    @GetMapping(value = "/live")
+    public ResponseEntity<KpiSnapshotDTO> live(
+            @RequestParam(required = false) Integer days,
+            @RequestParam(required = false) Integer top){
+        return new ResponseEntity<>(this.kpiService.snapshot(days, top) , HttpStatus.OK);
+    }
+
+    // Lu dans daily_stats : une ligne par jour, semaine ou mois, quel que soit le volume de la période
+    @GetMapping(value = "/daily")
+    public ResponseEntity<List<DailyStatsDTO>> daily(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) Long voyageId,
+            @RequestParam(required = false) Long typeBilletId,
+            @RequestParam(required = false) String interval){
+        return new ResponseEntity<>(this.rollupService.report(from, to, voyageId, typeBilletId, interval) , HttpStatus.OK);
+    }
+
+    // Marque la plage à recalculer ; le calcul se fait au prochain passage de l'agrégation
+    @PostMapping(value = "/rollup/backfill")
+    public ResponseEntity<Map<String, Integer>> backfill(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to){
+        return new ResponseEntity<>(Map.of("joursMarques", this.rollupService.backfill(from, to)) , HttpStatus.ACCEPTED);
+    }
+}
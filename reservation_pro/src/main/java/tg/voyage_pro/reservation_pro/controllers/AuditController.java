@@ -0,0 +1,34 @@
+package tg.voyage_pro.reservation_pro.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import tg.voyage_pro.reservation_pro.core.AuditJournal;
+import tg.voyage_pro.reservation_pro.dto.AuditRecordDTO;
+
+@RestController
+@RequestMapping(value = "/tg/voyage_pro/reservation/auth/audit")
+@CrossOrigin("*")
+public class AuditController {
+
+    @Autowired
+    private AuditJournal journal ;
+
+    @GetMapping(value = "/reservation/{id}")
+    public ResponseEntity<List<AuditRecordDTO>> reservation(@PathVariable Long id){
+        return new ResponseEntity<>(this.journal.history("reservation", id) , HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/paiement/{codePaiement}")
+    public ResponseEntity<List<AuditRecordDTO>> paiement(@PathVariable String codePaiement){
+        return new ResponseEntity<>(this.journal.history("paiement", codePaiement) , HttpStatus.OK);
+    }
+}
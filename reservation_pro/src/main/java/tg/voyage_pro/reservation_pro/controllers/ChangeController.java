@@ -0,0 +1,30 @@
+package tg.voyage_pro.reservation_pro.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import tg.voyage_pro.reservation_pro.core.ChangeFeed;
+import tg.voyage_pro.reservation_pro.dto.ChangesDTO;
+
+@RestController
+@RequestMapping(value = "/tg/voyage_pro/reservation/auth/changes")
+@CrossOrigin("*")
+public class ChangeController {
+
+    @Autowired
+    private ChangeFeed feed ;
+
+    // Modifications depuis le jeton ; sans jeton : jeton courant et reset, avant un chargement complet
+    @GetMapping
+    public ResponseEntity<ChangesDTO> changes(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit){
+        return new ResponseEntity<>(this.feed.changes(since, limit) , HttpStatus.OK);
+    }
+}
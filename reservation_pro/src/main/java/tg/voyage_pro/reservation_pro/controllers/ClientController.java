@@ -2,6 +2,7 @@ package tg.voyage_pro.reservation_pro.controllers;
 
  
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
@@ -9,8 +10,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.core.BulkImportService;
+import tg.voyage_pro.reservation_pro.core.ChangeVersions;
+import tg.voyage_pro.reservation_pro.core.JsonResponseCache;
 import tg.voyage_pro.reservation_pro.core.ClientService;
 import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+import tg.voyage_pro.reservation_pro.dto.ClientSearchQuery;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
 import tg.voyage_pro.reservation_pro.dto.LoginRequest;
 import tg.voyage_pro.reservation_pro.exceptions.ClientNotFoundException;
 
@@ -24,6 +30,13 @@ public class ClientController {
     @Autowired
     private ClientService clientService ;
 
+    @Autowired
+    private BulkImportService bulkImportService ;
+    @Autowired
+    private ChangeVersions versions ;
+    @Autowired
+    private JsonResponseCache responses ;
+
 
     @PostMapping(value = "/create"  ,
             consumes = MediaType.APPLICATION_JSON_VALUE,
@@ -35,6 +48,14 @@ public class ClientController {
 
     }
 
+    @PostMapping(value = "/bulk"  ,
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public ResponseEntity<?> bulk(@RequestBody List<ClientDTO> clients){
+        return new ResponseEntity<>(this.bulkImportService.importClients(clients) , HttpStatus.OK);
+    }
+
     @PostMapping(value = "/login"  ,
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
@@ -49,15 +70,19 @@ public class ClientController {
     }
 
     @GetMapping(value = "/getAll")
-    public ResponseEntity<?> getAll(){
-        List<ClientDTO> listClient = this.clientService.getAllClient() ;
-        return new ResponseEntity<>(listClient , HttpStatus.OK);
+    public ResponseEntity<byte[]> getAll(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return this.responses.serve(ChangeVersions.CLIENTS, ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping(value = "/page")
+    public ResponseEntity<?> page(ListQuery query){
+        return new ResponseEntity<>(this.clientService.page(query) , HttpStatus.OK);
     }
 
     @GetMapping(value = "/get/{idClient}")
-    public ResponseEntity<?> get(@PathVariable Long idClient){
-         ClientDTO client = this.clientService.getClient(idClient);
-        return new ResponseEntity<>(client , HttpStatus.OK);
+    public ResponseEntity<?> get(@PathVariable Long idClient, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return this.versions.conditional(ifNoneMatch, ChangeVersions.CLIENTS, idClient, () -> this.clientService.getClient(idClient));
     }
 
     @PutMapping(value = "/update/{idClient}")
@@ -78,12 +103,19 @@ public class ClientController {
         return new ResponseEntity<>(clients , HttpStatus.OK);
     }
 
-    @GetMapping(value = "/refresh")
-    public ResponseEntity<?> refresh(){
-        List<ClientDTO> clients = this.clientService.refreshClient();
+    @GetMapping(value = "/search")
+    public ResponseEntity<?> search(ClientSearchQuery query){
+        List<ClientDTO> clients = this.clientService.search(query);
         return new ResponseEntity<>(clients , HttpStatus.OK);
     }
 
+    // Même liste que /getAll
+    @GetMapping(value = "/refresh")
+    public ResponseEntity<byte[]> refresh(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return this.responses.serve(ChangeVersions.CLIENTS, ifNoneMatch, acceptEncoding);
+    }
+
 
 
 
@@ -0,0 +1,59 @@
+package tg.voyage_pro.reservation_pro.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import tg.voyage_pro.reservation_pro.core.InvoiceService;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.dto.FactureDTO;
+import tg.voyage_pro.reservation_pro.exceptions.ReservationNotFoundException;
+
+@RestController
+@RequestMapping(value = "/tg/voyage_pro/reservation/auth/facture")
+@CrossOrigin("*")
+public class FactureController {
+
+    @Autowired
+    private InvoiceService invoiceService ;
+
+    @Autowired
+    private ReservationRepository rsr ;
+
+    @GetMapping(value = "/{idReservation}")
+    public ResponseEntity<FactureDTO> get(@PathVariable Long idReservation){
+        return new ResponseEntity<>(this.invoiceService.get(idReservation) , HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/{idReservation}/download")
+    public ResponseEntity<Resource> download(@PathVariable Long idReservation){
+        Path file = this.invoiceService.file(idReservation);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(new FileSystemResource(file));
+    }
+
+    // Redemande la génération (ex : après un ECHEC) ; la facture est produite en arrière-plan
+    @PostMapping(value = "/{idReservation}")
+    public ResponseEntity<FactureDTO> regenerate(@PathVariable Long idReservation){
+        if (!this.rsr.existsById(idReservation)) {
+            throw new ReservationNotFoundException("Reservation not found with id: " + idReservation);
+        }
+        this.invoiceService.request(idReservation);
+        return new ResponseEntity<>(this.invoiceService.get(idReservation) , HttpStatus.ACCEPTED);
+    }
+}
@@ -1,12 +1,20 @@
 package tg.voyage_pro.reservation_pro.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
 import tg.voyage_pro.reservation_pro.Model.PAIEMENT;
+import tg.voyage_pro.reservation_pro.core.ExportService;
+import tg.voyage_pro.reservation_pro.core.IdempotencyService;
 import tg.voyage_pro.reservation_pro.core.PaiementService;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.PaiementDTO;
+import tg.voyage_pro.reservation_pro.dto.PaiementTotalDTO;
 import tg.voyage_pro.reservation_pro.mappers.PaiementMapper;
 
 import java.util.List;
@@ -22,12 +30,21 @@ public class PaiementController {
     @Autowired
     private PaiementMapper paiementMapper;
 
+    @Autowired
+    private IdempotencyService idempotency;
+
+    @Autowired
+    private ExportService exportService;
+
     @PostMapping("/create")
-    public ResponseEntity<PaiementDTO> create(@RequestBody PaiementDTO paiementDTO) {
-        System.out.println("[DEBUG] Paiement reçu: reservationId=" + paiementDTO.getReservationId() + ", agentId=" + paiementDTO.getAgentId());
-        PAIEMENT paiementEntity = paiementMapper.toEntity(paiementDTO);
-        PaiementDTO savedPaiementDTO = paiementService.create(paiementEntity);
-        return new ResponseEntity<>(savedPaiementDTO, HttpStatus.CREATED);
+    public ResponseEntity<?> create(@RequestBody PaiementDTO paiementDTO,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotency.execute("paiement", idempotencyKey, paiementDTO, () -> {
+            System.out.println("[DEBUG] Paiement reçu: reservationId=" + paiementDTO.getReservationId() + ", agentId=" + paiementDTO.getAgentId());
+            PAIEMENT paiementEntity = paiementMapper.toEntity(paiementDTO);
+            PaiementDTO savedPaiementDTO = paiementService.create(paiementEntity);
+            return new ResponseEntity<>(savedPaiementDTO, HttpStatus.CREATED);
+        });
     }
 
     @GetMapping({"", "/getAll"})
@@ -36,6 +53,38 @@ public class PaiementController {
         return new ResponseEntity<>(paiementDTOs, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageResponse<PaiementDTO>> page(ListQuery query) {
+        return new ResponseEntity<>(paiementService.page(query), HttpStatus.OK);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(ListQuery query, @RequestParam(required = false) String format,
+                                                        HttpServletRequest request) {
+        String f = ExportService.format(format);
+        exportService.extendTimeout(request);
+        StreamingResponseBody body = out -> exportService.exportPaiements(query, f, out);
+        return ResponseEntity.ok()
+                .contentType(ExportService.mediaType(f))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"paiements." + f + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/client/{idClient}")
+    public ResponseEntity<PageResponse<PaiementDTO>> historyForClient(@PathVariable Long idClient, ListQuery query) {
+        return new ResponseEntity<>(paiementService.historyForClient(idClient, query), HttpStatus.OK);
+    }
+
+    @GetMapping("/agent/{idAgent}")
+    public ResponseEntity<PageResponse<PaiementDTO>> historyForAgent(@PathVariable Long idAgent, ListQuery query) {
+        return new ResponseEntity<>(paiementService.historyForAgent(idAgent, query), HttpStatus.OK);
+    }
+
+    @GetMapping("/totals")
+    public ResponseEntity<List<PaiementTotalDTO>> totals(ListQuery query, @RequestParam(required = false) String interval) {
+        return new ResponseEntity<>(paiementService.totals(query, interval), HttpStatus.OK);
+    }
+
     @GetMapping("/get/{codePaiement}")
     public ResponseEntity<PaiementDTO> getPaiementByCode(@PathVariable String codePaiement) {
         PaiementDTO paiementDTO = paiementService.get(codePaiement);
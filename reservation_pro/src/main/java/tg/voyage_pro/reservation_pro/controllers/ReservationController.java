@@ -9,15 +9,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
 import java.util.Map;
  
 import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.core.BulkImportService;
+import tg.voyage_pro.reservation_pro.core.ExportService;
+import tg.voyage_pro.reservation_pro.core.IdempotencyService;
+import tg.voyage_pro.reservation_pro.core.ReservationBatchService;
 import tg.voyage_pro.reservation_pro.core.ReservationService;
+import tg.voyage_pro.reservation_pro.dto.BatchStatusRequest;
+import tg.voyage_pro.reservation_pro.dto.BatchStatusResultDTO;
+import tg.voyage_pro.reservation_pro.dto.BulkResultDTO;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
 import tg.voyage_pro.reservation_pro.mappers.ReservationMapper;
 
@@ -31,20 +45,61 @@ public class ReservationController {
     @Autowired
     private ReservationMapper reservationMapper;
 
+    @Autowired
+    private BulkImportService bulkImportService ;
+
+    @Autowired
+    private ReservationBatchService batchService ;
+
+    @Autowired
+    private IdempotencyService idempotency ;
+
+    @Autowired
+    private ExportService exportService ;
+
     @PostMapping(path="/create")
-    public ResponseEntity<ReservationDTO> create(@RequestBody ReservationDTO reservation){
-        RESERVATION saved = this.service.create(reservation) ;
-        ReservationDTO dto = reservationMapper.toDto(saved);
-        System.out.println("[DEBUG] Reservation créée: id=" + dto.getIdReservation() + ", nombrePlacesReservees=" + dto.getNombrePlacesReservees() + ", status=" + dto.getStatus());
-        return new ResponseEntity<>(dto, HttpStatus.CREATED);
+    public ResponseEntity<?> create(@RequestBody ReservationDTO reservation,
+                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
+        return this.idempotency.execute("reservation", idempotencyKey, reservation, () -> {
+            RESERVATION saved = this.service.create(reservation) ;
+            ReservationDTO dto = reservationMapper.toDto(saved);
+            System.out.println("[DEBUG] Reservation créée: id=" + dto.getIdReservation() + ", nombrePlacesReservees=" + dto.getNombrePlacesReservees() + ", status=" + dto.getStatus());
+            return new ResponseEntity<>(dto, HttpStatus.CREATED);
+        });
     }
 
+    @PostMapping(path="/bulk")
+    public BulkResultDTO bulk(@RequestBody List<ReservationDTO> reservations){
+        return this.bulkImportService.importReservations(reservations) ;
+    }
 
     @GetMapping(path = "/all")
     public List<ReservationDTO> all(){
         return this.service.getAll() ;
     }
 
+    @GetMapping(path = "/page")
+    public PageResponse<ReservationDTO> page(ListQuery query){
+        return this.service.page(query) ;
+    }
+
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> export(ListQuery query, @RequestParam(required = false) String format,
+                                                        HttpServletRequest request){
+        String f = ExportService.format(format);
+        this.exportService.extendTimeout(request);
+        StreamingResponseBody body = out -> this.exportService.exportReservations(query, f, out);
+        return ResponseEntity.ok()
+                .contentType(ExportService.mediaType(f))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations." + f + "\"")
+                .body(body);
+    }
+
+    @GetMapping(path = "/client/{idClient}")
+    public PageResponse<ReservationDTO> historyForClient(@PathVariable Long idClient, ListQuery query){
+        return this.service.historyForClient(idClient, query) ;
+    }
+
     @PutMapping(path = "/update") // Corrected from @GetMapping to @PutMapping
     public ReservationDTO update(@RequestBody ReservationDTO reservation){
         return this.service.update(reservation) ; 
@@ -59,6 +114,11 @@ public class ReservationController {
         return this.service.updateStatus(id, newStatus);
     }
 
+    @PutMapping(path = "/status")
+    public BatchStatusResultDTO updateStatuses(@RequestBody BatchStatusRequest request) {
+        return this.batchService.updateStatus(request);
+    }
+
     @DeleteMapping(path = "/delete/{id}")
     public boolean delete(@PathVariable Long id){
         return this.service.delete(id);
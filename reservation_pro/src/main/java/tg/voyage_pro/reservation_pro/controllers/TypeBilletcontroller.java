@@ -3,10 +3,16 @@ package tg.voyage_pro.reservation_pro.controllers;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
+import tg.voyage_pro.reservation_pro.core.ChangeVersions;
+import tg.voyage_pro.reservation_pro.core.JsonResponseCache;
 import tg.voyage_pro.reservation_pro.core.TypeBilletService;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
 import tg.voyage_pro.reservation_pro.mappers.TypeBilletMapper;
 
@@ -19,6 +25,10 @@ public class  TypeBilletcontroller {
     private TypeBilletService service ; 
     @Autowired
     private TypeBilletMapper typeBilletMapper;
+    @Autowired
+    private ChangeVersions versions ;
+    @Autowired
+    private JsonResponseCache responses ;
 
     @PostMapping(path = "/create")
     public TypeBilletDTO create(@RequestBody TypeBilletDTO typeDto){
@@ -26,13 +36,19 @@ public class  TypeBilletcontroller {
     }
 
     @GetMapping(path = "/getAll")
-    public List<TypeBilletDTO> all(){
-        return this.service.all() ;  
+    public ResponseEntity<byte[]> all(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return this.responses.serve(ChangeVersions.TYPES_BILLET, ifNoneMatch, acceptEncoding) ;  
+    }
+
+    @GetMapping(path = "/page")
+    public PageResponse<TypeBilletDTO> page(ListQuery query){
+        return this.service.page(query) ;
     }
 
     @GetMapping(path = "/get/{id}")
-    public TypeBilletDTO get(@PathVariable Long id){
-        return this.service.get(id) ; 
+    public ResponseEntity<?> get(@PathVariable Long id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return this.versions.conditional(ifNoneMatch, ChangeVersions.TYPES_BILLET, id, () -> this.service.get(id)) ; 
 
     }
 
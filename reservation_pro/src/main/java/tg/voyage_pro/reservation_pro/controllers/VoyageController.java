@@ -1,8 +1,11 @@
 package tg.voyage_pro.reservation_pro.controllers;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -12,12 +15,22 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+import tg.voyage_pro.reservation_pro.core.AvailabilityCache;
+import tg.voyage_pro.reservation_pro.core.ChangeVersions;
+import tg.voyage_pro.reservation_pro.core.JsonResponseCache;
+import tg.voyage_pro.reservation_pro.core.VoyageSearchService;
 import tg.voyage_pro.reservation_pro.core.VoyageService;
+import tg.voyage_pro.reservation_pro.dto.DisponibiliteDTO;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
 import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+import tg.voyage_pro.reservation_pro.exceptions.VoyageNotFoundException;
 import tg.voyage_pro.reservation_pro.mappers.VoyageMapper;
 
 @RestController
@@ -29,6 +42,16 @@ public class VoyageController {
     private VoyageService vs ; 
     @Autowired
     private VoyageMapper voyageMapper;
+    @Autowired
+    private VoyageSearchService searchService ;
+    @Autowired
+    private AvailabilityCache availability ;
+    @Autowired
+    private ChangeVersions versions ;
+    @Autowired
+    private JsonResponseCache responses ;
+
+    private static final int MAX_DISPONIBILITES = 500;
 
     @PostMapping(value="/create")
     public ResponseEntity<?>  create(@RequestBody VoyageDTO voyage){
@@ -36,16 +59,76 @@ public class VoyageController {
         return new ResponseEntity<>(v , HttpStatus.CREATED) ; 
     }
 
+    // JSON déjà sérialisé (et gzip) ; 304 sans requête quand la liste n'a pas changé depuis l'ETag du client
     @GetMapping(value = "/getAll")
-    public  ResponseEntity<?> getAll(){
-        List<VoyageDTO> listVoyage = this.vs.getAll() ;
-        return new ResponseEntity<>( listVoyage , HttpStatus.OK) ; 
+    public  ResponseEntity<byte[]> getAll(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        return this.responses.serve(ChangeVersions.VOYAGES, ifNoneMatch, acceptEncoding) ; 
+    }
+
+    @GetMapping(value = "/page")
+    public ResponseEntity<?> page(ListQuery query){
+        return new ResponseEntity<>( this.vs.page(query) , HttpStatus.OK) ; 
+    }
+
+    // Index en mémoire : trié par date puis prix, sans requête en base
+    @GetMapping(value = "/search")
+    public ResponseEntity<?> search(
+            @RequestParam(required = false) String depart,
+            @RequestParam(required = false) String arrivee,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate to,
+            @RequestParam(required = false) Double prixMax,
+            @RequestParam(required = false) Integer limit){
+        return new ResponseEntity<>( this.searchService.search(depart, arrivee, from, to, prixMax, limit) , HttpStatus.OK) ; 
+    }
+
+    // Autocomplétion : quelques villes par frappe, depuis la mémoire
+    @GetMapping(value = "/villes")
+    public ResponseEntity<?> villes(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) Integer limit){
+        return new ResponseEntity<>( this.searchService.villes(q, role, limit) , HttpStatus.OK) ; 
+    }
+
+    // Correspondances comprises : le trajet qui arrive le plus tôt et le moins cher
+    @GetMapping(value = "/itineraires")
+    public ResponseEntity<?> itineraires(
+            @RequestParam String depart,
+            @RequestParam String arrivee,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date,
+            @RequestParam(required = false) String heure,
+            @RequestParam(required = false) Integer jours,
+            @RequestParam(required = false) Integer etapes,
+            @RequestParam(required = false) Long idTypeBillet,
+            @RequestParam(required = false) Integer correspondance){
+        return new ResponseEntity<>( this.searchService.itineraires(depart, arrivee, date, heure, jours, etapes,
+                idTypeBillet, correspondance) , HttpStatus.OK) ; 
+    }
+
+    // Places restantes et places retenues par type de billet, depuis le cache de disponibilité
+    @GetMapping(value = "/disponibilite/{idVoyage}")
+    public ResponseEntity<?> disponibilite(@PathVariable Long idVoyage){
+        DisponibiliteDTO d = this.availability.get(idVoyage);
+        if (d == null) {
+            throw new VoyageNotFoundException("Aucun voyage n 'a ce numéro");
+        }
+        return new ResponseEntity<>(d , HttpStatus.OK);
+    }
+
+    // Plusieurs voyages (liste de résultats) : les absents du cache sont lus en une requête
+    @GetMapping(value = "/disponibilite")
+    public ResponseEntity<?> disponibilites(@RequestParam List<Long> ids){
+        if (ids.size() > MAX_DISPONIBILITES) {
+            throw new InvalidQueryException("Au plus " + MAX_DISPONIBILITES + " voyages par requête.");
+        }
+        return new ResponseEntity<>(this.availability.get(ids) , HttpStatus.OK);
     }
 
     @GetMapping(value="/get/{idVoyage}")
-    public ResponseEntity<?> get(@PathVariable Long idVoyage){
-         VoyageDTO v = this.vs.getDto(idVoyage);
-        return new ResponseEntity<>(v , HttpStatus.OK);
+    public ResponseEntity<?> get(@PathVariable Long idVoyage, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return this.versions.conditional(ifNoneMatch, ChangeVersions.VOYAGES, idVoyage, () -> this.vs.getDto(idVoyage));
     }
 
     @DeleteMapping(value="/delete/{idVoyage}")
@@ -0,0 +1,63 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actions à exécuter à la fin de la transaction en cours. Hors transaction, elles sont
+ * exécutées tout de suite, comme après un commit.
+ *
+ * Les actions tournent après la fin de la transaction : un accès à la base depuis l'une
+ * d'elles doit ouvrir sa propre transaction (REQUIRES_NEW).
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * {@code action} après le commit ; rien si la transaction est annulée.
+     */
+    public static void run(Runnable action) {
+        afterCompletion(action, null);
+    }
+
+    /**
+     * {@code onCommit} après le commit, {@code onRollback} après une annulation (chacun peut être
+     * null). Ni l'un ni l'autre si l'issue est inconnue.
+     */
+    public static void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED && onCommit != null) {
+                    onCommit.run();
+                } else if (status == STATUS_ROLLED_BACK && onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * {@code action} à la fin de la transaction, quelle que soit son issue.
+     */
+    public static void always(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+}
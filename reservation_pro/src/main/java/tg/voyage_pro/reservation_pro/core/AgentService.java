@@ -6,9 +6,14 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import tg.voyage_pro.reservation_pro.Model.AGENT;
 import tg.voyage_pro.reservation_pro.database.AgentRepository;
+import tg.voyage_pro.reservation_pro.database.KeysetPager;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
  
 
 @Service
@@ -18,15 +23,38 @@ public class AgentService {
     @Autowired
     private AgentRepository repo ;
 
+    @Autowired
+    private KeysetPager pager ;
+
+    @Autowired
+    private KpiService kpi ;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private RollupService rollup ;
+
+    @Autowired
+    private ChangeFeed changes ;
+
+    private static final Set<String> SORT_KEYS = Set.of("idAgent", "nomAgent");
+
 
     public  AGENT create( AGENT agent){
-       return   this.repo.save(agent);
+       AGENT saved = this.repo.save(agent);
+       this.changes.upserted(ChangeFeed.AGENT, saved.getIdAgent());
+       return saved;
     }
 
     public List<AGENT>   all(){
         return this.repo.findAll()  ;
     }
 
+    public PageResponse<AGENT> page(ListQuery query){
+        return this.pager.page(AGENT.class, "idAgent", SORT_KEYS, "idAgent,asc", query, null);
+    }
+
 
     public AGENT update(Long id , AGENT agent){
         var a = this.repo.findById(id).orElse(null);
@@ -35,7 +63,9 @@ public class AgentService {
         }
         BeanUtils.copyProperties(agent , a);
         a.setIdAgent(id);
-        return    this.repo.save(a);
+        AGENT saved = this.repo.save(a);
+        this.changes.upserted(ChangeFeed.AGENT, id);
+        return saved;
 
     }
 
@@ -43,7 +73,11 @@ public class AgentService {
 
     public boolean delete(Long id){
         if(this.repo.existsById(id)){
+                List<LocalDate> days = this.rollup.days("agent", id);
                 this.repo.deleteById(id) ;
+                this.rollup.touch(days);
+                this.kpi.invalidate();
+                this.availability.clear();
                 return true ;
         }
         return  false ;
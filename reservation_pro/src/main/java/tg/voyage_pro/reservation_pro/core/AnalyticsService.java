@@ -0,0 +1,73 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import tg.voyage_pro.reservation_pro.database.ClientRepository;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.CountByLabel;
+import tg.voyage_pro.reservation_pro.dto.DashboardStatsDTO;
+import tg.voyage_pro.reservation_pro.dto.DestinationStatDTO;
+
+/**
+ * Indicateurs du tableau de bord calculés par la base (SUM / COUNT ... GROUP BY) :
+ * la réponse a une taille fixe quel que soit le nombre de réservations.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AnalyticsService {
+
+    public static final int DEFAULT_TOP = 5;
+
+    @Autowired
+    private ReservationRepository rsr ;
+
+    @Autowired
+    private ClientRepository cr ;
+
+    @Autowired
+    private VoyageRepository vr ;
+
+    public DashboardStatsDTO dashboard(java.util.Date from, java.util.Date to, Integer top) {
+        Date debut = from == null ? null : new Date(from.getTime());
+        Date fin = to == null ? null : new Date(to.getTime());
+        int limit = top == null || top <= 0 ? DEFAULT_TOP : Math.min(top, 50);
+
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        long totalReservations = 0;
+        for (CountByLabel c : this.rsr.countByStatus(debut, fin)) {
+            String status = c.getLabel() == null ? "PENDING" : c.getLabel().toUpperCase();
+            parStatut.merge(status, c.getTotal(), Long::sum);
+            totalReservations += c.getTotal();
+        }
+
+        long avecVoyage = this.rsr.countWithVoyage(debut, fin);
+        List<DestinationStatDTO> destinations = new ArrayList<>();
+        for (CountByLabel c : this.rsr.countByDestination(debut, fin, PageRequest.of(0, limit))) {
+            destinations.add(DestinationStatDTO.builder()
+                    .destination(c.getLabel())
+                    .count(c.getTotal())
+                    .percent(avecVoyage == 0 ? 0 : (int) Math.round(c.getTotal() * 100.0 / avecVoyage))
+                    .build());
+        }
+
+        Double revenus = this.rsr.sumConfirmedRevenue(debut, fin);
+        return DashboardStatsDTO.builder()
+                .totalClients(this.cr.count())
+                .totalVoyages(this.vr.count())
+                .totalReservations(totalReservations)
+                .totalRevenus(revenus == null ? 0 : revenus)
+                .reservationsParStatut(parStatut)
+                .topDestinations(destinations)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Champs modifiés par une opération (valeur avant / après, sous forme de texte).
+ * Seuls les champs dont la valeur change sont retenus.
+ */
+public class AuditDelta {
+
+    private static final int MAX_VALUE_LENGTH = 1000;
+
+    private final Map<String, String[]> changes = new LinkedHashMap<>();
+
+    public static AuditDelta of() {
+        return new AuditDelta();
+    }
+
+    /**
+     * Différence entre deux états ({@code null} = l'entité n'existe pas : création ou suppression).
+     */
+    public static AuditDelta between(Map<String, Object> before, Map<String, Object> after) {
+        AuditDelta delta = new AuditDelta();
+        Map<String, Object> names = new LinkedHashMap<>();
+        if (before != null) {
+            names.putAll(before);
+        }
+        if (after != null) {
+            names.putAll(after);
+        }
+        for (String name : names.keySet()) {
+            delta.field(name, before == null ? null : before.get(name), after == null ? null : after.get(name));
+        }
+        return delta;
+    }
+
+    public AuditDelta field(String name, Object before, Object after) {
+        String b = text(before);
+        String a = text(after);
+        if (!Objects.equals(b, a)) {
+            this.changes.put(name, new String[]{b, a});
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    Map<String, String[]> changes() {
+        return this.changes;
+    }
+
+    private static String text(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text;
+        if (value instanceof java.sql.Date d) {
+            text = d.toString();
+        } else if (value instanceof Date d) {
+            text = d.toInstant().toString();
+        } else {
+            text = value.toString();
+        }
+        return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) : text;
+    }
+}
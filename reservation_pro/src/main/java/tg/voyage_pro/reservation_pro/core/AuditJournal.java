@@ -0,0 +1,485 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tg.voyage_pro.reservation_pro.dto.AuditChangeDTO;
+import tg.voyage_pro.reservation_pro.dto.AuditRecordDTO;
+
+/**
+ * Journal d'audit en ajout seul des créations / modifications / suppressions.
+ *
+ * Le thread de la requête encode l'entrée en binaire (quelques centaines d'octets) et la
+ * dépose, après le commit, dans une file bornée : il n'attend jamais le disque. Un thread
+ * d'écriture unique vide la file dans le segment courant, un fichier projeté en mémoire
+ * ({@code audit.segment-bytes}), et force les écritures sur disque par groupe toutes les
+ * {@code audit.flush-ms}. Un segment plein est scellé (le suivant est ouvert d'abord) et son
+ * index (entité:id → positions) écrit à côté, puis gardé en mémoire : l'historique d'une
+ * entité ne fait qu'une recherche par segment et ne lit sur disque que ses propres entrées.
+ * Une entrée qui ne peut pas être écrite est comptée dans {@link #dropped}.
+ *
+ * Format d'une entrée : longueur (int), CRC32 (int), puis date, opération, entité, id,
+ * auteur et champs modifiés. Au démarrage, le dernier segment est relu jusqu'à la première
+ * entrée incomplète ou corrompue.
+ */
+@Component
+public class AuditJournal {
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int HEADER = 8;
+    private static final int DRAIN_MAX = 4096;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuditJournal.class);
+
+    private static final class Segment {
+        final long base;
+        final Path log;
+        final Path index;
+        // Segment courant seulement
+        FileChannel channel;
+        MappedByteBuffer buffer;
+        final Map<String, List<Integer>> positions = new HashMap<>();
+        // Segment scellé : index lu une seule fois (à la fermeture, ou au premier historique)
+        volatile Map<String, int[]> sealedIndex;
+        volatile boolean sealed;
+
+        Segment(Path dir, long base) {
+            this.base = base;
+            this.log = dir.resolve(String.format("%020d", base) + LOG_SUFFIX);
+            this.index = dir.resolve(String.format("%020d", base) + INDEX_SUFFIX);
+        }
+    }
+
+    @Value("${audit.dir:audit}")
+    private String dir;
+
+    @Value("${audit.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${audit.flush-ms:200}")
+    private long flushMs;
+
+    @Value("${audit.queue-capacity:65536}")
+    private int queueCapacity;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<byte[]> queue;
+    private Segment active;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() throws IOException {
+        Path root = Paths.get(this.dir);
+        Files.createDirectories(root);
+        List<Path> logs;
+        try (Stream<Path> files = Files.list(root)) {
+            logs = files.filter(p -> p.getFileName().toString().endsWith(LOG_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < logs.size(); i++) {
+            String name = logs.get(i).getFileName().toString();
+            Segment segment = new Segment(root, Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length())));
+            if (i < logs.size() - 1) {
+                segment.sealed = true;
+                if (!Files.exists(segment.index)) {
+                    segment.sealedIndex = compact(scanPositions(segment.log));
+                    writeIndex(segment, segment.sealedIndex);
+                }
+            }
+            this.segments.add(segment);
+        }
+        if (this.segments.isEmpty()) {
+            this.segments.add(new Segment(root, 1));
+        }
+        this.active = open(this.segments.get(this.segments.size() - 1));
+
+        this.queue = new ArrayBlockingQueue<>(this.queueCapacity);
+        this.running = true;
+        this.writer = new Thread(this::writeLoop, "audit-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // Pas d'interruption : un canal interrompu est fermé et la fin de la file serait perdue.
+        // Le thread d'écriture voit l'arrêt au plus tard après audit.flush-ms.
+        this.running = false;
+        this.writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Ajoute une entrée au journal. Dans une transaction, l'entrée n'est déposée qu'après le
+     * commit (rien n'est journalisé pour une opération annulée).
+     */
+    public void record(String entity, Object id, String operation, AuditDelta delta) {
+        if (!this.running || ("UPDATE".equals(operation) && delta.isEmpty())) {
+            return;
+        }
+        byte[] entry = encode(System.currentTimeMillis(), operation, entity, String.valueOf(id), actor(), delta);
+        AfterCommit.run(() -> {
+            if (!this.queue.offer(entry)) {
+                this.dropped.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Historique d'une entité, du plus ancien au plus récent.
+     */
+    public List<AuditRecordDTO> history(String entity, Object id) {
+        String key = entity + ":" + id;
+        List<AuditRecordDTO> history = new ArrayList<>();
+        for (Segment segment : this.segments) {
+            int[] positions = positions(segment, key);
+            if (positions == null || positions.length == 0) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segment.log, StandardOpenOption.READ)) {
+                for (int position : positions) {
+                    byte[] body = readEntry(channel, position, Integer.MAX_VALUE);
+                    if (body != null) {
+                        history.add(decode(body));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Entrées perdues : file d'écriture pleine, entrée trop grande ou erreur d'écriture.
+     */
+    public long dropped() {
+        return this.dropped.get();
+    }
+
+    // ---- écriture (thread audit-journal-writer seulement) ----
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean dirty = false;
+        long lastForce = System.currentTimeMillis();
+        while (this.running || !this.queue.isEmpty()) {
+            int written = 0;
+            try {
+                byte[] first = this.queue.poll(this.flushMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    this.queue.drainTo(batch, DRAIN_MAX);
+                    for (byte[] entry : batch) {
+                        append(entry);
+                        written++;
+                        dirty = true;
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (dirty && (now - lastForce >= this.flushMs || this.queue.isEmpty())) {
+                    this.active.buffer.force();
+                    dirty = false;
+                    lastForce = now;
+                }
+            } catch (InterruptedException e) {
+                // Traité comme un arrêt ; l'indicateur n'est pas remis, la file reste à vider
+                this.running = false;
+            } catch (IOException | RuntimeException e) {
+                // Le thread d'écriture ne s'arrête jamais : les entrées non écrites sont comptées
+                int lost = batch.size() - written;
+                this.dropped.addAndGet(lost);
+                LOG.error("Écriture du journal d'audit impossible, {} entrée(s) perdue(s)", lost, e);
+            } finally {
+                batch.clear();
+            }
+        }
+        try {
+            this.active.buffer.force();
+        } catch (RuntimeException e) {
+            LOG.error("Écriture du journal d'audit sur disque impossible à l'arrêt", e);
+        }
+    }
+
+    private void append(byte[] entry) throws IOException {
+        if (entry.length > this.segmentBytes) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        if (this.active.buffer.remaining() < entry.length) {
+            roll();
+        }
+        int position = this.active.buffer.position();
+        this.active.buffer.put(entry);
+        String key = keyOf(entry);
+        synchronized (this.active) {
+            this.active.positions.computeIfAbsent(key, k -> new ArrayList<>()).add(position);
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment full = this.active;
+        full.buffer.force();
+        // Le suivant avant de sceller : en cas d'échec, le segment courant reste intact et actif
+        Segment next = open(new Segment(full.log.getParent(), full.base + 1));
+        Map<String, int[]> index;
+        synchronized (full) {
+            index = compact(full.positions);
+            full.sealedIndex = index;
+            full.sealed = true;
+            full.positions.clear();
+        }
+        this.segments.add(next);
+        this.active = next;
+        full.channel.close();
+        full.channel = null;
+        full.buffer = null;
+        try {
+            writeIndex(full, index);
+        } catch (IOException e) {
+            // L'index en mémoire sert jusqu'au redémarrage, qui le reconstruit depuis le segment
+            LOG.warn("Index du segment d'audit {} non écrit", full.log, e);
+        }
+    }
+
+    private Segment open(Segment segment) throws IOException {
+        FileChannel channel = FileChannel.open(segment.log, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Map<String, List<Integer>> positions = new HashMap<>();
+            int end = scan(channel, positions);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes);
+            buffer.position(end);
+            segment.positions.putAll(positions);
+            segment.channel = channel;
+            segment.buffer = buffer;
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Positions des entrées de key dans segment, ou null
+    private static int[] positions(Segment segment, String key) {
+        if (!segment.sealed) {
+            synchronized (segment) {
+                if (!segment.sealed) {
+                    List<Integer> current = segment.positions.get(key);
+                    return current == null ? null : current.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+        }
+        Map<String, int[]> index = segment.sealedIndex;
+        if (index == null) {
+            synchronized (segment) {
+                if (segment.sealedIndex == null) {
+                    segment.sealedIndex = readIndex(segment);
+                }
+                index = segment.sealedIndex;
+            }
+        }
+        return index.get(key);
+    }
+
+    // ---- format ----
+
+    private static byte[] encode(long timestamp, String operation, String entity, String id, String actor, AuditDelta delta) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeLong(timestamp);
+            out.writeUTF(operation);
+            out.writeUTF(entity);
+            out.writeUTF(id);
+            out.writeUTF(actor);
+            out.writeShort(delta.changes().size());
+            for (Map.Entry<String, String[]> change : delta.changes().entrySet()) {
+                out.writeUTF(change.getKey());
+                writeNullable(out, change.getValue()[0]);
+                writeNullable(out, change.getValue()[1]);
+            }
+            byte[] entry = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(entry, HEADER, entry.length - HEADER);
+            ByteBuffer.wrap(entry).putInt(entry.length - HEADER).putInt((int) crc.getValue());
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AuditRecordDTO decode(byte[] body) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            AuditRecordDTO record = AuditRecordDTO.builder()
+                    .timestamp(new Date(in.readLong()))
+                    .operation(in.readUTF())
+                    .entity(in.readUTF())
+                    .id(in.readUTF())
+                    .actor(in.readUTF())
+                    .build();
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                record.getChanges().add(new AuditChangeDTO(in.readUTF(), readNullable(in), readNullable(in)));
+            }
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String keyOf(byte[] entry) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry, HEADER, entry.length - HEADER));
+            in.readLong();
+            in.readUTF();
+            String entity = in.readUTF();
+            return entity + ":" + in.readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // Corps de l'entrée à {@code position}, ou null s'il n'y en a pas (fin des données, entrée tronquée ou corrompue)
+    private static byte[] readEntry(FileChannel channel, int position, int limit) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        if (position + HEADER > limit || channel.read(header, position) < HEADER) {
+            return null;
+        }
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || (long) position + HEADER + length > limit) {
+            return null;
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (channel.read(body, position + HEADER) < length) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        return (int) crc.getValue() == checksum ? body.array() : null;
+    }
+
+    // Parcourt les entrées valides d'un segment ; rend la position de fin
+    private static int scan(FileChannel channel, Map<String, List<Integer>> positions) throws IOException {
+        int limit = (int) Math.min(Integer.MAX_VALUE, channel.size());
+        int position = 0;
+        byte[] body;
+        while ((body = readEntry(channel, position, limit)) != null) {
+            AuditRecordDTO record = decode(body);
+            positions.computeIfAbsent(record.getEntity() + ":" + record.getId(), k -> new ArrayList<>()).add(position);
+            position += HEADER + body.length;
+        }
+        return position;
+    }
+
+    private static Map<String, List<Integer>> scanPositions(Path log) throws IOException {
+        Map<String, List<Integer>> positions = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            scan(channel, positions);
+        }
+        return positions;
+    }
+
+    private static Map<String, int[]> compact(Map<String, List<Integer>> positions) {
+        Map<String, int[]> index = new HashMap<>(positions.size() * 4 / 3 + 1);
+        positions.forEach((key, list) -> index.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return index;
+    }
+
+    private static void writeIndex(Segment segment, Map<String, int[]> positions) throws IOException {
+        Path tmp = segment.index.resolveSibling(segment.index.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(positions.size());
+            for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (int position : entry.getValue()) {
+                    out.writeInt(position);
+                }
+            }
+        }
+        Files.move(tmp, segment.index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, int[]> readIndex(Segment segment) {
+        Map<String, int[]> positions = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.index)))) {
+            int keys = in.readInt();
+            for (int i = 0; i < keys; i++) {
+                String key = in.readUTF();
+                int count = in.readInt();
+                int[] list = new int[count];
+                for (int j = 0; j < count; j++) {
+                    list[j] = in.readInt();
+                }
+                positions.put(key, list);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return positions;
+    }
+
+    // Auteur : en-tête X-Actor de la requête, sinon son adresse ; "system" hors requête HTTP
+    private static String actor() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            String actor = attributes.getRequest().getHeader("X-Actor");
+            if (actor != null && !actor.isBlank()) {
+                return actor.length() > 100 ? actor.substring(0, 100) : actor;
+            }
+            return attributes.getRequest().getRemoteAddr();
+        }
+        return "system";
+    }
+}
@@ -0,0 +1,420 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.AvailabilityRow;
+import tg.voyage_pro.reservation_pro.dto.DisponibiliteDTO;
+
+/**
+ * Disponibilité des voyages : places retenues par type de billet et places restantes.
+ *
+ * Les voyages absents sont chargés à la demande, tous ensemble, par un seul GROUP BY
+ * ({@link VoyageRepository#findAvailability}). Les écritures de réservations passent ensuite
+ * leur différence (voyage, type de billet, places avant / après) par {@link #reservationChanged},
+ * appliquée après commit : le cache n'est pas relu après chaque écriture.
+ *
+ * Un chargement qui a pu croiser une écriture sur le même voyage n'est pas gardé : chaque
+ * écriture en cours est comptée sur la tranche du voyage ({@link Stripe}) et un chargement
+ * n'est installé que si aucune écriture n'a commencé ou fini sur sa tranche pendant la lecture.
+ *
+ * Les écritures faites par une autre instance (ou hors des services) ne passent pas par ici :
+ * une entrée plus vieille que {@code availability.ttl-ms} est relue, avec les places restantes
+ * du voyage.
+ *
+ * La taille est bornée ({@code availability.max-entries}) : au-delà, les voyages passés sont
+ * retirés d'abord, puis les moins récemment lus. Les voyages passés sont aussi purgés
+ * périodiquement. Les compteurs de hits / misses sont publiés dans les métriques de l'actuator
+ * ({@code availability.cache.requests}, {@code availability.cache.evictions},
+ * {@code availability.cache.size}).
+ */
+@Component
+public class AvailabilityCache implements MeterBinder {
+
+    // Type de billet des réservations qui n'en ont pas (clé non nulle)
+    public static final long SANS_TYPE = 0L;
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Places retenues par une réservation ; {@code null} quand elle n'en retient pas.
+     */
+    public record Hold(Long voyageId, long typeBilletId, int places) {
+    }
+
+    private static final class Entry {
+        final LocalDate day;
+        final Integer capacite;
+        final long loadedAt;
+        // Type de billet → places retenues ; remplacée en entier sous le verrou de la tranche
+        volatile Map<Long, Integer> parType;
+        volatile long lastAccess;
+
+        Entry(LocalDate day, Integer capacite, Map<Long, Integer> parType) {
+            this.day = day;
+            this.capacite = capacite;
+            this.parType = parType;
+            this.loadedAt = System.nanoTime();
+            this.lastAccess = this.loadedAt;
+        }
+    }
+
+    private record Candidate(Long idVoyage, Entry entry, boolean past, long lastAccess) {
+    }
+
+    // Écritures en cours et numéro de version d'un groupe de voyages
+    private static final class Stripe {
+        long stamp;
+        int pending;
+    }
+
+    @Value("${availability.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${availability.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Autowired
+    private VoyageRepository vr;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AvailabilityCache() {
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    public static Hold hold(RESERVATION r) {
+        if (r == null || r.getVoyage() == null || !SeatInventory.holdsSeats(r.getStatus())) {
+            return null;
+        }
+        return hold(r.getVoyage().getIdVoyage(),
+                r.getTypeBillet() == null ? null : r.getTypeBillet().getIdTypeBillet(),
+                r.getNombrePlacesReservees(), r.getStatus());
+    }
+
+    public static Hold hold(Long voyageId, Long typeBilletId, Integer places, String status) {
+        if (voyageId == null || places == null || places <= 0 || !SeatInventory.holdsSeats(status)) {
+            return null;
+        }
+        return new Hold(voyageId, typeBilletId == null ? SANS_TYPE : typeBilletId, places);
+    }
+
+    /**
+     * Disponibilité d'un voyage, ou {@code null} s'il n'existe pas.
+     */
+    public DisponibiliteDTO get(Long idVoyage) {
+        List<DisponibiliteDTO> result = get(List.of(idVoyage));
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    /**
+     * Disponibilité des voyages {@code ids} existants, dans l'ordre demandé ; les absents du cache
+     * sont chargés par une seule requête.
+     */
+    public List<DisponibiliteDTO> get(Collection<Long> ids) {
+        Set<Long> wanted = new LinkedHashSet<>(ids);
+        wanted.remove(null);
+        Map<Long, Entry> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        Set<Long> expired = new HashSet<>();
+        long now = System.nanoTime();
+        long ttl = TimeUnit.MILLISECONDS.toNanos(this.ttlMs);
+        for (Long id : wanted) {
+            Entry entry = this.entries.get(id);
+            if (entry != null && now - entry.loadedAt > ttl) {
+                this.entries.remove(id, entry);
+                expired.add(id);
+                entry = null;
+            }
+            if (entry != null) {
+                entry.lastAccess = now;
+                found.put(id, entry);
+            } else {
+                missing.add(id);
+            }
+        }
+        this.hits.add(found.size());
+        if (!missing.isEmpty()) {
+            this.misses.add(missing.size());
+            found.putAll(load(missing, expired));
+        }
+
+        List<DisponibiliteDTO> result = new ArrayList<>(found.size());
+        for (Long id : wanted) {
+            Entry entry = found.get(id);
+            if (entry != null) {
+                result.add(toDto(id, entry));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applique après commit le passage de {@code before} à {@code after} (null = aucune place
+     * retenue). À appeler dans la transaction qui modifie la réservation.
+     */
+    public void reservationChanged(Hold before, Hold after) {
+        if (before == null ? after == null : before.equals(after)) {
+            return;
+        }
+        Set<Long> voyages = new LinkedHashSet<>(2);
+        if (before != null) {
+            voyages.add(before.voyageId());
+        }
+        if (after != null) {
+            voyages.add(after.voyageId());
+        }
+        write(voyages, () -> {
+            if (before != null) {
+                add(before, -before.places());
+            }
+            if (after != null) {
+                add(after, after.places());
+            }
+        });
+    }
+
+    /**
+     * Oublie un voyage après commit (capacité modifiée, voyage supprimé) : il sera relu au
+     * prochain accès.
+     */
+    public void evict(Long idVoyage) {
+        write(Set.of(idVoyage), () -> {
+            if (this.entries.remove(idVoyage) != null) {
+                this.evictions.increment();
+            }
+        });
+    }
+
+    /**
+     * Vide le cache après commit ; pour les écritures qui touchent des réservations sans passer
+     * par les services (suppressions en cascade).
+     */
+    public void clear() {
+        write(null, this.entries::clear);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("availability.cache.requests", this.hits, LongAdder::sum)
+                .tag("result", "hit").description("Lectures de disponibilité servies par le cache")
+                .register(registry);
+        FunctionCounter.builder("availability.cache.requests", this.misses, LongAdder::sum)
+                .tag("result", "miss").description("Voyages chargés depuis la base")
+                .register(registry);
+        FunctionCounter.builder("availability.cache.evictions", this.evictions, LongAdder::sum)
+                .description("Voyages retirés du cache").register(registry);
+        Gauge.builder("availability.cache.size", this, AvailabilityCache::size)
+                .description("Voyages en cache").register(registry);
+    }
+
+    /**
+     * Retire les voyages passés.
+     */
+    @Scheduled(fixedDelayString = "${availability.purge-ms:3600000}", initialDelayString = "${availability.purge-ms:3600000}")
+    public void purge() {
+        LocalDate today = LocalDate.now();
+        this.entries.entrySet().removeIf(e -> {
+            boolean past = e.getValue().day != null && e.getValue().day.isBefore(today);
+            if (past) {
+                this.evictions.increment();
+            }
+            return past;
+        });
+    }
+
+    // expired : voyages déjà en cache, dont le compteur de places est aussi relu
+    private Map<Long, Entry> load(List<Long> ids, Set<Long> expired) {
+        // Versions des tranches avant lecture ; -1 : une écriture est en cours
+        Map<Long, Long> stamps = new HashMap<>();
+        for (Long id : ids) {
+            Stripe stripe = stripe(id);
+            synchronized (stripe) {
+                stamps.put(id, stripe.pending > 0 ? -1 : stripe.stamp);
+            }
+        }
+
+        Map<Long, Entry> loaded = new LinkedHashMap<>();
+        Map<Long, Map<Long, Integer>> parType = new HashMap<>();
+        for (AvailabilityRow row : this.vr.findAvailability(ids)) {
+            Long id = row.getIdVoyage();
+            Map<Long, Integer> types = parType.computeIfAbsent(id, k -> new HashMap<>());
+            if (!loaded.containsKey(id)) {
+                loaded.put(id, new Entry(VoyageSearchService.day(row.getDateVoyage()), row.getCapacite(), types));
+                if (expired.contains(id)) {
+                    this.seatInventory.refresh(id, row.getPlacesRestantes());
+                } else {
+                    this.seatInventory.prime(id, row.getPlacesRestantes());
+                }
+            }
+            if (row.getPlaces() != null && row.getPlaces() > 0) {
+                long type = row.getIdTypeBillet() == null ? SANS_TYPE : row.getIdTypeBillet();
+                types.merge(type, row.getPlaces().intValue(), Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Long, Entry> e : loaded.entrySet()) {
+            Entry entry = e.getValue();
+            entry.parType = Map.copyOf(entry.parType);
+            Stripe stripe = stripe(e.getKey());
+            synchronized (stripe) {
+                if (stamps.get(e.getKey()) == stripe.stamp) {
+                    this.entries.putIfAbsent(e.getKey(), entry);
+                }
+            }
+        }
+        if (this.entries.size() > Math.max(1, this.maxEntries)) {
+            trim();
+        }
+        return loaded;
+    }
+
+    // Ramène le cache à 90 % de sa taille maximale : voyages passés, puis les moins récemment lus
+    private synchronized void trim() {
+        int max = Math.max(1, this.maxEntries);
+        if (this.entries.size() <= max) {
+            return;
+        }
+        int target = Math.max(1, max - max / 10);
+        LocalDate today = LocalDate.now();
+        // Dates d'accès figées : elles bougent pendant le tri
+        List<Candidate> all = new ArrayList<>(this.entries.size());
+        for (Map.Entry<Long, Entry> e : this.entries.entrySet()) {
+            all.add(new Candidate(e.getKey(), e.getValue(), isPast(e.getValue(), today), e.getValue().lastAccess));
+        }
+        all.sort(Comparator.comparing((Candidate c) -> !c.past()).thenComparingLong(Candidate::lastAccess));
+        for (Candidate c : all) {
+            if (this.entries.size() <= target) {
+                break;
+            }
+            if (this.entries.remove(c.idVoyage(), c.entry())) {
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private static boolean isPast(Entry entry, LocalDate today) {
+        return entry.day != null && entry.day.isBefore(today);
+    }
+
+    private void add(Hold hold, int places) {
+        Entry entry = this.entries.get(hold.voyageId());
+        if (entry == null) {
+            return;
+        }
+        Map<Long, Integer> types = new HashMap<>(entry.parType);
+        types.merge(hold.typeBilletId(), places, Integer::sum);
+        types.values().removeIf(n -> n <= 0);
+        entry.parType = Map.copyOf(types);
+    }
+
+    /**
+     * Marque les tranches de {@code voyages} (null = toutes) comme en cours d'écriture jusqu'à la
+     * fin de la transaction ; {@code onCommit} est exécuté sous leurs verrous si elle est validée.
+     */
+    private void write(Set<Long> voyages, Runnable onCommit) {
+        // Verrous toujours pris dans l'ordre des tranches
+        Set<Integer> indexes = new TreeSet<>();
+        if (voyages == null) {
+            for (int i = 0; i < STRIPES; i++) {
+                indexes.add(i);
+            }
+        } else {
+            for (Long id : voyages) {
+                indexes.add(index(id));
+            }
+        }
+        List<Stripe> touched = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            touched.add(this.stripes[i]);
+        }
+        for (Stripe stripe : touched) {
+            synchronized (stripe) {
+                stripe.pending++;
+                stripe.stamp++;
+            }
+        }
+        AfterCommit.afterCompletion(() -> lock(touched, 0, onCommit), null);
+        AfterCommit.always(() -> {
+            for (Stripe stripe : touched) {
+                synchronized (stripe) {
+                    stripe.pending--;
+                    stripe.stamp++;
+                }
+            }
+        });
+    }
+
+    // Exécute action en tenant les verrous de toutes les tranches
+    private static void lock(List<Stripe> stripes, int from, Runnable action) {
+        if (from == stripes.size()) {
+            action.run();
+            return;
+        }
+        synchronized (stripes.get(from)) {
+            lock(stripes, from + 1, action);
+        }
+    }
+
+    private Stripe stripe(Long idVoyage) {
+        return this.stripes[index(idVoyage)];
+    }
+
+    private static int index(Long idVoyage) {
+        return Math.floorMod(Long.hashCode(idVoyage), STRIPES);
+    }
+
+    private DisponibiliteDTO toDto(Long idVoyage, Entry entry) {
+        Map<Long, Integer> types = entry.parType;
+        int reservees = 0;
+        for (int n : types.values()) {
+            reservees += n;
+        }
+        return DisponibiliteDTO.builder()
+                .idVoyage(idVoyage)
+                .capacite(entry.capacite)
+                .placesRestantes(this.seatInventory.remaining(idVoyage))
+                .placesReservees(reservees)
+                .parTypeBillet(new TreeMap<>(types))
+                .build();
+    }
+}
@@ -0,0 +1,344 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
+import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+import tg.voyage_pro.reservation_pro.database.ClientRepository;
+import tg.voyage_pro.reservation_pro.database.TypeBilletRepository;
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.BulkResultDTO;
+import tg.voyage_pro.reservation_pro.dto.BulkRowErrorDTO;
+import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
+import tg.voyage_pro.reservation_pro.exceptions.SeatsUnavailableException;
+import tg.voyage_pro.reservation_pro.mappers.ClientMapper;
+
+/**
+ * Import en masse de clients et de réservations.
+ *
+ * Les lignes sont validées d'abord (champs obligatoires, ids référencés vérifiés par une
+ * requête IN par type d'entité), puis écrites par paquets de {@code bulk.chunk-size} lignes,
+ * chaque paquet dans sa propre transaction ; les INSERT d'un paquet partent en batch JDBC
+ * (ids par séquence, hibernate.jdbc.batch_size). Si un paquet échoue en base, ses lignes sont
+ * rejouées une par une pour isoler celles en erreur.
+ */
+@Service
+public class BulkImportService {
+
+    // Taille max d'une liste IN (PostgreSQL limite le nombre de paramètres d'une requête)
+    private static final int ID_LOOKUP_SLICE = 5000;
+
+    @Value("${bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ClientRepository cr;
+
+    @Autowired
+    private VoyageRepository vr;
+
+    @Autowired
+    private TypeBilletRepository tbr;
+
+    @Autowired
+    private ClientMapper clientMapper;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private ReservationExpiryService expiry;
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired
+    private KpiService kpi;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    public BulkResultDTO importClients(List<ClientDTO> clients) {
+        BulkResultDTO result = new BulkResultDTO(clients.size());
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i++) {
+            String error = validateClient(clients.get(i));
+            if (error != null) {
+                result.getErrors().add(new BulkRowErrorDTO(i, error));
+            } else {
+                valid.add(i);
+            }
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        for (List<Integer> chunk : chunks(valid)) {
+            try {
+                tx.executeWithoutResult(status -> {
+                    List<Long> ids = new ArrayList<>(chunk.size());
+                    for (int i : chunk) {
+                        CLIENT client = toClient(clients.get(i));
+                        this.entityManager.persist(client);
+                        ids.add(client.getIdClient());
+                    }
+                    this.changes.upsertedAll(ChangeFeed.CLIENT, ids);
+                    this.entityManager.flush();
+                    this.entityManager.clear();
+                });
+                result.setInserted(result.getInserted() + chunk.size());
+            } catch (RuntimeException e) {
+                for (int i : chunk) {
+                    try {
+                        tx.executeWithoutResult(status -> {
+                            CLIENT client = toClient(clients.get(i));
+                            this.entityManager.persist(client);
+                            this.changes.upserted(ChangeFeed.CLIENT, client.getIdClient());
+                        });
+                        result.setInserted(result.getInserted() + 1);
+                    } catch (RuntimeException rowError) {
+                        result.getErrors().add(new BulkRowErrorDTO(i, rootMessage(rowError)));
+                    }
+                }
+            }
+        }
+        if (result.getInserted() > 0) {
+            this.versions.changed(ChangeVersions.CLIENTS);
+        }
+        result.getErrors().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return result;
+    }
+
+    public BulkResultDTO importReservations(List<ReservationDTO> reservations) {
+        BulkResultDTO result = new BulkResultDTO(reservations.size());
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < reservations.size(); i++) {
+            String error = validateReservation(reservations.get(i));
+            if (error != null) {
+                result.getErrors().add(new BulkRowErrorDTO(i, error));
+            } else {
+                valid.add(i);
+            }
+        }
+
+        Set<Long> clients = existing(valid, reservations, ReservationDTO::getIdClient, this.cr::findExistingIds);
+        Set<Long> voyages = existing(valid, reservations, ReservationDTO::getIdVoyage, this.vr::findExistingIds);
+        Set<Long> types = existing(valid, reservations, ReservationDTO::getIdTypeBillet, this.tbr::findExistingIds);
+        List<Integer> resolved = new ArrayList<>();
+        for (int i : valid) {
+            ReservationDTO dto = reservations.get(i);
+            if (!clients.contains(dto.getIdClient())) {
+                result.getErrors().add(new BulkRowErrorDTO(i, "Client introuvable avec l'ID: " + dto.getIdClient()));
+            } else if (!voyages.contains(dto.getIdVoyage())) {
+                result.getErrors().add(new BulkRowErrorDTO(i, "Voyage introuvable avec l'ID: " + dto.getIdVoyage()));
+            } else if (!types.contains(dto.getIdTypeBillet())) {
+                result.getErrors().add(new BulkRowErrorDTO(i, "Type de billet introuvable avec l'ID: " + dto.getIdTypeBillet()));
+            } else {
+                resolved.add(i);
+            }
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        for (List<Integer> chunk : chunks(resolved)) {
+            List<BulkRowErrorDTO> chunkErrors = new ArrayList<>();
+            try {
+                tx.executeWithoutResult(status -> {
+                    chunkErrors.clear();
+                    List<Integer> seated = reserveSeats(chunk, reservations, chunkErrors);
+                    for (int i : seated) {
+                        persist(toReservation(reservations.get(i)));
+                    }
+                    this.entityManager.flush();
+                    this.entityManager.clear();
+                });
+                result.getErrors().addAll(chunkErrors);
+                result.setInserted(result.getInserted() + chunk.size() - chunkErrors.size());
+            } catch (RuntimeException e) {
+                for (int i : chunk) {
+                    try {
+                        tx.executeWithoutResult(status -> {
+                            ReservationDTO dto = reservations.get(i);
+                            if (SeatInventory.holdsSeats(status(dto))) {
+                                this.seatInventory.reserve(dto.getIdVoyage(), dto.getNombrePlacesReservees());
+                            }
+                            persist(toReservation(dto));
+                        });
+                        result.setInserted(result.getInserted() + 1);
+                    } catch (RuntimeException rowError) {
+                        result.getErrors().add(new BulkRowErrorDTO(i, rootMessage(rowError)));
+                    }
+                }
+            }
+        }
+        result.getErrors().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return result;
+    }
+
+    // Une seule réservation de stock par voyage et par paquet ; ligne par ligne si le voyage est presque complet
+    private List<Integer> reserveSeats(List<Integer> chunk, List<ReservationDTO> reservations, List<BulkRowErrorDTO> errors) {
+        Map<Long, List<Integer>> byVoyage = new LinkedHashMap<>();
+        List<Integer> seated = new ArrayList<>();
+        for (int i : chunk) {
+            ReservationDTO dto = reservations.get(i);
+            if (SeatInventory.holdsSeats(status(dto))) {
+                byVoyage.computeIfAbsent(dto.getIdVoyage(), id -> new ArrayList<>()).add(i);
+            } else {
+                seated.add(i);
+            }
+        }
+        for (Map.Entry<Long, List<Integer>> entry : byVoyage.entrySet()) {
+            int total = 0;
+            for (int i : entry.getValue()) {
+                total += reservations.get(i).getNombrePlacesReservees();
+            }
+            try {
+                this.seatInventory.reserve(entry.getKey(), total);
+                seated.addAll(entry.getValue());
+            } catch (SeatsUnavailableException e) {
+                for (int i : entry.getValue()) {
+                    try {
+                        this.seatInventory.reserve(entry.getKey(), reservations.get(i).getNombrePlacesReservees());
+                        seated.add(i);
+                    } catch (SeatsUnavailableException full) {
+                        errors.add(new BulkRowErrorDTO(i, full.getMessage()));
+                    }
+                }
+            }
+        }
+        return seated;
+    }
+
+    private Set<Long> existing(List<Integer> rows, List<ReservationDTO> reservations,
+                               Function<ReservationDTO, Long> id, Function<Collection<Long>, List<Long>> lookup) {
+        List<Long> ids = new ArrayList<>(rows.stream().map(i -> id.apply(reservations.get(i))).distinct().toList());
+        Set<Long> found = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += ID_LOOKUP_SLICE) {
+            found.addAll(lookup.apply(ids.subList(from, Math.min(ids.size(), from + ID_LOOKUP_SLICE))));
+        }
+        return found;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> rows) {
+        int size = Math.max(1, this.chunkSize);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += size) {
+            chunks.add(rows.subList(from, Math.min(rows.size(), from + size)));
+        }
+        return chunks;
+    }
+
+    private CLIENT toClient(ClientDTO dto) {
+        CLIENT client = this.clientMapper.toEntity(dto);
+        client.setIdClient(null);
+        return client;
+    }
+
+    private void persist(RESERVATION reservation) {
+        this.entityManager.persist(reservation);
+        this.expiry.track(reservation);
+        this.journal.record("reservation", reservation.getIdReservation(), "CREATE",
+                AuditDelta.between(null, ReservationService.auditState(reservation)));
+        this.kpi.reservationChanged(null, KpiService.fact(reservation));
+        this.availability.reservationChanged(null, AvailabilityCache.hold(reservation));
+        this.changes.upserted(ChangeFeed.RESERVATION, reservation.getIdReservation());
+    }
+
+    private RESERVATION toReservation(ReservationDTO dto) {
+        return RESERVATION.builder()
+                .client(this.entityManager.getReference(CLIENT.class, dto.getIdClient()))
+                .voyage(this.entityManager.getReference(VOYAGE.class, dto.getIdVoyage()))
+                .typeBillet(this.entityManager.getReference(TYPE_BILLET.class, dto.getIdTypeBillet()))
+                .nombrePlacesReservees(dto.getNombrePlacesReservees())
+                .dateReservation(dto.getDateReservation())
+                .status(status(dto))
+                .build();
+    }
+
+    private static String status(ReservationDTO dto) {
+        return dto.getStatus() == null || dto.getStatus().isEmpty() ? "PENDING" : dto.getStatus();
+    }
+
+    private static String validateClient(ClientDTO c) {
+        if (c == null) {
+            return "Ligne vide.";
+        }
+        if (isBlank(c.getNomClient()) || isBlank(c.getPrenomClient())) {
+            return "Le nom et le prénom du client sont obligatoires.";
+        }
+        if (c.getDateNaiss() == null) {
+            return "La date de naissance est obligatoire.";
+        }
+        if (isBlank(c.getMailClient()) || isBlank(c.getTelClient())) {
+            return "Le mail et le téléphone du client sont obligatoires.";
+        }
+        if (isBlank(c.getSexeClient())) {
+            return "Le sexe du client est obligatoire.";
+        }
+        if (isBlank(c.getLogin()) || isBlank(c.getPassword())) {
+            return "Le login et le mot de passe sont obligatoires.";
+        }
+        return null;
+    }
+
+    private static String validateReservation(ReservationDTO r) {
+        if (r == null) {
+            return "Ligne vide.";
+        }
+        if (r.getIdClient() == null) {
+            return "L'ID du client ne doit pas être nul.";
+        }
+        if (r.getIdVoyage() == null) {
+            return "L'ID du voyage ne doit pas être nul.";
+        }
+        if (r.getIdTypeBillet() == null) {
+            return "L'ID du type de billet ne doit pas être nul.";
+        }
+        if (r.getDateReservation() == null) {
+            return "La date de réservation ne doit pas être nulle.";
+        }
+        if (r.getNombrePlacesReservees() == null || r.getNombrePlacesReservees() <= 0) {
+            return "Le nombre de places doit être positif.";
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
@@ -0,0 +1,353 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import tg.voyage_pro.reservation_pro.database.AgentRepository;
+import tg.voyage_pro.reservation_pro.database.ChangeLogRepository;
+import tg.voyage_pro.reservation_pro.database.ClientRepository;
+import tg.voyage_pro.reservation_pro.database.PaiementRepository;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.database.TypeBilletRepository;
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.AgentDTO;
+import tg.voyage_pro.reservation_pro.dto.ChangeDTO;
+import tg.voyage_pro.reservation_pro.dto.ChangesDTO;
+import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+import tg.voyage_pro.reservation_pro.dto.PaiementDTO;
+import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
+import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
+import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+import tg.voyage_pro.reservation_pro.mappers.AgentMapper;
+import tg.voyage_pro.reservation_pro.mappers.ClientMapper;
+import tg.voyage_pro.reservation_pro.mappers.PaiementMapper;
+import tg.voyage_pro.reservation_pro.mappers.ReservationMapper;
+import tg.voyage_pro.reservation_pro.mappers.TypeBilletMapper;
+import tg.voyage_pro.reservation_pro.mappers.VoyageMapper;
+
+/**
+ * Flux de changements pour la synchronisation incrémentale ({@code GET /changes?since=}).
+ *
+ * Chaque écriture des services ajoute (type, id, opération) à la table change_log dans sa propre
+ * transaction : rien n'est gardé pour une transaction annulée, et toutes les instances lisent le
+ * même journal. Les suppressions sont signalées par {@link ChangeFeedListener} pour chaque ligne
+ * supprimée, y compris celles parties par les {@code CascadeType.ALL} du modèle.
+ *
+ * L'ordre de validation n'est pas celui des numéros de version (attribués à l'insertion). Le jeton
+ * contient donc l'instantané PostgreSQL ({@code txid_current_snapshot()}) de la lecture précédente :
+ * une lecture rend les entrées des transactions validées depuis cet instantané et visibles dans le
+ * sien, quelle que soit l'instance qui les a écrites ou lues, avec l'état courant des entités
+ * créées ou modifiées (une requête par type) et les suppressions sous forme de pierres tombales.
+ * Le volume échangé suit le rythme des écritures, pas la taille des tables. Les entrées plus
+ * vieilles que {@code changes.retention-ms} sont purgées ; un jeton plus vieux que la moitié de
+ * cette durée demande un rechargement complet.
+ */
+@Component
+public class ChangeFeed {
+
+    public static final String CLIENT = ChangeVersions.CLIENTS;
+    public static final String VOYAGE = ChangeVersions.VOYAGES;
+    public static final String TYPE_BILLET = ChangeVersions.TYPES_BILLET;
+    public static final String RESERVATION = "reservation";
+    public static final String PAIEMENT = "paiement";
+    public static final String AGENT = "agent";
+
+    public static final String UPSERT = "U";
+    public static final String DELETE = "D";
+
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String TOKEN_PREFIX = "s1";
+    // Séparateur des ids passés en une chaîne à ChangeLogRepository.append
+    private static final char ID_SEPARATOR = (char) 31;
+    // Texte d'un txid_snapshot : xmin:xmax:xip,...
+    private static final Pattern SNAPSHOT = Pattern.compile("\\d+:\\d+:(\\d+(,\\d+)*)?");
+
+    private final long retentionMs;
+    private final int defaultLimit;
+
+    @Autowired
+    private ChangeLogRepository log;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ClientRepository cr;
+
+    @Autowired
+    private VoyageRepository vr;
+
+    @Autowired
+    private TypeBilletRepository tbr;
+
+    @Autowired
+    private ReservationRepository rsr;
+
+    @Autowired
+    private PaiementRepository pr;
+
+    @Autowired
+    private AgentRepository ar;
+
+    @Autowired
+    private ClientMapper clientMapper;
+
+    @Autowired
+    private VoyageMapper voyageMapper;
+
+    @Autowired
+    private TypeBilletMapper typeBilletMapper;
+
+    @Autowired
+    private ReservationMapper reservationMapper;
+
+    @Autowired
+    private PaiementMapper paiementMapper;
+
+    @Autowired
+    private AgentMapper agentMapper;
+
+    // État courant par type : ids -> (id -> DTO)
+    private final Map<String, Function<List<Object>, Map<Object, Object>>> sources = new HashMap<>();
+
+    public ChangeFeed(@Value("${changes.retention-ms:86400000}") long retentionMs,
+                      @Value("${changes.page-size:500}") int defaultLimit) {
+        this.retentionMs = retentionMs;
+        this.defaultLimit = Math.max(1, Math.min(defaultLimit, MAX_LIMIT));
+    }
+
+    @PostConstruct
+    void init() {
+        this.<Long, ClientDTO>source(CLIENT, ids -> this.clientMapper.toListDto(this.cr.findAllById(ids)),
+                ClientDTO::getIdClient);
+        this.<Long, VoyageDTO>source(VOYAGE, ids -> this.voyageMapper.toDtos(this.vr.findAllById(ids)),
+                VoyageDTO::getIdVoyage);
+        this.<Long, TypeBilletDTO>source(TYPE_BILLET, ids -> this.typeBilletMapper.toListDto(this.tbr.findAllById(ids)),
+                TypeBilletDTO::getIdTypeBillet);
+        this.<Long, ReservationDTO>source(RESERVATION, ids -> this.reservationMapper.fromRows(this.rsr.findRowsByIds(ids)),
+                ReservationDTO::getIdReservation);
+        this.<String, PaiementDTO>source(PAIEMENT, ids -> this.paiementMapper.toListDto(this.pr.findWithLinks(ids)),
+                PaiementDTO::getCodePaiement);
+        this.<Long, AgentDTO>source(AGENT, ids -> this.agentMapper.toListAgentDto(this.ar.findAllById(ids)),
+                AgentDTO::getIdAgent);
+    }
+
+    public void upserted(String type, Object id) {
+        if (id != null) {
+            this.log.append(type, String.valueOf(id), UPSERT);
+        }
+    }
+
+    public void upsertedAll(String type, Collection<?> ids) {
+        String joined = join(ids);
+        if (!joined.isEmpty()) {
+            this.log.append(type, joined, UPSERT);
+        }
+    }
+
+    /**
+     * Suppression de {@code type}/{@code id}, appelée par {@link ChangeFeedListener} pour chaque
+     * entité supprimée par JPA. Aucune requête n'est permise pendant la suppression : les ids sont
+     * gardés avec la transaction et écrits avant sa validation, une requête par type.
+     */
+    @SuppressWarnings("unchecked")
+    public void deleted(String type, Object id) {
+        if (id == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.log.append(type, String.valueOf(id), DELETE);
+            return;
+        }
+        Map<String, Set<Object>> deletes = (Map<String, Set<Object>>) TransactionSynchronizationManager.getResource(this);
+        if (deletes == null) {
+            Map<String, Set<Object>> bound = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    bound.forEach((t, ids) -> ChangeFeed.this.log.append(t, join(ids), DELETE));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+                }
+            });
+            deletes = bound;
+        }
+        deletes.computeIfAbsent(type, k -> new LinkedHashSet<>()).add(id);
+    }
+
+    /**
+     * Modifications postérieures à {@code since} (au plus {@code limit}) et jeton suivant. Sans
+     * jeton, ou avec un jeton trop ancien : {@code reset} et le jeton courant, à prendre avant de
+     * recharger les listes.
+     */
+    public ChangesDTO changes(String since, Integer limit) {
+        int max = limit == null || limit <= 0 ? this.defaultLimit : Math.min(limit, MAX_LIMIT);
+        Token from = parse(since);
+
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        tx.setReadOnly(true);
+        return tx.execute(s -> {
+            // Première requête : fixe l'instantané de la transaction
+            String current = this.log.currentSnapshot();
+            long now = System.currentTimeMillis();
+            if (from == null || from.issuedAt() < now - this.retentionMs / 2) {
+                return ChangesDTO.builder().token(new Token(current, null, 0, now).encode())
+                        .reset(true).changes(List.of()).build();
+            }
+            String until = from.until() != null ? from.until() : current;
+            List<Object[]> rows = this.log.between(from.since(), xmin(from.since()), until, from.after(), max + 1);
+            boolean hasMore = rows.size() > max;
+            if (hasMore) {
+                rows = rows.subList(0, max);
+            }
+            Token next = hasMore
+                    ? new Token(from.since(), until, ((Number) rows.get(rows.size() - 1)[0]).longValue(), from.issuedAt())
+                    : new Token(until, null, 0, now);
+            return ChangesDTO.builder()
+                    .token(next.encode())
+                    .hasMore(hasMore)
+                    .changes(resolve(rows))
+                    .build();
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${changes.compact-ms:60000}", initialDelayString = "${changes.compact-ms:60000}")
+    public void compact() {
+        this.log.purge(new Timestamp(System.currentTimeMillis() - this.retentionMs));
+    }
+
+    // Dernière entrée de chaque entité de la page, avec l'état courant des U
+    private List<ChangeDTO> resolve(List<Object[]> rows) {
+        Map<String, Object[]> latest = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            String key = row[1] + ":" + row[2];
+            latest.remove(key);
+            latest.put(key, row);
+        }
+        Map<String, Set<Object>> upserts = new HashMap<>();
+        for (Object[] row : latest.values()) {
+            if (UPSERT.equals(String.valueOf(row[3]))) {
+                upserts.computeIfAbsent((String) row[1], k -> new LinkedHashSet<>()).add(id((String) row[1], (String) row[2]));
+            }
+        }
+        Map<String, Map<Object, Object>> current = new HashMap<>();
+        upserts.forEach((type, ids) -> current.put(type, this.sources.get(type).apply(new ArrayList<>(ids))));
+
+        List<ChangeDTO> changes = new ArrayList<>(latest.size());
+        for (Object[] row : latest.values()) {
+            String type = (String) row[1];
+            Object id = id(type, (String) row[2]);
+            String op = String.valueOf(row[3]);
+            Object data = null;
+            if (UPSERT.equals(op)) {
+                data = current.getOrDefault(type, Map.of()).get(id);
+                // Supprimée depuis : la pierre tombale suivra, on l'envoie tout de suite
+                if (data == null) {
+                    op = DELETE;
+                }
+            }
+            changes.add(ChangeDTO.builder()
+                    .type(type)
+                    .id(id)
+                    .op(op)
+                    .version(((Number) row[0]).longValue())
+                    .data(data)
+                    .build());
+        }
+        return changes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I, D> void source(String type, Function<List<I>, List<D>> load, Function<D, I> id) {
+        this.sources.put(type, ids -> {
+            Map<Object, Object> byId = new HashMap<>();
+            for (D dto : load.apply((List<I>) (List<?>) ids)) {
+                byId.put(id.apply(dto), dto);
+            }
+            return byId;
+        });
+    }
+
+    private static String join(Collection<?> ids) {
+        StringBuilder joined = new StringBuilder();
+        for (Object id : ids) {
+            if (id != null) {
+                if (joined.length() > 0) {
+                    joined.append(ID_SEPARATOR);
+                }
+                joined.append(id);
+            }
+        }
+        return joined.toString();
+    }
+
+    // Ids numériques, sauf le code des paiements
+    private static Object id(String type, String id) {
+        return PAIEMENT.equals(type) ? id : Long.valueOf(id);
+    }
+
+    private static long xmin(String snapshot) {
+        return Long.parseLong(snapshot.substring(0, snapshot.indexOf(':')));
+    }
+
+    /**
+     * Jeton : instantané de la lecture précédente ({@code since}) ; pendant une lecture par
+     * paquets, instantané de fin ({@code until}) et dernière version rendue ({@code after}).
+     * {@code issuedAt} : date de l'instantané {@code since}.
+     */
+    private record Token(String since, String until, long after, long issuedAt) {
+
+        String encode() {
+            String raw = String.join(";", TOKEN_PREFIX, this.since, this.until == null ? "" : this.until,
+                    Long.toString(this.after), Long.toString(this.issuedAt));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Jeton décodé, ou null s'il est absent
+    private static Token parse(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(since), StandardCharsets.UTF_8).split(";", -1);
+            if (parts.length != 5 || !TOKEN_PREFIX.equals(parts[0]) || !SNAPSHOT.matcher(parts[1]).matches()
+                    || !(parts[2].isEmpty() || SNAPSHOT.matcher(parts[2]).matches())) {
+                throw new IllegalArgumentException();
+            }
+            return new Token(parts[1], parts[2].isEmpty() ? null : parts[2],
+                    Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("Jeton de synchronisation invalide : " + since);
+        }
+    }
+}
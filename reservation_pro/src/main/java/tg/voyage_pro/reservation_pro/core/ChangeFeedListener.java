@@ -0,0 +1,39 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import jakarta.persistence.PreRemove;
+import tg.voyage_pro.reservation_pro.Model.AGENT;
+import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.Model.PAIEMENT;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
+import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+
+/**
+ * Signale au flux de changements chaque entité supprimée par JPA, y compris celles parties par
+ * les {@code CascadeType.ALL} du modèle : une entrée D par ligne réellement supprimée.
+ * Instancié par Hibernate à travers le conteneur de beans Spring.
+ */
+public class ChangeFeedListener {
+
+    @Autowired
+    private ChangeFeed changes;
+
+    @PreRemove
+    void removed(Object entity) {
+        if (entity instanceof CLIENT c) {
+            this.changes.deleted(ChangeFeed.CLIENT, c.getIdClient());
+        } else if (entity instanceof VOYAGE v) {
+            this.changes.deleted(ChangeFeed.VOYAGE, v.getIdVoyage());
+        } else if (entity instanceof TYPE_BILLET t) {
+            this.changes.deleted(ChangeFeed.TYPE_BILLET, t.getIdTypeBillet());
+        } else if (entity instanceof RESERVATION r) {
+            this.changes.deleted(ChangeFeed.RESERVATION, r.getIdReservation());
+        } else if (entity instanceof PAIEMENT p) {
+            this.changes.deleted(ChangeFeed.PAIEMENT, p.getCodePaiement());
+        } else if (entity instanceof AGENT a) {
+            this.changes.deleted(ChangeFeed.AGENT, a.getIdAgent());
+        }
+    }
+}
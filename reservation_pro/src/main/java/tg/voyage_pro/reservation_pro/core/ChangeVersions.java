@@ -0,0 +1,151 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Numéros de version des collections servies aux tableaux de bord (voyages, types de billet,
+ * clients), pour les GET conditionnels (ETag / If-None-Match).
+ *
+ * Chaque méthode qui modifie une collection appelle {@link #changed} ; le compteur monte à la fin
+ * de la transaction, après les invalidations de cache enregistrées avant lui. Un contrôleur lit
+ * la version avant les données : l'ETag rendu ne peut donc pas être plus récent que le corps.
+ * Une requête dont le {@code If-None-Match} correspond reçoit un 304 sans aucune requête en base.
+ * Les changements fréquents et mineurs (places restantes à chaque réservation) passent par
+ * {@link #changedLater} : ils sont regroupés en une seule montée de version toutes les
+ * {@code versions.coalesce-ms}, au lieu d'une reconstruction de la liste par réservation.
+ *
+ * Les versions sont propres à l'instance : l'ETag contient un identifiant tiré au démarrage, pour
+ * qu'un redémarrage ou une autre instance ne rende jamais un 304 à tort. Une écriture faite sur
+ * une autre instance ne fait pas monter les versions locales ; toutes les collections montent
+ * donc aussi toutes les {@code versions.resync-ms} : un client servi par cette instance voit
+ * ces écritures au plus tard après ce délai (une réponse complète de plus par période).
+ */
+@Component
+public class ChangeVersions {
+
+    public static final String VOYAGES = "voyage";
+    public static final String TYPES_BILLET = "typeBillet";
+    public static final String CLIENTS = "client";
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    // Collections à faire monter au prochain regroupement
+    private final Set<String> deferred = ConcurrentHashMap.newKeySet();
+
+    /**
+     * {@code listener} reçoit le nom de la collection après chaque changement de version ; il
+     * tourne dans le thread de l'écriture et doit rendre la main tout de suite.
+     */
+    public void addListener(Consumer<String> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Signale une modification de {@code collection}, visible à la fin de la transaction en cours
+     * (validée ou annulée), ou tout de suite hors transaction.
+     */
+    public void changed(String collection) {
+        AtomicLong version = counter(collection);
+        AfterCommit.always(() -> bump(collection, version));
+    }
+
+    /**
+     * Comme {@link #changed}, mais la version ne monte qu'au prochain regroupement (au plus
+     * {@code versions.coalesce-ms} plus tard) : plusieurs appels rapprochés n'en font qu'un.
+     */
+    public void changedLater(String collection) {
+        AfterCommit.always(() -> this.deferred.add(collection));
+    }
+
+    @Scheduled(fixedDelayString = "${versions.coalesce-ms:2000}")
+    public void flushDeferred() {
+        for (String collection : this.deferred) {
+            if (this.deferred.remove(collection)) {
+                bump(collection, counter(collection));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${versions.resync-ms:60000}", initialDelayString = "${versions.resync-ms:60000}")
+    public void resync() {
+        this.versions.forEach(this::bump);
+    }
+
+    public long version(String collection) {
+        return counter(collection).get();
+    }
+
+    /**
+     * ETag fort de {@code collection} à sa version courante ; {@code id} (optionnel) distingue
+     * les éléments d'une même collection.
+     */
+    public String etag(String collection, Object id) {
+        return etag(collection, id, version(collection));
+    }
+
+    /**
+     * ETag de {@code collection} à la version {@code version} déjà lue.
+     */
+    public String etag(String collection, Object id, long version) {
+        StringBuilder tag = new StringBuilder("\"").append(collection).append('-').append(this.epoch)
+                .append('-').append(version);
+        if (id != null) {
+            tag.append('-').append(id);
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * 304 si {@code ifNoneMatch} contient l'ETag courant de la collection, sinon 200 avec le corps
+     * produit par {@code body} (lu après la version) et l'ETag.
+     */
+    public ResponseEntity<?> conditional(String ifNoneMatch, String collection, Object id, Supplier<?> body) {
+        String etag = etag(collection, id);
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+
+    // If-None-Match : liste d'ETags séparés par des virgules, faibles (W/) acceptés, ou *
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void bump(String collection, AtomicLong version) {
+        version.incrementAndGet();
+        for (Consumer<String> listener : this.listeners) {
+            listener.accept(collection);
+        }
+    }
+
+    private AtomicLong counter(String collection) {
+        return this.versions.computeIfAbsent(collection, k -> new AtomicLong());
+    }
+}
@@ -0,0 +1,159 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Villes distinctes des voyages, pour l'autocomplétion.
+ *
+ * Les noms normalisés ({@link VoyageIndex#normalize}) sont gardés dans un tableau trié : les
+ * villes commençant par un préfixe sont une plage contiguë trouvée par deux recherches
+ * dichotomiques. Le tableau n'est recopié que quand une ville apparaît ou disparaît ; les
+ * compteurs de voyages (au départ, à l'arrivée) sont mis à jour sur place. Le nom affiché est
+ * l'orthographe la plus fréquente parmi les voyages de la ville.
+ *
+ * Les lectures sont sans verrou ; les écritures ({@link #add}) doivent être sérialisées par
+ * l'appelant.
+ */
+public class CityIndex {
+
+    public static final String DEPART = "depart";
+    public static final String ARRIVEE = "arrivee";
+
+    public record Suggestion(String nom, int departs, int arrivees) {
+    }
+
+    private static final class City {
+        final String key;
+        volatile String nom;
+        volatile int departs;
+        volatile int arrivees;
+        // Orthographe → nombre de voyages
+        final Map<String, Integer> spellings = new HashMap<>(2);
+
+        City(String key) {
+            this.key = key;
+        }
+    }
+
+    // Publié en un seul bloc : clés triées et villes à la même position
+    private record Sorted(String[] keys, City[] cities) {
+    }
+
+    private final Map<String, City> cities = new HashMap<>();
+    private volatile Sorted sorted = new Sorted(new String[0], new City[0]);
+
+    /**
+     * Ajoute (ou retire, si négatifs) {@code departs} voyages au départ et {@code arrivees}
+     * voyages à l'arrivée de la ville {@code nom}.
+     */
+    public void add(String nom, int departs, int arrivees) {
+        String key = VoyageIndex.normalize(nom);
+        if (key.isEmpty()) {
+            return;
+        }
+        City city = this.cities.get(key);
+        boolean created = city == null;
+        if (created) {
+            city = new City(key);
+        }
+        city.spellings.merge(nom.trim(), departs + arrivees, Integer::sum);
+        city.spellings.values().removeIf(n -> n <= 0);
+        city.departs += departs;
+        city.arrivees += arrivees;
+        if (city.departs <= 0 && city.arrivees <= 0) {
+            if (!created) {
+                this.cities.remove(key);
+                publish();
+            }
+            return;
+        }
+        city.nom = city.spellings.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey).orElse(nom.trim());
+        if (created) {
+            this.cities.put(key, city);
+            publish();
+        }
+    }
+
+    public int size() {
+        return this.sorted.keys().length;
+    }
+
+    /**
+     * Au plus {@code limit} villes dont le nom commence par {@code prefix} (accents et casse
+     * ignorés), les plus desservies d'abord. {@code role} ({@link #DEPART}, {@link #ARRIVEE} ou
+     * null pour les deux) choisit le compteur utilisé pour le tri et écarte les villes à 0.
+     */
+    public List<Suggestion> suggest(String prefix, String role, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Sorted s = this.sorted;
+        String p = VoyageIndex.normalize(prefix);
+        int from = lowerBound(s.keys(), p);
+        // Borne haute : le préfixe suivi du plus grand caractère
+        int to = lowerBound(s.keys(), p + '\uffff');
+
+        Comparator<Suggestion> ranking = Comparator.<Suggestion>comparingInt(x -> score(x, role)).reversed()
+                .thenComparing(Suggestion::nom);
+        // Les limit meilleures vues jusqu'ici ; la tête est la moins bonne
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (int i = from; i < to; i++) {
+            City city = s.cities()[i];
+            Suggestion suggestion = new Suggestion(city.nom, Math.max(0, city.departs), Math.max(0, city.arrivees));
+            if (score(suggestion, role) <= 0) {
+                continue;
+            }
+            best.add(suggestion);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Suggestion[] result = best.toArray(new Suggestion[0]);
+        Arrays.sort(result, ranking);
+        return Arrays.asList(result);
+    }
+
+    private static int score(Suggestion s, String role) {
+        if (DEPART.equals(role)) {
+            return s.departs();
+        }
+        if (ARRIVEE.equals(role)) {
+            return s.arrivees();
+        }
+        return s.departs() + s.arrivees();
+    }
+
+    private void publish() {
+        List<City> all = new ArrayList<>(this.cities.values());
+        all.sort((a, b) -> a.key.compareTo(b.key));
+        String[] keys = new String[all.size()];
+        City[] values = new City[all.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = all.get(i).key;
+            values[i] = all.get(i);
+        }
+        this.sorted = new Sorted(keys, values);
+    }
+
+    private static int lowerBound(String[] keys, String value) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(value) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
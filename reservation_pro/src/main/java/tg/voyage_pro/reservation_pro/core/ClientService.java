@@ -12,14 +12,20 @@ package tg.voyage_pro.reservation_pro.core;
     
     import tg.voyage_pro.reservation_pro.Model.CLIENT;
     import tg.voyage_pro.reservation_pro.database.ClientRepository;
+    import tg.voyage_pro.reservation_pro.database.KeysetPager;
     import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+    import tg.voyage_pro.reservation_pro.dto.ClientSearchQuery;
+    import tg.voyage_pro.reservation_pro.dto.ListQuery;
+    import tg.voyage_pro.reservation_pro.dto.PageResponse;
     import tg.voyage_pro.reservation_pro.dto.LoginRequest;
     import tg.voyage_pro.reservation_pro.exceptions.ClientNotFoundException;
     import tg.voyage_pro.reservation_pro.mappers.ClientMapper;
     
 
 
+    import java.time.LocalDate;
     import java.util.List;
+    import java.util.Set;
     
     
 
@@ -34,6 +40,29 @@ package tg.voyage_pro.reservation_pro.core;
         @Autowired
         private ClientMapper clientMapper;
 
+        @Autowired
+        private KeysetPager pager;
+
+        @Autowired
+        private KpiService kpi;
+
+        @Autowired
+        private AvailabilityCache availability;
+
+        @Autowired
+        private RollupService rollup;
+
+        @Autowired
+        private ReferenceCaches caches;
+
+        @Autowired
+        private ChangeVersions versions;
+
+        @Autowired
+        private ChangeFeed changes;
+
+        private static final Set<String> SORT_KEYS = Set.of("idClient", "nomClient", "prenomClient");
+
 
 
 
@@ -42,7 +71,10 @@ package tg.voyage_pro.reservation_pro.core;
         
 
         public CLIENT create(CLIENT client){
-            return this.cr.save(client);
+            CLIENT saved = this.cr.save(client);
+            this.versions.changed(ChangeVersions.CLIENTS);
+            this.changes.upserted(ChangeFeed.CLIENT, saved.getIdClient());
+            return saved;
         
         }
 
@@ -60,6 +92,11 @@ package tg.voyage_pro.reservation_pro.core;
             
         }
 
+        public PageResponse<ClientDTO> page(ListQuery query){
+            return this.pager.page(CLIENT.class, "idClient", SORT_KEYS, "idClient,desc", query, null)
+                    .map(this.clientMapper::toListDto);
+        }
+
     /*  public List<ClientDTO> searchClient(ClientDTO client){
             return  this.clientMapper.toListDto(this.cr.searchClient(
                 client.getNomClient(),
@@ -76,11 +113,12 @@ package tg.voyage_pro.reservation_pro.core;
 
         public  ClientDTO getClient(Long idClient){
         
-            var client = this.cr.findById(idClient).orElseThrow(()-> new ClientNotFoundException("client not found"));
+            ClientDTO client = this.caches.clients.get(idClient,
+                    k -> this.cr.findById(k).map(this.clientMapper::toDto).orElse(null));
             if(client == null){
-                return null ;
+                throw new ClientNotFoundException("client not found");
             }
-            return  this.clientMapper.toDto(client);
+            return client;
 
         }
 
@@ -97,30 +135,49 @@ package tg.voyage_pro.reservation_pro.core;
             c.setPassword(password);
             System.out.println(c.toString());
             
-            return  this.clientMapper.toDto(this.cr.save(c)) ;
+            ClientDTO saved = this.clientMapper.toDto(this.cr.save(c));
+            this.caches.invalidate(this.caches.clients, idClient);
+            // L'id du corps de la requête peut différer de celui du chemin
+            if (saved.getIdClient() != null && !saved.getIdClient().equals(idClient)) {
+                this.caches.invalidate(this.caches.clients, saved.getIdClient());
+            }
+            this.versions.changed(ChangeVersions.CLIENTS);
+            this.changes.upserted(ChangeFeed.CLIENT, saved.getIdClient());
+            return saved ;
 
 
         }
 
         public boolean delete(Long idClient){
             if(this.cr.existsById(idClient)){
+                List<LocalDate> days = this.rollup.days("client", idClient);
                 this.cr.deleteById(idClient); ;
+                this.rollup.touch(days);
+                this.caches.invalidate(this.caches.clients, idClient);
+                this.versions.changed(ChangeVersions.CLIENTS);
+                this.kpi.invalidate();
+                this.availability.clear();
                 return true ;
             }
             return false ;
         }
 
 
+        // Recherche historique (PUT /search) : au moins un critère doit correspondre
         public List<ClientDTO> searchClient(ClientDTO client){
-           
-            return this.clientMapper.toListDto(this.cr.searchClient(
-                client.getNomClient(),
-                client.getMailClient(),
-                client.getDateNaiss().toString(),
-                client.getSexeClient(),
-                client.getTelClient()
-                 
-            ));
+            return this.search(ClientSearchQuery.builder()
+                .nom(client.getNomClient())
+                .mail(client.getMailClient())
+                .tel(client.getTelClient())
+                .sexe(client.getSexeClient())
+                .dateNaissFrom(client.getDateNaiss())
+                .dateNaissTo(client.getDateNaiss())
+                .mode("OR")
+                .build());
+        }
+
+        public List<ClientDTO> search(ClientSearchQuery query){
+            return this.clientMapper.toListDto(this.cr.search(query));
         }
 
         public List<ClientDTO> refreshClient(){
@@ -0,0 +1,260 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+import tg.voyage_pro.reservation_pro.dto.DashboardBootstrapDTO;
+import tg.voyage_pro.reservation_pro.dto.DashboardStatsDTO;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
+import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
+import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
+import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+
+/**
+ * Données du premier affichage du tableau de bord, lues sur un seul instantané de la base.
+ *
+ * Une transaction JDBC appartient à une seule connexion : des lectures en parallèle ne peuvent
+ * pas partager la même transaction. La transaction principale (lecture seule, REPEATABLE READ)
+ * exporte donc son instantané ({@code pg_export_snapshot()}) ; chaque lecture confiée au pool
+ * ouvre sa propre transaction REPEATABLE READ en lecture seule et l'adopte
+ * ({@code SET TRANSACTION SNAPSHOT}) avant toute requête. Toutes les lectures voient ainsi
+ * exactement les mêmes données, comme si elles avaient été faites dans une seule transaction.
+ *
+ * Le pool est borné ({@code dashboard.bootstrap.threads}) et une lecture refusée est faite par
+ * le thread de la requête, dans la transaction principale. Au-delà de
+ * {@code dashboard.bootstrap.max-parallel} appels simultanés, ou si la base n'est pas
+ * PostgreSQL, les lectures sont faites l'une après l'autre dans la transaction principale :
+ * même instantané, une seule connexion.
+ *
+ * Chaque transaction principale et chaque thread du pool occupe une connexion : avec un pool
+ * Hikari, le nombre de threads est réduit pour que le tableau de bord n'en prenne jamais plus
+ * de la moitié ({@code max-parallel} transactions principales + threads), le reste restant aux
+ * autres requêtes. Si la moitié ne suffit pas à une lecture parallèle, tout est séquentiel.
+ */
+@Service
+public class DashboardBootstrapService {
+
+    // Identifiant rendu par pg_export_snapshot() (ex. 00000003-0000001B-1)
+    private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-Fa-f]+(-[0-9A-Fa-f]+)+");
+
+    private static final Logger LOG = LoggerFactory.getLogger(DashboardBootstrapService.class);
+
+    @Value("${dashboard.bootstrap.threads:4}")
+    private int threads;
+
+    @Value("${dashboard.bootstrap.max-parallel:2}")
+    private int maxParallel;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private AnalyticsService analytics;
+
+    @Autowired
+    private ClientService clients;
+
+    @Autowired
+    private VoyageService voyages;
+
+    @Autowired
+    private ReservationService reservations;
+
+    @Autowired
+    private TypeBilletService typesBillet;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore parallel;
+    private volatile Boolean postgres;
+
+    @PostConstruct
+    void init() throws SQLException {
+        int workers = this.threads;
+        int leaders = Math.max(0, this.maxParallel);
+        Integer poolSize = poolSize();
+        if (poolSize != null) {
+            workers = Math.min(workers, poolSize / 2 - leaders);
+            if (workers < 1) {
+                leaders = 0;
+            }
+            if (workers < this.threads) {
+                LOG.info("Tableau de bord : {} thread(s) de lecture au lieu de {} (pool de {} connexions)",
+                        Math.max(0, workers), this.threads, poolSize);
+            }
+        }
+        int size = Math.max(1, workers);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(size * 4), r -> {
+                    Thread t = new Thread(r, "dashboard-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.parallel = new Semaphore(leaders);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Indicateurs, première page ({@code size} éléments) des clients, voyages et réservations,
+     * et liste des types de billet.
+     */
+    public DashboardBootstrapDTO bootstrap(Integer size) {
+        ListQuery query = new ListQuery();
+        query.setSize(size);
+
+        boolean postgres = isPostgres();
+
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        tx.setReadOnly(true);
+        return tx.execute(s -> {
+            boolean parallele = postgres && this.parallel.tryAcquire();
+            try {
+                String snapshot = parallele ? exportSnapshot() : null;
+                CompletableFuture<DashboardStatsDTO> stats =
+                        read(snapshot, () -> this.analytics.dashboard(null, null, null));
+                CompletableFuture<PageResponse<ClientDTO>> clientPage =
+                        read(snapshot, () -> this.clients.page(query));
+                CompletableFuture<PageResponse<VoyageDTO>> voyagePage =
+                        read(snapshot, () -> this.voyages.page(query));
+                CompletableFuture<PageResponse<ReservationDTO>> reservationPage =
+                        read(snapshot, () -> this.reservations.page(query));
+                // Servie par le cache de référence, invalidé à chaque écriture
+                List<TypeBilletDTO> types = this.typesBillet.all();
+                // L'instantané n'existe que tant que la transaction principale est ouverte :
+                // elle attend toutes les lectures, même après l'échec de l'une d'elles
+                CompletableFuture.allOf(stats, clientPage, voyagePage, reservationPage)
+                        .handle((r, e) -> null).join();
+                return DashboardBootstrapDTO.builder()
+                        .stats(join(stats))
+                        .clients(join(clientPage))
+                        .voyages(join(voyagePage))
+                        .reservations(join(reservationPage))
+                        .typesBillet(types)
+                        .parallele(parallele)
+                        .genereLe(new Date())
+                        .build();
+            } finally {
+                if (parallele) {
+                    this.parallel.release();
+                }
+            }
+        });
+    }
+
+    // Sans instantané exporté, la lecture est faite tout de suite dans la transaction principale
+    private <T> CompletableFuture<T> read(String snapshot, Supplier<T> reader) {
+        if (snapshot == null) {
+            return CompletableFuture.completedFuture(reader.get());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            // Pool saturé : exécutée par le thread de la requête, déjà dans l'instantané
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return reader.get();
+            }
+            TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            tx.setReadOnly(true);
+            return tx.execute(s -> {
+                this.entityManager.unwrap(Session.class).doWork(connection -> {
+                    try (Statement st = connection.createStatement()) {
+                        st.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+                    }
+                });
+                return reader.get();
+            });
+        }, this.executor);
+    }
+
+    private String exportSnapshot() {
+        String id = this.entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT pg_export_snapshot()")) {
+                rs.next();
+                return rs.getString(1);
+            }
+        });
+        if (id == null || !SNAPSHOT_ID.matcher(id).matches()) {
+            throw new IllegalStateException("Identifiant d'instantané inattendu : " + id);
+        }
+        return id;
+    }
+
+    // Taille maximale du pool de connexions, ou null s'il ne s'agit pas d'un pool Hikari
+    private Integer poolSize() throws SQLException {
+        if (this.dataSource.isWrapperFor(HikariDataSource.class)) {
+            return this.dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        }
+        return null;
+    }
+
+    private boolean isPostgres() {
+        Boolean known = this.postgres;
+        if (known == null) {
+            try (Connection connection = this.dataSource.getConnection()) {
+                known = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                known = false;
+            }
+            this.postgres = known;
+        }
+        return known;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
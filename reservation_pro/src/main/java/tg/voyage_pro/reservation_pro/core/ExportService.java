@@ -0,0 +1,170 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import tg.voyage_pro.reservation_pro.database.ListFilters;
+import tg.voyage_pro.reservation_pro.database.PaiementRepository;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PaiementRow;
+import tg.voyage_pro.reservation_pro.dto.ReservationRow;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Export CSV / NDJSON des réservations et des paiements.
+ *
+ * Les lignes sont lues par un curseur en avant seulement (Stream Spring Data, fetch size 500) sous
+ * forme de projections plates : aucune entité n'entre dans le contexte de persistance, et chaque
+ * ligne est écrite dans la réponse dès qu'elle est lue. La mémoire utilisée ne dépend pas du
+ * nombre de lignes exportées.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    // Colonnes TIMESTAMP : date et heure ISO 8601 en UTC (les colonnes DATE restent yyyy-MM-dd)
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssXXX").withZone(ZoneOffset.UTC);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] RESERVATION_COLUMNS = {
+            "idReservation", "dateReservation", "status", "nombrePlacesReservees",
+            "idClient", "nomClient", "prenomClient", "mailClient", "telClient",
+            "idVoyage", "departVoyage", "arriveVoyage", "dateVoyage", "heureDepart", "heureArrivee", "prix",
+            "idTypeBillet", "libelleTypeBillet", "prixTypeBillet"};
+
+    private static final String[] PAIEMENT_COLUMNS = {
+            "codePaiement", "datePaiement", "montantPaiement", "status", "method", "idReservation",
+            "idClient", "nomClient", "prenomClient", "idAgent", "nomAgent", "prenomAgent"};
+
+    @Autowired
+    private ReservationRepository rsr;
+
+    @Autowired
+    private PaiementRepository pr;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${export.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    /**
+     * Vérifie le format demandé ({@code csv} par défaut ou {@code ndjson}) avant l'ouverture du flux.
+     */
+    public static String format(String format) {
+        String f = format == null || format.isBlank() ? "csv" : format.trim().toLowerCase();
+        if (!f.equals("csv") && !f.equals("ndjson")) {
+            throw new InvalidQueryException("Format d'export invalide : " + format + " (csv ou ndjson)");
+        }
+        return f;
+    }
+
+    /**
+     * Porte à {@code export.timeout-ms} le délai de la réponse asynchrone de la requête en cours :
+     * un gros export s'écrit plus longtemps que le délai par défaut des autres requêtes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void extendTimeout(HttpServletRequest request) {
+        AsyncWebRequest async = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (async != null) {
+            async.setTimeout(this.timeoutMs);
+        }
+    }
+
+    public static MediaType mediaType(String format) {
+        return "ndjson".equals(format) ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.parseMediaType("text/csv; charset=UTF-8");
+    }
+
+    public void exportReservations(ListQuery query, String format, OutputStream out) throws IOException {
+        java.sql.Date from = query.getFrom() == null ? null : new java.sql.Date(query.getFrom().getTime());
+        java.sql.Date to = query.getTo() == null ? null : new java.sql.Date(query.getTo().getTime());
+        try (Stream<ReservationRow> rows = this.rsr.streamRows(query.getStatus(), from, to)) {
+            write(rows, RESERVATION_COLUMNS, r -> new Object[]{
+                    r.getIdReservation(), r.getDateReservation(), r.getStatus(), r.getNombrePlacesReservees(),
+                    r.getIdClient(), r.getNomClient(), r.getPrenomClient(), r.getMailClient(), r.getTelClient(),
+                    r.getIdVoyage(), r.getDepartVoyage(), r.getArriveVoyage(), r.getDateVoyage(), r.getHeureDepart(),
+                    r.getHeureArrivee(), r.getPrix(),
+                    r.getIdTypeBillet(), r.getLibelleTypeBillet(), r.getPrixTypeBillet()}, format, out);
+        }
+    }
+
+    public void exportPaiements(ListQuery query, String format, OutputStream out) throws IOException {
+        Date before = query.getTo() == null ? null : ListFilters.nextDay(query.getTo());
+        try (Stream<PaiementRow> rows = this.pr.streamRows(query.getStatus(), query.getFrom(), before)) {
+            write(rows, PAIEMENT_COLUMNS, p -> new Object[]{
+                    p.getCodePaiement(), p.getDatePaiement(), p.getMontantPaiement(), p.getStatus(), p.getMethod(),
+                    p.getIdReservation(), p.getIdClient(), p.getNomClient(), p.getPrenomClient(),
+                    p.getIdAgent(), p.getNomAgent(), p.getPrenomAgent()}, format, out);
+        }
+    }
+
+    private <T> void write(Stream<T> rows, String[] columns, Function<T, Object[]> values,
+                           String format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        boolean csv = "csv".equals(format);
+        if (csv) {
+            writer.write(String.join(",", columns));
+            writer.write("\r\n");
+        }
+        Iterator<T> it = rows.iterator();
+        while (it.hasNext()) {
+            T row = it.next();
+            if (csv) {
+                Object[] cells = values.apply(row);
+                for (int i = 0; i < cells.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(csvCell(cells[i]));
+                }
+                writer.write("\r\n");
+            } else {
+                writer.write(this.objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    private static String csvCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text;
+        if (value instanceof java.sql.Date d) {
+            text = d.toString();
+        } else if (value instanceof Date d) {
+            text = DATE_TIME.format(d.toInstant());
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,218 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tg.voyage_pro.reservation_pro.Model.IDEMPOTENCY_KEY;
+import tg.voyage_pro.reservation_pro.database.IdempotencyKeyRepository;
+import tg.voyage_pro.reservation_pro.exceptions.IdempotencyConflictException;
+import tg.voyage_pro.reservation_pro.exceptions.IdempotencyKeyMismatchException;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Rejeu des requêtes de création portant un en-tête {@code Idempotency-Key}.
+ *
+ * La première requête d'une clé réserve la clé dans la table idempotency_key (INSERT ... ON
+ * CONFLICT DO NOTHING, donc une seule exécution même entre instances), exécute la création puis
+ * enregistre la réponse. Les réponses récentes sont gardées en mémoire (LRU bornée, avec TTL) :
+ * un rejeu est servi sans toucher la base ni le chemin d'écriture. Les doublons simultanés sur
+ * la même instance attendent l'exécution en cours et reçoivent sa réponse. Une clé réutilisée
+ * avec un autre corps de requête est refusée (422). Si la création échoue, la clé est libérée.
+ *
+ * Une clé réservée porte sa date de réservation : si l'instance meurt avant d'enregistrer la
+ * réponse, la clé reste en cours (409) jusqu'à la fin du bail ({@code idempotency.lease-ms}),
+ * puis la requête suivante la reprend et exécute la création. L'enregistrement de la réponse
+ * et la libération ne portent que sur la réservation d'origine, pas sur une reprise.
+ */
+@Component
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private record Stored(String requestHash, int status, String body, long createdAt) {
+    }
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    // Au-delà, une clé toujours en cours est considérée abandonnée ; à garder au-dessus de la
+    // durée de la création la plus longue
+    @Value("${idempotency.lease-ms:120000}")
+    private long leaseMs;
+
+    @Autowired
+    private IdempotencyKeyRepository ikr;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Ordre d'accès : l'entrée la moins récemment servie est évincée au-delà de maxEntries
+    private final Map<String, Stored> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+            return size() > IdempotencyService.this.maxEntries;
+        }
+    };
+
+    private final ConcurrentHashMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Exécute {@code action} une seule fois par ({@code scope}, {@code key}) ; sans clé, l'action
+     * est simplement exécutée.
+     */
+    public ResponseEntity<?> execute(String scope, String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidQueryException(HEADER + " trop longue (" + MAX_KEY_LENGTH + " caractères max)");
+        }
+        String cle = scope + ":" + key;
+        String hash = hash(request);
+
+        Stored stored = cached(cle);
+        if (stored != null) {
+            return replay(stored, hash);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = this.inFlight.putIfAbsent(cle, mine);
+        if (running != null) {
+            return replay(await(running), hash);
+        }
+        try {
+            return claimAndRun(cle, hash, action, mine);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(cle, mine);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-ms:3600000}")
+    public void purge() {
+        this.ikr.purge(new Timestamp(System.currentTimeMillis() - ttlMs()));
+    }
+
+    private ResponseEntity<?> claimAndRun(String cle, String hash, Supplier<ResponseEntity<?>> action,
+                                          CompletableFuture<Stored> mine) {
+        long now = System.currentTimeMillis();
+        Timestamp claimedAt = new Timestamp(now);
+        if (this.ikr.claim(cle, hash, claimedAt) == 0
+                && this.ikr.reclaim(cle, hash, claimedAt, new Timestamp(now - this.leaseMs)) == 0) {
+            IDEMPOTENCY_KEY existing = this.ikr.findById(cle).orElse(null);
+            if (existing == null || existing.getHttpStatus() == null) {
+                throw new IdempotencyConflictException("Une requête avec cette clé d'idempotence est déjà en cours de traitement.");
+            }
+            Stored stored = new Stored(existing.getRequestHash(), existing.getHttpStatus(),
+                    existing.getResponseBody(), existing.getCreatedAt().getTime());
+            remember(cle, stored);
+            mine.complete(stored);
+            return replay(stored, hash);
+        }
+
+        ResponseEntity<?> response;
+        String body;
+        try {
+            response = action.get();
+            body = this.objectMapper.writeValueAsString(response.getBody());
+        } catch (RuntimeException e) {
+            this.ikr.release(cle, claimedAt);
+            throw e;
+        } catch (JsonProcessingException e) {
+            this.ikr.release(cle, claimedAt);
+            throw new IllegalStateException(e);
+        }
+        int status = response.getStatusCode().value();
+        this.ikr.complete(cle, claimedAt, status, body);
+        Stored stored = new Stored(hash, status, body, now);
+        remember(cle, stored);
+        mine.complete(stored);
+        return response;
+    }
+
+    private Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.get(this.waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Une requête avec cette clé d'idempotence est déjà en cours de traitement.");
+        } catch (ExecutionException e) {
+            // Même résultat que la requête d'origine
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Requête interrompue.");
+        }
+    }
+
+    private ResponseEntity<?> replay(Stored stored, String hash) {
+        if (!stored.requestHash().equals(hash)) {
+            throw new IdempotencyKeyMismatchException("Cette clé d'idempotence a déjà été utilisée avec une autre requête.");
+        }
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", "true")
+                .body(stored.body());
+    }
+
+    private Stored cached(String cle) {
+        synchronized (this.recent) {
+            Stored stored = this.recent.get(cle);
+            if (stored != null && stored.createdAt() < System.currentTimeMillis() - ttlMs()) {
+                this.recent.remove(cle);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    private void remember(String cle, Stored stored) {
+        synchronized (this.recent) {
+            this.recent.put(cle, stored);
+        }
+    }
+
+    private long ttlMs() {
+        return TimeUnit.HOURS.toMillis(this.ttlHours);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] json = request == null ? new byte[0] : this.objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
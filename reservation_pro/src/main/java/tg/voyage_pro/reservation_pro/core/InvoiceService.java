@@ -0,0 +1,246 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tg.voyage_pro.reservation_pro.Model.FACTURE;
+import tg.voyage_pro.reservation_pro.database.FactureRepository;
+import tg.voyage_pro.reservation_pro.dto.FactureDTO;
+import tg.voyage_pro.reservation_pro.dto.FactureRow;
+import tg.voyage_pro.reservation_pro.exceptions.FactureNotFoundException;
+
+/**
+ * Génération des factures hors du thread de la requête.
+ *
+ * Une demande (réservation confirmée, paiement enregistré) passe la ligne facture à EN_ATTENTE
+ * dans la transaction de l'écriture, puis, après commit, dépose l'id dans une file bornée
+ * consommée par un pool fixe de {@code invoice.workers} threads. Si la file est pleine, la
+ * requête n'attend pas : la facture reste EN_ATTENTE et un balayage périodique la reprend dès
+ * qu'il y a de la place (de même après un redémarrage). Le gabarit est lu et découpé une seule
+ * fois ; chaque rendu est une requête de lecture, une concaténation et une écriture de fichier.
+ */
+@Component
+public class InvoiceService {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Value("${invoice.dir:factures}")
+    private String dir;
+
+    @Value("${invoice.workers:2}")
+    private int workers;
+
+    @Value("${invoice.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Autowired
+    private FactureRepository fr;
+
+    private InvoiceTemplate template;
+    private ThreadPoolExecutor executor;
+    private Path directory;
+
+    // Ids déposés dans la file et pas encore pris par un worker (évite les doublons en file)
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void init() throws IOException {
+        try (InputStream in = new ClassPathResource("templates/facture.html").getInputStream()) {
+            this.template = new InvoiceTemplate(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        this.directory = Paths.get(this.dir);
+        Files.createDirectories(this.directory);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.workers, this.workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), r -> {
+                    Thread t = new Thread(r, "invoice-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Les factures encore en file restent EN_ATTENTE et seront reprises au démarrage
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    public static String numero(Long idReservation) {
+        return String.format("FAC-%08d", idReservation);
+    }
+
+    public void request(Long idReservation) {
+        requestAll(List.of(idReservation));
+    }
+
+    /**
+     * Demande (ou redemande) la facture des réservations {@code ids}. La génération démarre après
+     * le commit de la transaction courante ; rien n'est demandé si elle est annulée.
+     */
+    public void requestAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        this.fr.request(ids.toArray(new Long[0]), new Timestamp(System.currentTimeMillis()));
+        AfterCommit.run(() -> ids.forEach(this::enqueue));
+    }
+
+    public FactureDTO get(Long idReservation) {
+        FACTURE f = this.fr.findById(idReservation)
+                .orElseThrow(() -> new FactureNotFoundException("Aucune facture pour la réservation " + idReservation));
+        return FactureDTO.builder()
+                .idReservation(f.getIdReservation())
+                .numero(numero(f.getIdReservation()))
+                .status(f.getStatus())
+                .requestedAt(f.getRequestedAt())
+                .generatedAt(f.getGeneratedAt())
+                .erreur(f.getErreur())
+                .build();
+    }
+
+    public Path file(Long idReservation) {
+        FACTURE f = this.fr.findById(idReservation)
+                .orElseThrow(() -> new FactureNotFoundException("Aucune facture pour la réservation " + idReservation));
+        if (f.getFichier() == null || !Files.isRegularFile(this.directory.resolve(f.getFichier()))) {
+            throw new FactureNotFoundException("La facture " + numero(idReservation) + " n'est pas encore générée (" + f.getStatus() + ")");
+        }
+        return this.directory.resolve(f.getFichier());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${invoice.sweep-ms:30000}", initialDelayString = "${invoice.sweep-ms:30000}")
+    public void sweep() {
+        int room = this.executor.getQueue().remainingCapacity();
+        if (room > 0) {
+            this.fr.findPendingIds(PageRequest.of(0, Math.min(room, 1000))).forEach(this::enqueue);
+        }
+    }
+
+    private void enqueue(Long id) {
+        if (!this.queued.add(id)) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> {
+                // Retiré avant le rendu : une nouvelle demande pendant le rendu sera remise en file
+                this.queued.remove(id);
+                generate(id);
+            });
+        } catch (RejectedExecutionException full) {
+            // File pleine : la facture reste EN_ATTENTE pour le prochain balayage
+            this.queued.remove(id);
+        }
+    }
+
+    void generate(Long id) {
+        FACTURE f = this.fr.findById(id).orElse(null);
+        if (f == null || !FACTURE.EN_ATTENTE.equals(f.getStatus())) {
+            return;
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            FactureRow row = this.fr.findRow(id).orElse(null);
+            if (row == null) {
+                this.fr.complete(id, f.getRequestedAt(), FACTURE.ECHEC, null, "Réservation introuvable", now);
+                return;
+            }
+            String fichier = numero(id) + ".html";
+            // Fichier temporaire propre à ce rendu : deux rendus de la même facture ne se mélangent pas
+            Path tmp = Files.createTempFile(this.directory, fichier, ".tmp");
+            try {
+                Files.writeString(tmp, this.template.render(values(row, now)), StandardCharsets.UTF_8);
+                Files.move(tmp, this.directory.resolve(fichier), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            this.fr.complete(id, f.getRequestedAt(), FACTURE.GENEREE, fichier, null, now);
+        } catch (IOException | RuntimeException e) {
+            String message = String.valueOf(e.getMessage());
+            this.fr.complete(id, f.getRequestedAt(), FACTURE.ECHEC, null,
+                    message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message, now);
+        }
+    }
+
+    private static Map<String, Object> values(FactureRow row, Date now) {
+        int places = row.getNombrePlacesReservees() == null ? 1 : row.getNombrePlacesReservees();
+        double prix = row.getPrix() == null ? 0 : row.getPrix();
+        double prixType = row.getPrixTypeBillet() == null ? 0 : row.getPrixTypeBillet();
+        double total = (prix + prixType) * places;
+        double paye = row.getTotalPaye() == null ? 0 : row.getTotalPaye();
+
+        Map<String, Object> values = new HashMap<>(32);
+        values.put("numero", numero(row.getIdReservation()));
+        values.put("dateEmission", date(now));
+        values.put("idReservation", row.getIdReservation());
+        values.put("dateReservation", date(row.getDateReservation()));
+        values.put("statut", row.getStatus());
+        values.put("nomClient", row.getNomClient());
+        values.put("prenomClient", row.getPrenomClient());
+        values.put("mailClient", row.getMailClient());
+        values.put("telClient", row.getTelClient());
+        values.put("departVoyage", row.getDepartVoyage());
+        values.put("arriveVoyage", row.getArriveVoyage());
+        values.put("dateVoyage", date(row.getDateVoyage()));
+        values.put("heureDepart", row.getHeureDepart());
+        values.put("libelleTypeBillet", row.getLibelleTypeBillet());
+        values.put("places", places);
+        values.put("prix", montant(prix));
+        values.put("prixTypeBillet", montant(prixType));
+        values.put("montantVoyage", montant(prix * places));
+        values.put("montantBillet", montant(prixType * places));
+        values.put("total", montant(total));
+        values.put("totalPaye", montant(paye));
+        values.put("reste", montant(Math.max(0, total - paye)));
+        return values;
+    }
+
+    private static String date(Date date) {
+        if (date == null) {
+            return "";
+        }
+        // Colonnes DATE : le jour tel qu'enregistré, sans passer par un fuseau
+        if (date instanceof java.sql.Date day) {
+            return DATE.format(day.toLocalDate());
+        }
+        return DATE.format(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()));
+    }
+
+    private static String montant(double value) {
+        return String.format(Locale.FRANCE, "%,.0f", value);
+    }
+}
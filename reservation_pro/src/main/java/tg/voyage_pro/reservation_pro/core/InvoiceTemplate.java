@@ -0,0 +1,63 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gabarit HTML à champs {@code {{nom}}}, découpé une seule fois en morceaux fixes et en champs :
+ * un rendu n'est qu'une suite d'ajouts dans un StringBuilder, sans analyse ni expression
+ * régulière. Les valeurs sont échappées pour le HTML ; un champ absent est rendu vide.
+ */
+public final class InvoiceTemplate {
+
+    private final String[] literals;
+    private final String[] fields;
+    private final int sizeHint;
+
+    public InvoiceTemplate(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        int pos = 0;
+        for (;;) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(source.substring(pos));
+                break;
+            }
+            literals.add(source.substring(pos, open));
+            fields.add(source.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        this.literals = literals.toArray(new String[0]);
+        this.fields = fields.toArray(new String[0]);
+        this.sizeHint = source.length() + 512;
+    }
+
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder(this.sizeHint);
+        for (int i = 0; i < this.fields.length; i++) {
+            out.append(this.literals[i]);
+            Object value = values.get(this.fields[i]);
+            if (value != null) {
+                escape(value.toString(), out);
+            }
+        }
+        return out.append(this.literals[this.fields.length]).toString();
+    }
+
+    private static void escape(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
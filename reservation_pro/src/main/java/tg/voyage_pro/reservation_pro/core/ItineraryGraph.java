@@ -0,0 +1,321 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Réseau des voyages pour la recherche d'itinéraires avec correspondances.
+ *
+ * Chaque voyage est une liaison (ville de départ, ville d'arrivée, minute de départ, minute
+ * d'arrivée, prix) ; les liaisons sont rangées dans des tableaux primitifs triés par heure de
+ * départ, les villes étant numérotées. Le graphe est immuable : un voyage ajouté, déplacé ou
+ * supprimé produit un nouveau graphe par recopie des tableaux ({@link #with}, {@link #without}),
+ * et une recherche en cours garde celui qu'elle a lu.
+ *
+ * La recherche ({@link #search}) parcourt par tours les liaisons de la fenêtre horaire, dans
+ * l'ordre des départs : au tour k, le coût d'une liaison est le coût minimal d'une arrivée du
+ * tour k-1 dans sa ville de départ, prête (arrivée + correspondance minimale) avant son
+ * départ, plus son propre prix. Les arrivées du tour précédent sont consommées dans l'ordre
+ * des heures d'arrivée, si bien qu'un tour est un seul passage sur la fenêtre. Les mêmes
+ * étiquettes donnent l'itinéraire qui arrive le plus tôt et le moins cher.
+ */
+public final class ItineraryGraph {
+
+    private static final Pattern HEURE = Pattern.compile("(\\d{1,2})(?:\\s*[:hH.]\\s*(\\d{2})?(?::\\d{2})?)?");
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    public static final ItineraryGraph EMPTY = new ItineraryGraph(Map.of(), new long[0], new int[0], new int[0],
+            new int[0], new int[0], new double[0]);
+
+    /**
+     * Un voyage vu comme une liaison ; les minutes sont comptées depuis le 1er janvier 1970 en
+     * heure locale.
+     */
+    public record Connection(long id, String depart, String arrive, int departMinute, int arriveMinute, double prix) {
+    }
+
+    public record Itinerary(long[] ids, int departMinute, int arriveMinute, double prix) {
+    }
+
+    public record Result(Itinerary plusTot, Itinerary moinsCher) {
+    }
+
+    // Ville normalisée → numéro ; jamais réduit (une ville sans liaison garde son numéro)
+    private final Map<String, Integer> cities;
+    private final long[] ids;
+    private final int[] from;
+    private final int[] to;
+    private final int[] dep;
+    private final int[] arr;
+    private final double[] prix;
+
+    private ItineraryGraph(Map<String, Integer> cities, long[] ids, int[] from, int[] to, int[] dep, int[] arr, double[] prix) {
+        this.cities = cities;
+        this.ids = ids;
+        this.from = from;
+        this.to = to;
+        this.dep = dep;
+        this.arr = arr;
+        this.prix = prix;
+    }
+
+    /**
+     * Minute de la journée d'une heure saisie librement ({@code "08:30"}, {@code "8h30"},
+     * {@code "8H"}, {@code "08:30:00"}), ou -1 si elle n'est pas lisible.
+     */
+    public static int parseHeure(String heure) {
+        if (heure == null) {
+            return -1;
+        }
+        Matcher m = HEURE.matcher(heure.trim());
+        if (!m.matches()) {
+            return -1;
+        }
+        int h = Integer.parseInt(m.group(1));
+        int min = m.group(2) == null ? 0 : Integer.parseInt(m.group(2));
+        return h < 24 && min < 60 ? h * 60 + min : -1;
+    }
+
+    public static ItineraryGraph of(Collection<Connection> connections) {
+        List<Connection> sorted = new ArrayList<>(connections);
+        sorted.sort(Comparator.comparingInt(Connection::departMinute).thenComparingLong(Connection::id));
+        Map<String, Integer> cities = new HashMap<>();
+        int n = sorted.size();
+        long[] ids = new long[n];
+        int[] from = new int[n];
+        int[] to = new int[n];
+        int[] dep = new int[n];
+        int[] arr = new int[n];
+        double[] prix = new double[n];
+        for (int i = 0; i < n; i++) {
+            Connection c = sorted.get(i);
+            ids[i] = c.id();
+            from[i] = cities.computeIfAbsent(VoyageIndex.normalize(c.depart()), k -> cities.size());
+            to[i] = cities.computeIfAbsent(VoyageIndex.normalize(c.arrive()), k -> cities.size());
+            dep[i] = c.departMinute();
+            arr[i] = c.arriveMinute();
+            prix[i] = c.prix();
+        }
+        return new ItineraryGraph(cities, ids, from, to, dep, arr, prix);
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    /**
+     * Graphe avec la liaison {@code c} (remplace celle du même voyage). O(n).
+     */
+    public ItineraryGraph with(Connection c) {
+        ItineraryGraph base = without(c.id());
+        Map<String, Integer> cities = base.cities;
+        String d = VoyageIndex.normalize(c.depart());
+        String a = VoyageIndex.normalize(c.arrive());
+        if (!cities.containsKey(d) || !cities.containsKey(a)) {
+            Map<String, Integer> copy = new HashMap<>(cities);
+            copy.computeIfAbsent(d, k -> copy.size());
+            copy.computeIfAbsent(a, k -> copy.size());
+            cities = copy;
+        }
+        int n = base.ids.length;
+        int at = 0;
+        while (at < n && (base.dep[at] < c.departMinute() || (base.dep[at] == c.departMinute() && base.ids[at] < c.id()))) {
+            at++;
+        }
+        long[] ids = insert(base.ids, at, c.id());
+        int[] from = insert(base.from, at, cities.get(d));
+        int[] to = insert(base.to, at, cities.get(a));
+        int[] dep = insert(base.dep, at, c.departMinute());
+        int[] arr = insert(base.arr, at, c.arriveMinute());
+        double[] prix = new double[n + 1];
+        System.arraycopy(base.prix, 0, prix, 0, at);
+        prix[at] = c.prix();
+        System.arraycopy(base.prix, at, prix, at + 1, n - at);
+        return new ItineraryGraph(cities, ids, from, to, dep, arr, prix);
+    }
+
+    /**
+     * Graphe sans la liaison du voyage {@code id} (le même graphe s'il n'y est pas). O(n).
+     */
+    public ItineraryGraph without(long id) {
+        int at = -1;
+        for (int i = 0; i < this.ids.length; i++) {
+            if (this.ids[i] == id) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            return this;
+        }
+        int n = this.ids.length;
+        long[] ids = new long[n - 1];
+        System.arraycopy(this.ids, 0, ids, 0, at);
+        System.arraycopy(this.ids, at + 1, ids, at, n - at - 1);
+        double[] prix = new double[n - 1];
+        System.arraycopy(this.prix, 0, prix, 0, at);
+        System.arraycopy(this.prix, at + 1, prix, at, n - at - 1);
+        return new ItineraryGraph(this.cities, ids, remove(this.from, at), remove(this.to, at),
+                remove(this.dep, at), remove(this.arr, at), prix);
+    }
+
+    /**
+     * Itinéraires de {@code origine} à {@code destination} en au plus {@code maxLegs} voyages,
+     * tous partant entre {@code startMinute} et {@code endMinute} inclus. Chaque voyage
+     * coûte son prix plus {@code extraPerLeg} (prix du type de billet) ; entre deux voyages il
+     * faut au moins {@code minConnection} minutes. Rend null pour un critère sans solution.
+     */
+    public Result search(String origine, String destination, int startMinute, int endMinute,
+                         int maxLegs, int minConnection, double extraPerLeg) {
+        Integer o = this.cities.get(VoyageIndex.normalize(origine));
+        Integer d = this.cities.get(VoyageIndex.normalize(destination));
+        if (o == null || d == null || o.equals(d) || maxLegs <= 0) {
+            return new Result(null, null);
+        }
+        int lo = lowerBound(this.dep, startMinute);
+        int hi = lowerBound(this.dep, endMinute + 1);
+        int w = hi - lo;
+        if (w <= 0) {
+            return new Result(null, null);
+        }
+
+        // Liaisons de la fenêtre triées par heure d'arrivée : (arrivée << 32) | position
+        long[] byArrival = new long[w];
+        for (int i = 0; i < w; i++) {
+            byArrival[i] = ((long) this.arr[lo + i] << 32) | i;
+        }
+        Arrays.sort(byArrival);
+
+        double[][] cost = new double[maxLegs][];
+        int[][] parent = new int[maxLegs][];
+        double[] bestAt = new double[this.cities.size()];
+        int[] bestFrom = new int[this.cities.size()];
+        int fastK = -1;
+        int fastI = -1;
+        int cheapK = -1;
+        int cheapI = -1;
+
+        for (int k = 0; k < maxLegs; k++) {
+            double[] cur = new double[w];
+            int[] par = new int[w];
+            Arrays.fill(cur, INF);
+            double[] prev = k == 0 ? null : cost[k - 1];
+            Arrays.fill(bestAt, INF);
+            int p = 0;
+            boolean reached = false;
+            for (int i = 0; i < w; i++) {
+                int j = lo + i;
+                if (this.to[j] == o) {
+                    // Revenir au point de départ n'améliore rien
+                    continue;
+                }
+                double base;
+                int pred = -1;
+                if (k == 0) {
+                    base = this.from[j] == o ? 0 : INF;
+                } else {
+                    while (p < w && (int) (byArrival[p] >>> 32) + minConnection <= this.dep[j]) {
+                        int q = (int) byArrival[p];
+                        int city = this.to[lo + q];
+                        if (city != d && prev[q] < bestAt[city]) {
+                            bestAt[city] = prev[q];
+                            bestFrom[city] = q;
+                        }
+                        p++;
+                    }
+                    base = bestAt[this.from[j]];
+                    pred = bestFrom[this.from[j]];
+                }
+                if (base == INF) {
+                    continue;
+                }
+                cur[i] = base + this.prix[j] + extraPerLeg;
+                par[i] = pred;
+                reached = true;
+                if (this.to[j] == d) {
+                    if (fastK < 0 || this.arr[j] < this.arr[lo + fastI]
+                            || (this.arr[j] == this.arr[lo + fastI] && k == fastK && cur[i] < cost(cost, cur, k, fastK, fastI))) {
+                        fastK = k;
+                        fastI = i;
+                    }
+                    if (cheapK < 0 || cur[i] < cost(cost, cur, k, cheapK, cheapI)
+                            || (cur[i] == cost(cost, cur, k, cheapK, cheapI) && this.arr[j] < this.arr[lo + cheapI])) {
+                        cheapK = k;
+                        cheapI = i;
+                    }
+                }
+            }
+            cost[k] = cur;
+            parent[k] = par;
+            if (!reached) {
+                break;
+            }
+        }
+        return new Result(itinerary(cost, parent, lo, fastK, fastI), itinerary(cost, parent, lo, cheapK, cheapI));
+    }
+
+    // Coût de l'étiquette (k, i), le tour courant n'étant pas encore rangé dans cost
+    private static double cost(double[][] cost, double[] cur, int current, int k, int i) {
+        return k == current ? cur[i] : cost[k][i];
+    }
+
+    private Itinerary itinerary(double[][] cost, int[][] parent, int lo, int k, int i) {
+        if (k < 0) {
+            return null;
+        }
+        long[] legs = new long[k + 1];
+        double total = cost[k][i];
+        int arrive = this.arr[lo + i];
+        int first = i;
+        for (int round = k; round >= 0; round--) {
+            legs[round] = this.ids[lo + i];
+            first = i;
+            i = parent[round][i];
+        }
+        return new Itinerary(legs, this.dep[lo + first], arrive, total);
+    }
+
+    private static int lowerBound(int[] values, int value) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int[] insert(int[] values, int at, int value) {
+        int[] copy = new int[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static long[] insert(long[] values, int at, long value) {
+        long[] copy = new long[values.length + 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(values, at, copy, at + 1, values.length - at);
+        return copy;
+    }
+
+    private static int[] remove(int[] values, int at) {
+        int[] copy = new int[values.length - 1];
+        System.arraycopy(values, 0, copy, 0, at);
+        System.arraycopy(values, at + 1, copy, at, values.length - at - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,190 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Réponses JSON déjà sérialisées des listes complètes (voyages, types de billet, clients).
+ *
+ * Pour chaque collection, le corps est gardé sous forme de tableaux d'octets immuables (JSON brut
+ * et, au-delà de {@code json-cache.gzip-min-bytes}, sa version gzip) avec la version
+ * {@link ChangeVersions} qui l'a produit. Une requête dont la version est encore la bonne reçoit
+ * ces octets tels quels (ni mapping, ni Jackson, ni compression). Après chaque écriture, la
+ * collection déjà servie est reconstruite en arrière-plan par un seul thread ; les changements
+ * rapprochés ne donnent qu'une reconstruction. Une requête qui arrive avant la fin de la
+ * reconstruction attend celle en cours au lieu d'en lancer une autre.
+ */
+@Component
+public class JsonResponseCache {
+
+    private static final String GZIP = "gzip";
+
+    private record Body(long version, String etag, String gzipEtag, byte[] json, byte[] gzip) {
+    }
+
+    @Value("${json-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Autowired
+    private VoyageService voyages;
+
+    @Autowired
+    private TypeBilletService typesBillet;
+
+    @Autowired
+    private ClientService clients;
+
+    private final Map<String, Supplier<?>> sources = new ConcurrentHashMap<>();
+    private final Map<String, Body> bodies = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    // Collections dont une reconstruction est en file
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        this.sources.put(ChangeVersions.VOYAGES, this.voyages::getAll);
+        this.sources.put(ChangeVersions.TYPES_BILLET, this.typesBillet::all);
+        this.sources.put(ChangeVersions.CLIENTS, this.clients::getAllClient);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "json-cache");
+            t.setDaemon(true);
+            return t;
+        });
+        this.versions.addListener(this::changed);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Liste complète de {@code collection} : 304 si {@code ifNoneMatch} correspond, sinon les
+     * octets en cache (gzip si {@code acceptEncoding} l'accepte), reconstruits d'abord s'ils sont
+     * périmés.
+     */
+    public ResponseEntity<byte[]> serve(String collection, String ifNoneMatch, String acceptEncoding) {
+        boolean acceptsGzip = acceptsGzip(acceptEncoding);
+        long version = this.versions.version(collection);
+        String etag = this.versions.etag(collection, null, version);
+        if (ChangeVersions.matches(ifNoneMatch, etag) || ChangeVersions.matches(ifNoneMatch, gzipEtag(etag))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(acceptsGzip && ChangeVersions.matches(ifNoneMatch, gzipEtag(etag)) ? gzipEtag(etag) : etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        Body body = this.bodies.get(collection);
+        if (body == null || body.version() < version) {
+            body = build(collection);
+        }
+        boolean gzip = acceptsGzip && body.gzip() != null;
+        byte[] bytes = gzip ? body.gzip() : body.json();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(gzip ? body.gzipEtag() : body.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(bytes.length);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return response.body(bytes);
+    }
+
+    private void changed(String collection) {
+        // Seules les collections déjà servies sont reconstruites d'avance
+        if (!this.bodies.containsKey(collection) || !this.queued.add(collection)) {
+            return;
+        }
+        this.executor.execute(() -> {
+            this.queued.remove(collection);
+            try {
+                build(collection);
+            } catch (RuntimeException e) {
+                // La prochaine requête reconstruira et remontera l'erreur
+                this.bodies.remove(collection);
+            }
+        });
+    }
+
+    private Body build(String collection) {
+        synchronized (this.locks.computeIfAbsent(collection, k -> new Object())) {
+            // Version lue avant les données : le corps est au moins aussi récent qu'elle
+            long version = this.versions.version(collection);
+            Body current = this.bodies.get(collection);
+            if (current != null && current.version() >= version) {
+                return current;
+            }
+            byte[] json;
+            try {
+                json = this.objectMapper.writeValueAsBytes(this.sources.get(collection).get());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            String etag = this.versions.etag(collection, null, version);
+            Body body = new Body(version, etag, gzipEtag(etag),
+                    json, json.length >= this.gzipMinBytes ? gzip(json) : null);
+            this.bodies.put(collection, body);
+            return body;
+        }
+    }
+
+    // Représentation gzip : ETag distinct de celui du JSON brut
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            if (coding[0].trim().equalsIgnoreCase(GZIP)) {
+                return coding.length < 2 || !coding[1].replace(" ", "").equals("q=0");
+            }
+        }
+        return false;
+    }
+}
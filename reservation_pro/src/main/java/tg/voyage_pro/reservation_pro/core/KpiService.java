@@ -0,0 +1,556 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import tg.voyage_pro.reservation_pro.Model.PAIEMENT;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.database.PaiementRepository;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.dto.DestinationStatDTO;
+import tg.voyage_pro.reservation_pro.dto.KpiSnapshotDTO;
+import tg.voyage_pro.reservation_pro.dto.PaiementAggregate;
+import tg.voyage_pro.reservation_pro.dto.ReservationAggregate;
+
+/**
+ * Indicateurs temps réel tenus en mémoire.
+ *
+ * Les compteurs (par statut, destination, type de billet et jour) sont initialisés par une seule
+ * requête d'agrégat, puis tenus à jour par les écritures de réservations et de paiements : chaque
+ * écriture applique, après commit, la différence entre l'état avant et l'état après. Les cellules
+ * sont des {@link LongAdder} (compteurs répartis, sans verrou) et les montants sont comptés en
+ * centimes pour que les ajouts et retraits s'annulent exactement. La lecture ne touche pas la base.
+ *
+ * Les écritures faites hors de cette instance (autre instance, SQL direct, suppressions en
+ * cascade) ne passent pas par ici : les compteurs sont reconstruits quand une opération les a
+ * invalidés et périodiquement ({@code kpi.resync-ms}).
+ *
+ * Une reconstruction ne doit ni perdre ni compter deux fois une écriture qui valide pendant
+ * qu'elle tourne. Elle attend d'abord les transactions déjà en cours de validation (vues par
+ * l'agrégat), puis lit l'agrégat dans une transaction REPEATABLE READ avec son instantané
+ * ({@code txid_current_snapshot()}). Une transaction qui entre en validation pendant la
+ * reconstruction note son identifiant ({@code txid_current()}) ; sa différence est mise de côté
+ * puis, au remplacement des compteurs, ignorée si l'instantané la voyait déjà et appliquée aux
+ * nouveaux compteurs sinon. Si son identifiant n'a pas pu être lu, une nouvelle reconstruction
+ * est demandée.
+ */
+@Component
+public class KpiService {
+
+    /**
+     * État d'une réservation vu par les compteurs ; {@code valeurCentimes} est
+     * (prix du voyage + prix du type de billet) × places.
+     */
+    public record ReservationFact(String status, String destination, Long idTypeBillet, LocalDate day,
+                                  long places, long valeurCentimes) {
+    }
+
+    public record PaiementFact(String status, String method, LocalDate day, long montantCentimes) {
+    }
+
+    private static final class Cell {
+        final LongAdder count = new LongAdder();
+        final LongAdder places = new LongAdder();
+        final LongAdder centimes = new LongAdder();
+
+        void add(long count, long places, long centimes) {
+            this.count.add(count);
+            this.places.add(places);
+            this.centimes.add(centimes);
+        }
+    }
+
+    // Un jeu complet de compteurs ; remplacé d'un bloc à chaque reconstruction
+    private static final class Counters {
+        final Map<String, Cell> reservationsByStatus = new ConcurrentHashMap<>();
+        final Map<String, Cell> reservationsByDestination = new ConcurrentHashMap<>();
+        final Map<Long, Cell> reservationsByTypeBillet = new ConcurrentHashMap<>();
+        final Map<LocalDate, Cell> reservationsByDay = new ConcurrentHashMap<>();
+        final Map<String, Cell> paiementsByStatus = new ConcurrentHashMap<>();
+        final Map<String, Cell> paiementsByMethod = new ConcurrentHashMap<>();
+        final Map<LocalDate, Cell> paiementsByDay = new ConcurrentHashMap<>();
+
+        // sign = 1 pour ajouter le groupe, -1 pour le retirer ; le revenu ne compte que les
+        // réservations confirmées, comme le tableau de bord
+        void reservation(long sign, String status, String destination, Long idTypeBillet, LocalDate day,
+                         long count, long places, long valeurCentimes) {
+            long n = sign * count;
+            long p = sign * places;
+            long valeur = sign * valeurCentimes;
+            long revenu = "CONFIRMED".equals(status) ? valeur : 0;
+            cell(this.reservationsByStatus, status).add(n, p, valeur);
+            if (destination != null) {
+                cell(this.reservationsByDestination, destination).add(n, p, revenu);
+            }
+            if (idTypeBillet != null) {
+                cell(this.reservationsByTypeBillet, idTypeBillet).add(n, p, revenu);
+            }
+            if (day != null) {
+                cell(this.reservationsByDay, day).add(n, p, revenu);
+            }
+        }
+
+        void paiement(long sign, String status, String method, LocalDate day, long count, long centimes) {
+            long n = sign * count;
+            long montant = sign * centimes;
+            cell(this.paiementsByStatus, status).add(n, 0, montant);
+            cell(this.paiementsByMethod, method).add(n, 0, montant);
+            if (day != null) {
+                cell(this.paiementsByDay, day).add(n, 0, montant);
+            }
+        }
+
+        private static <K> Cell cell(Map<K, Cell> cells, K key) {
+            Cell cell = cells.get(key);
+            return cell != null ? cell : cells.computeIfAbsent(key, k -> new Cell());
+        }
+    }
+
+    @Value("${kpi.days:30}")
+    private int defaultDays;
+
+    @Value("${kpi.resync-ms:900000}")
+    private long resyncMs;
+
+    @Autowired
+    private ReservationRepository rsr;
+
+    @Autowired
+    private PaiementRepository pr;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Counters counters;
+    private volatile boolean stale = true;
+    private volatile long builtAt;
+
+    // Transactions visibles dans un instantané PostgreSQL (xmin:xmax:xip,...)
+    private record Snapshot(long xmin, long xmax, Set<Long> running) {
+
+        static Snapshot parse(String text) {
+            String[] parts = text.split(":", 3);
+            Set<Long> running = new HashSet<>();
+            if (parts.length == 3 && !parts[2].isEmpty()) {
+                for (String xid : parts[2].split(",")) {
+                    running.add(Long.parseLong(xid.trim()));
+                }
+            }
+            return new Snapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), running);
+        }
+
+        boolean sees(long xid) {
+            return xid < this.xmin || (xid < this.xmax && !this.running.contains(xid));
+        }
+    }
+
+    // Différence validée pendant une reconstruction ; xid = -1 s'il n'a pas pu être lu
+    private record Pending(long xid, Consumer<Counters> delta) {
+    }
+
+    // Garde generation, rebuilding, committing, pending et snapshot
+    private final Object sync = new Object();
+    // Incrémentée au début de chaque reconstruction
+    private int generation;
+    private boolean rebuilding;
+    // Transactions entre beforeCommit et afterCompletion, par génération d'entrée
+    private final TreeMap<Integer, Integer> committing = new TreeMap<>();
+    private final List<Pending> pending = new ArrayList<>();
+    // Instantané de la dernière reconstruction réussie (génération snapshotGeneration)
+    private Snapshot snapshot;
+    private int snapshotGeneration = -1;
+
+    public static ReservationFact fact(RESERVATION r) {
+        if (r == null) {
+            return null;
+        }
+        return fact(r.getStatus(),
+                r.getVoyage() == null ? null : r.getVoyage().getArriveVoyage(),
+                r.getTypeBillet() == null ? null : r.getTypeBillet().getIdTypeBillet(),
+                r.getDateReservation(), r.getNombrePlacesReservees(),
+                r.getVoyage() == null ? null : r.getVoyage().getPrix(),
+                r.getTypeBillet() == null ? null : r.getTypeBillet().getPrixTypeBillet());
+    }
+
+    public static ReservationFact fact(String status, String destination, Long idTypeBillet, Date dateReservation,
+                                       Integer places, Double prix, Double prixTypeBillet) {
+        // Mêmes COALESCE que l'agrégat en base
+        double unitaire = (prix == null ? 0 : prix) + (prixTypeBillet == null ? 0 : prixTypeBillet);
+        return new ReservationFact(status(status), destination, idTypeBillet, day(dateReservation),
+                places == null ? 0 : places, Math.round(unitaire * (places == null ? 1 : places) * 100));
+    }
+
+    public static PaiementFact fact(PAIEMENT p) {
+        if (p == null) {
+            return null;
+        }
+        return new PaiementFact(label(p.getStatus()), label(p.getMethod()), day(p.getDatePaiement()),
+                p.getMontantPaiement() == null ? 0 : Math.round(p.getMontantPaiement() * 100));
+    }
+
+    /**
+     * Applique après commit le passage de {@code before} à {@code after} (null = absente).
+     */
+    public void reservationChanged(ReservationFact before, ReservationFact after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        delta(counters -> {
+            if (before != null) {
+                counters.reservation(-1, before.status(), before.destination(), before.idTypeBillet(), before.day(),
+                        1, before.places(), before.valeurCentimes());
+            }
+            if (after != null) {
+                counters.reservation(1, after.status(), after.destination(), after.idTypeBillet(), after.day(),
+                        1, after.places(), after.valeurCentimes());
+            }
+        });
+    }
+
+    public void paiementChanged(PaiementFact before, PaiementFact after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        delta(counters -> {
+            if (before != null) {
+                counters.paiement(-1, before.status(), before.method(), before.day(), 1, before.montantCentimes());
+            }
+            if (after != null) {
+                counters.paiement(1, after.status(), after.method(), after.day(), 1, after.montantCentimes());
+            }
+        });
+    }
+
+    /**
+     * À appeler quand une écriture modifie des réservations ou des paiements sans passer par les
+     * services (suppressions en cascade, changement de destination ou de prix) : les compteurs
+     * seront reconstruits au prochain contrôle.
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> this.stale = true);
+    }
+
+    public KpiSnapshotDTO snapshot(Integer days, Integer top) {
+        Counters c = this.counters;
+        if (c == null) {
+            rebuild();
+            c = this.counters;
+        }
+        int nbDays = days == null || days <= 0 ? this.defaultDays : Math.min(days, 366);
+        int limit = top == null || top <= 0 ? AnalyticsService.DEFAULT_TOP : Math.min(top, 50);
+
+        Map<String, Long> parStatut = new LinkedHashMap<>();
+        long total = 0;
+        for (Map.Entry<String, Cell> e : c.reservationsByStatus.entrySet()) {
+            long count = e.getValue().count.sum();
+            if (count != 0) {
+                parStatut.put(e.getKey(), count);
+                total += count;
+            }
+        }
+        Cell confirmed = c.reservationsByStatus.get("CONFIRMED");
+
+        long avecVoyage = 0;
+        List<Map.Entry<String, Long>> destinations = new ArrayList<>();
+        for (Map.Entry<String, Cell> e : c.reservationsByDestination.entrySet()) {
+            long count = e.getValue().count.sum();
+            if (count != 0) {
+                destinations.add(Map.entry(e.getKey(), count));
+                avecVoyage += count;
+            }
+        }
+        destinations.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        List<DestinationStatDTO> topDestinations = new ArrayList<>();
+        for (Map.Entry<String, Long> e : destinations.subList(0, Math.min(limit, destinations.size()))) {
+            topDestinations.add(DestinationStatDTO.builder()
+                    .destination(e.getKey())
+                    .count(e.getValue())
+                    .percent(avecVoyage == 0 ? 0 : (int) Math.round(e.getValue() * 100.0 / avecVoyage))
+                    .build());
+        }
+
+        Map<Long, Long> parTypeBillet = new LinkedHashMap<>();
+        c.reservationsByTypeBillet.forEach((id, cell) -> {
+            long count = cell.count.sum();
+            if (count != 0) {
+                parTypeBillet.put(id, count);
+            }
+        });
+
+        // Derniers jours, du plus ancien au plus récent ; lecture directe par clé
+        Map<String, Long> reservationsParJour = new LinkedHashMap<>();
+        Map<String, Double> revenusParJour = new LinkedHashMap<>();
+        Map<String, Double> encaissementsParJour = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (LocalDate d = today.minusDays(nbDays - 1L); !d.isAfter(today); d = d.plusDays(1)) {
+            Cell r = c.reservationsByDay.get(d);
+            Cell p = c.paiementsByDay.get(d);
+            reservationsParJour.put(d.toString(), r == null ? 0 : r.count.sum());
+            revenusParJour.put(d.toString(), r == null ? 0 : fcfa(r.centimes));
+            encaissementsParJour.put(d.toString(), p == null ? 0 : fcfa(p.centimes));
+        }
+
+        long nbPaiements = 0;
+        long montantPaiements = 0;
+        Map<String, Double> paiementsParStatut = new LinkedHashMap<>();
+        for (Map.Entry<String, Cell> e : c.paiementsByStatus.entrySet()) {
+            long count = e.getValue().count.sum();
+            if (count != 0) {
+                long centimes = e.getValue().centimes.sum();
+                paiementsParStatut.put(e.getKey(), centimes / 100.0);
+                nbPaiements += count;
+                montantPaiements += centimes;
+            }
+        }
+        Map<String, Double> paiementsParMethode = new LinkedHashMap<>();
+        c.paiementsByMethod.forEach((method, cell) -> {
+            if (cell.count.sum() != 0) {
+                paiementsParMethode.put(method, fcfa(cell.centimes));
+            }
+        });
+
+        return KpiSnapshotDTO.builder()
+                .totalReservations(total)
+                .totalRevenus(confirmed == null ? 0 : fcfa(confirmed.centimes))
+                .placesReservees(confirmed == null ? 0 : confirmed.places.sum())
+                .reservationsParStatut(parStatut)
+                .topDestinations(topDestinations)
+                .reservationsParTypeBillet(parTypeBillet)
+                .reservationsParJour(reservationsParJour)
+                .revenusParJour(revenusParJour)
+                .totalPaiements(nbPaiements)
+                .montantPaiements(montantPaiements / 100.0)
+                .paiementsParStatut(paiementsParStatut)
+                .paiementsParMethode(paiementsParMethode)
+                .encaissementsParJour(encaissementsParJour)
+                .calculeLe(new Date(this.builtAt))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        // Remis à false avant la lecture : une invalidation validée pendant la reconstruction
+        // en demande une autre
+        this.stale = false;
+        long now = System.currentTimeMillis();
+        int gen;
+        synchronized (this.sync) {
+            gen = ++this.generation;
+            this.rebuilding = true;
+            // Les transactions déjà en validation le seront avant l'instantané
+            while (!this.committing.headMap(gen).isEmpty()) {
+                try {
+                    this.sync.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.rebuilding = false;
+                    flushPending(null, this.counters);
+                    return;
+                }
+            }
+        }
+
+        Counters fresh = new Counters();
+        Snapshot snap;
+        try {
+            TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+            tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            tx.setReadOnly(true);
+            snap = tx.execute(s -> {
+                // Première requête : fixe l'instantané de toute la transaction
+                Snapshot read = Snapshot.parse(String.valueOf(this.entityManager
+                        .createNativeQuery("SELECT CAST(txid_current_snapshot() AS text)").getSingleResult()));
+                for (ReservationAggregate a : this.rsr.aggregateForKpi()) {
+                    fresh.reservation(1, status(a.getStatus()), a.getDestination(), a.getIdTypeBillet(), a.getDay(),
+                            a.getTotal(), a.getPlaces() == null ? 0 : a.getPlaces(),
+                            a.getValeurCentimes() == null ? 0 : Math.round(a.getValeurCentimes()));
+                }
+                for (PaiementAggregate a : this.pr.aggregateForKpi()) {
+                    fresh.paiement(1, label(a.getStatus()), label(a.getMethod()), a.getDay(), a.getTotal(),
+                            a.getMontantCentimes() == null ? 0 : Math.round(a.getMontantCentimes()));
+                }
+                return read;
+            });
+        } catch (RuntimeException e) {
+            // Compteurs inchangés : les différences mises de côté leur sont appliquées
+            synchronized (this.sync) {
+                this.rebuilding = false;
+                flushPending(null, this.counters);
+            }
+            this.stale = true;
+            throw e;
+        }
+
+        synchronized (this.sync) {
+            this.snapshot = snap;
+            this.snapshotGeneration = gen;
+            this.rebuilding = false;
+            flushPending(snap, fresh);
+            this.builtAt = now;
+            this.counters = fresh;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${kpi.check-ms:5000}", initialDelayString = "${kpi.check-ms:5000}")
+    public void resync() {
+        if (this.stale || System.currentTimeMillis() - this.builtAt >= this.resyncMs) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Applique {@code delta} après le commit de la transaction en cours (rien si elle est
+     * annulée), en tenant compte d'une reconstruction en cours (voir la description de la classe).
+     */
+    private void delta(Consumer<Counters> delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            synchronized (this.sync) {
+                apply(delta);
+                if (this.rebuilding) {
+                    // Déjà validée, vue ou non par l'instantané : on ne peut pas savoir
+                    this.stale = true;
+                }
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // false : annulée avant la validation, rien à faire
+            private boolean entered;
+            private int gen;
+            private boolean tagged;
+            private long xid = -1;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                synchronized (KpiService.this.sync) {
+                    this.entered = true;
+                    this.gen = KpiService.this.generation;
+                    this.tagged = KpiService.this.rebuilding;
+                    KpiService.this.committing.merge(this.gen, 1, Integer::sum);
+                }
+                if (this.tagged) {
+                    this.xid = currentXid();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!this.entered) {
+                    return;
+                }
+                synchronized (KpiService.this.sync) {
+                    KpiService.this.committing.computeIfPresent(this.gen, (k, n) -> n > 1 ? n - 1 : null);
+                    if (status == STATUS_COMMITTED) {
+                        committed(this.gen, this.tagged, this.xid, delta);
+                    }
+                    KpiService.this.sync.notifyAll();
+                }
+            }
+        });
+    }
+
+    // Sous sync
+    private void committed(int gen, boolean tagged, long xid, Consumer<Counters> delta) {
+        if (!tagged) {
+            // Validée avant l'instantané de toute reconstruction ultérieure
+            apply(delta);
+        } else if (this.rebuilding && this.generation == gen) {
+            this.pending.add(new Pending(xid, delta));
+        } else if (this.snapshotGeneration == gen) {
+            reconcile(this.snapshot, new Pending(xid, delta), this.counters);
+        } else {
+            // Reconstruction échouée : les compteurs n'ont pas été remplacés
+            apply(delta);
+        }
+    }
+
+    // Sous sync ; snap null = reconstruction échouée, tout est appliqué à counters
+    private void flushPending(Snapshot snap, Counters target) {
+        for (Pending p : this.pending) {
+            if (snap == null) {
+                if (target != null) {
+                    p.delta().accept(target);
+                }
+            } else {
+                reconcile(snap, p, target);
+            }
+        }
+        this.pending.clear();
+    }
+
+    private void reconcile(Snapshot snap, Pending p, Counters target) {
+        if (p.xid() < 0) {
+            this.stale = true;
+        } else if (!snap.sees(p.xid()) && target != null) {
+            p.delta().accept(target);
+        }
+    }
+
+    private long currentXid() {
+        try {
+            return ((Number) this.entityManager.createNativeQuery("SELECT txid_current()").getSingleResult()).longValue();
+        } catch (RuntimeException e) {
+            // Ne doit pas faire échouer l'écriture : la reconstruction suivante corrigera
+            return -1;
+        }
+    }
+
+    private void apply(Consumer<Counters> delta) {
+        Counters c = this.counters;
+        if (c != null) {
+            delta.accept(c);
+        }
+    }
+
+    // Même normalisation que le tableau de bord : statut absent = PENDING
+    private static String status(String status) {
+        return status == null ? "PENDING" : status.toUpperCase();
+    }
+
+    // Statuts et méthodes de paiement libres : gardés tels quels
+    private static String label(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Même jour que CAST(... AS date) en base : le JDBC écrit les dates dans le fuseau de la JVM
+    private static LocalDate day(Date date) {
+        return date == null ? null : Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // Montants en FCFA, comptés au centième
+    private static double fcfa(LongAdder centimes) {
+        return centimes.sum() / 100.0;
+    }
+}
@@ -2,19 +2,32 @@ package tg.voyage_pro.reservation_pro.core;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import tg.voyage_pro.reservation_pro.Model.AGENT;
 import tg.voyage_pro.reservation_pro.Model.PAIEMENT;
 import tg.voyage_pro.reservation_pro.Model.RESERVATION;
 import tg.voyage_pro.reservation_pro.database.AgentRepository;
+import tg.voyage_pro.reservation_pro.database.ClientRepository;
+import tg.voyage_pro.reservation_pro.database.KeysetPager;
+import tg.voyage_pro.reservation_pro.database.ListFilters;
 import tg.voyage_pro.reservation_pro.database.PaiementRepository;
 import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.exceptions.AgentNotFoundException;
+import tg.voyage_pro.reservation_pro.exceptions.ClientNotFoundException;
 import tg.voyage_pro.reservation_pro.exceptions.NullValueException;
 import tg.voyage_pro.reservation_pro.exceptions.PaiementNotFoundException;
 import tg.voyage_pro.reservation_pro.mappers.PaiementMapper;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.PaiementDTO;
+import tg.voyage_pro.reservation_pro.dto.PaiementTotalDTO;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class PaiementService {
@@ -28,9 +41,35 @@ public class PaiementService {
     @Autowired
     private ReservationRepository rr;
 
+    @Autowired
+    private ClientRepository cr;
+
     @Autowired
     private PaiementMapper paiementMapper;
 
+    @Autowired
+    private KeysetPager pager;
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired
+    private KpiService kpi;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private RollupService rollup;
+
+    @Autowired
+    private InvoiceService invoices;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    private static final Set<String> SORT_KEYS = Set.of("codePaiement", "datePaiement", "montantPaiement");
+
     public PaiementDTO create(PAIEMENT paiement) {
         // Fetch associated entities to ensure they exist
         if (paiement.getAgent() == null || paiement.getAgent().getIdAgent() == null) {
@@ -57,6 +96,11 @@ public class PaiementService {
         }
         
         PAIEMENT savedPaiement = pr.save(paiement);
+        journal.record("paiement", savedPaiement.getCodePaiement(), "CREATE", AuditDelta.between(null, auditState(savedPaiement)));
+        kpi.paiementChanged(null, KpiService.fact(savedPaiement));
+        changes.upserted(ChangeFeed.PAIEMENT, savedPaiement.getCodePaiement());
+        // La facture de la réservation est régénérée avec ce paiement
+        invoices.request(savedPaiement.getReservation().getIdReservation());
         return paiementMapper.toDto(savedPaiement);
     }
 
@@ -65,6 +109,42 @@ public class PaiementService {
         return paiementMapper.toListDto(paiements);
     }
 
+    public PageResponse<PaiementDTO> page(ListQuery query) {
+        Specification<PAIEMENT> filter = Specification
+                .where(ListFilters.<PAIEMENT>fetch("reservation", "agent"))
+                .and(ListFilters.equal("status", query.getStatus()))
+                .and(ListFilters.equal("method", query.getMethod()))
+                .and(ListFilters.equal("agent.idAgent", query.getAgentId()))
+                .and(ListFilters.equal("reservation.client.idClient", query.getClientId()))
+                .and(ListFilters.equal("reservation.voyage.idVoyage", query.getVoyageId()))
+                .and(ListFilters.betweenDays("datePaiement", query.getFrom(), query.getTo()));
+        return pager.page(PAIEMENT.class, "codePaiement", SORT_KEYS, "datePaiement,desc", query, filter)
+                .map(paiementMapper::toListDto);
+    }
+
+    // Paiements d'un client, joints par PAIEMENT.reservation (index paiement(reservation, date_paiement))
+    public PageResponse<PaiementDTO> historyForClient(Long idClient, ListQuery query) {
+        if (!cr.existsById(idClient)) {
+            throw new ClientNotFoundException("Client not found with id: " + idClient);
+        }
+        query.setClientId(idClient);
+        return page(query);
+    }
+
+    // Paiements encaissés par un agent (index paiement(agent, date_paiement))
+    public PageResponse<PaiementDTO> historyForAgent(Long idAgent, ListQuery query) {
+        if (!ar.existsById(idAgent)) {
+            throw new AgentNotFoundException("Agent not found with id: " + idAgent);
+        }
+        query.setAgentId(idAgent);
+        return page(query);
+    }
+
+    // Totaux par jour / semaine / mois avec les mêmes filtres que la liste
+    public List<PaiementTotalDTO> totals(ListQuery query, String interval) {
+        return pr.totals(query, interval);
+    }
+
     public PaiementDTO get(String codePaiement) {
         PAIEMENT paiement = pr.findById(codePaiement)
                 .orElseThrow(() -> new PaiementNotFoundException("Paiement not found with code: " + codePaiement));
@@ -75,6 +155,10 @@ public class PaiementService {
         PAIEMENT existingPaiement = pr.findById(codePaiement)
                 .orElseThrow(() -> new PaiementNotFoundException("Paiement not found with code: " + codePaiement));
 
+        Map<String, Object> before = auditState(existingPaiement);
+        KpiService.PaiementFact fact = KpiService.fact(existingPaiement);
+        List<LocalDate> days = rollup.days("paiement", codePaiement);
+
         // Update fields
         existingPaiement.setDatePaiement(paiementDetails.getDatePaiement());
         existingPaiement.setMontantPaiement(paiementDetails.getMontantPaiement());
@@ -94,14 +178,39 @@ public class PaiementService {
         // }
 
         PAIEMENT updatedPaiement = pr.save(existingPaiement);
+        rollup.touch(days);
+        journal.record("paiement", codePaiement, "UPDATE", AuditDelta.between(before, auditState(updatedPaiement)));
+        kpi.paiementChanged(fact, KpiService.fact(updatedPaiement));
+        changes.upserted(ChangeFeed.PAIEMENT, codePaiement);
         return paiementMapper.toDto(updatedPaiement);
     }
 
     public boolean delete(String codePaiement) {
-        if (pr.existsById(codePaiement)) {
-            pr.deleteById(codePaiement);
+        PAIEMENT paiement = pr.findById(codePaiement).orElse(null);
+        if (paiement != null) {
+            Map<String, Object> before = auditState(paiement);
+            KpiService.PaiementFact fact = KpiService.fact(paiement);
+            List<LocalDate> days = rollup.days("paiement", codePaiement);
+            pr.delete(paiement);
+            rollup.touch(days);
+            journal.record("paiement", codePaiement, "DELETE", AuditDelta.between(before, null));
+            kpi.paiementChanged(fact, null);
+            kpi.invalidate();
+            availability.clear();
             return true;
         }
         return false;
     }
+
+    // Champs suivis par le journal d'audit
+    private static Map<String, Object> auditState(PAIEMENT p) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("montantPaiement", p.getMontantPaiement());
+        state.put("status", p.getStatus());
+        state.put("method", p.getMethod());
+        state.put("datePaiement", p.getDatePaiement());
+        state.put("reservation", p.getReservation() == null ? null : p.getReservation().getIdReservation());
+        state.put("agent", p.getAgent() == null ? null : p.getAgent().getIdAgent());
+        return state;
+    }
 }
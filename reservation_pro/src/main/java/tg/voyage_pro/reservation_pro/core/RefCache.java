@@ -0,0 +1,230 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache borné en lecture seule pour les données de référence (types de billet, voyages, clients).
+ *
+ * Une valeur absente est lue par le {@code loader} de {@link #get} puis gardée au plus
+ * {@code ttlMs}. Au-delà de {@code maxSize} entrées, le cache est ramené à 90 % en retirant
+ * d'abord les entrées expirées, puis les moins demandées : la fréquence des clés est estimée par
+ * un petit count-min sketch (compteurs plafonnés à 15, divisés par deux périodiquement), à la
+ * manière de TinyLFU, pour qu'un parcours de clés vues une seule fois ne chasse pas les clés
+ * fréquentes. À fréquence égale, la moins récemment lue part d'abord. Le sketch n'est modifié
+ * que sous un verrou ; une lecture qui le trouve pris n'est pas comptée plutôt que d'attendre
+ * (la fréquence n'est qu'une estimation).
+ *
+ * Une valeur lue pendant une invalidation n'est pas gardée : chaque {@link #invalidate} change
+ * la version du cache et un chargement n'est installé que si la version n'a pas bougé.
+ * Les valeurs rendues sont partagées et ne doivent pas être modifiées par l'appelant.
+ */
+public class RefCache<K, V> {
+
+    private static final int MAX_FREQUENCY = 15;
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+        volatile long lastAccess;
+
+        Entry(V value, long expiresAt, long now) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = now;
+        }
+    }
+
+    // Fréquence -1 : entrée expirée, retirée en premier
+    private record Candidate<K, V>(K key, Entry<V> entry, int frequency, long lastAccess) {
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMs;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    // Count-min sketch : 4 compteurs par clé, la fréquence est le plus petit ; ~16 compteurs
+    // par entrée pour que les clés rares ne partagent pas trop les compteurs des clés fréquentes
+    private final byte[] sketch;
+    private final int sampleSize;
+    // Garde sketch et samples (incréments et vieillissement)
+    private final ReentrantLock sketchLock = new ReentrantLock();
+    private int samples;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public RefCache(String name, int maxSize, long ttlMs) {
+        this(name, maxSize, ttlMs, System::currentTimeMillis);
+    }
+
+    RefCache(String name, int maxSize, long ttlMs, LongSupplier clock) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.sketch = new byte[Integer.highestOneBit(Math.max(64, this.maxSize * 16 - 1)) << 1];
+        this.sampleSize = 10 * this.maxSize;
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Valeur de {@code key}, lue par {@code loader} si elle est absente ou expirée. Un
+     * {@code null} rendu par le loader n'est pas gardé.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = this.clock.getAsLong();
+        record(key);
+        Entry<V> entry = this.entries.get(key);
+        if (entry != null) {
+            if (now < entry.expiresAt) {
+                entry.lastAccess = now;
+                this.hits.increment();
+                return entry.value;
+            }
+            if (this.entries.remove(key, entry)) {
+                this.evictions.increment();
+            }
+        }
+        this.misses.increment();
+
+        long before = this.version.get();
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        Entry<V> loaded = new Entry<>(value, now + this.ttlMs, now);
+        synchronized (this) {
+            if (this.version.get() == before) {
+                this.entries.put(key, loaded);
+            }
+        }
+        if (this.entries.size() > this.maxSize) {
+            trim(now);
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (this) {
+            this.version.incrementAndGet();
+            this.entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            this.version.incrementAndGet();
+            this.entries.clear();
+        }
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    // Fréquence estimée de key (0 à 15)
+    int frequency(K key) {
+        int h = spread(key);
+        int min = MAX_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            min = Math.min(min, this.sketch[index(h, i)]);
+        }
+        return min;
+    }
+
+    private void record(K key) {
+        if (!this.sketchLock.tryLock()) {
+            return;
+        }
+        try {
+            int h = spread(key);
+            int min = frequency(key);
+            if (min < MAX_FREQUENCY) {
+                // Incrément conservatif : seuls les compteurs au minimum montent
+                for (int i = 0; i < 4; i++) {
+                    int at = index(h, i);
+                    if (this.sketch[at] == min) {
+                        this.sketch[at] = (byte) (min + 1);
+                    }
+                }
+            }
+            // Vieillissement : les fréquences anciennes s'effacent de moitié
+            if (++this.samples >= this.sampleSize) {
+                this.samples = 0;
+                for (int i = 0; i < this.sketch.length; i++) {
+                    this.sketch[i] >>= 1;
+                }
+            }
+        } finally {
+            this.sketchLock.unlock();
+        }
+    }
+
+    private synchronized void trim(long now) {
+        if (this.entries.size() <= this.maxSize) {
+            return;
+        }
+        int target = Math.max(1, this.maxSize - this.maxSize / 10);
+        // Clés de tri figées : fréquences et dates d'accès bougent pendant le tri
+        List<Candidate<K, V>> all = new ArrayList<>(this.entries.size());
+        for (Map.Entry<K, Entry<V>> e : this.entries.entrySet()) {
+            Entry<V> entry = e.getValue();
+            all.add(new Candidate<>(e.getKey(), entry, now < entry.expiresAt ? frequency(e.getKey()) : -1,
+                    entry.lastAccess));
+        }
+        all.sort(Comparator.<Candidate<K, V>>comparingInt(Candidate::frequency)
+                .thenComparingLong(Candidate::lastAccess));
+        for (Candidate<K, V> c : all) {
+            if (this.entries.size() <= target) {
+                break;
+            }
+            if (this.entries.remove(c.key(), c.entry())) {
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private static int spread(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+
+    private int index(int h, int i) {
+        int x = h + i * 0x9e3779b9;
+        x ^= x >>> 15;
+        x *= 0x2c1b3c6d;
+        x ^= x >>> 12;
+        return x & (this.sketch.length - 1);
+    }
+}
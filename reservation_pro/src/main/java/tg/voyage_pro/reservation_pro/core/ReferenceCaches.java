@@ -0,0 +1,73 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import tg.voyage_pro.reservation_pro.dto.ClientDTO;
+import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
+import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+
+/**
+ * Caches des données de référence lues à chaque écran : types de billet, voyages et clients par
+ * id, listes complètes des types de billet et des voyages.
+ *
+ * Les services les remplissent à la lecture et les invalident à chaque écriture par
+ * {@link #invalidate} / {@link #invalidateAll} : tout de suite, puis à nouveau à la fin de la
+ * transaction (validée ou annulée), pour qu'une valeur lue entre-temps ne survive pas. Les
+ * compteurs sont publiés dans les métriques de l'actuator, avec le tag {@code cache}
+ * ({@code reference.cache.requests}, {@code reference.cache.evictions},
+ * {@code reference.cache.size}).
+ */
+@Component
+public class ReferenceCaches implements MeterBinder {
+
+    // Clé unique des caches de listes
+    public static final String ALL = "all";
+
+    public final RefCache<Long, TypeBilletDTO> typesBillet;
+    public final RefCache<String, List<TypeBilletDTO>> typesBilletListe;
+    public final RefCache<Long, VoyageDTO> voyages;
+    public final RefCache<String, List<VoyageDTO>> voyagesListe;
+    public final RefCache<Long, ClientDTO> clients;
+
+    public ReferenceCaches(@Value("${reference.cache.max-entries:10000}") int maxEntries,
+                           @Value("${reference.cache.type-billet-ttl-ms:3600000}") long typeBilletTtlMs,
+                           @Value("${reference.cache.ttl-ms:600000}") long ttlMs) {
+        this.typesBillet = new RefCache<>("typeBillet", maxEntries, typeBilletTtlMs);
+        this.typesBilletListe = new RefCache<>("typeBillet.liste", 1, typeBilletTtlMs);
+        this.voyages = new RefCache<>("voyage", maxEntries, ttlMs);
+        this.voyagesListe = new RefCache<>("voyage.liste", 1, ttlMs);
+        this.clients = new RefCache<>("client", maxEntries, ttlMs);
+    }
+
+    public <K> void invalidate(RefCache<K, ?> cache, K key) {
+        cache.invalidate(key);
+        AfterCommit.always(() -> cache.invalidate(key));
+    }
+
+    public void invalidateAll(RefCache<?, ?> cache) {
+        cache.invalidateAll();
+        AfterCommit.always(cache::invalidateAll);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RefCache<?, ?> cache : List.of(this.typesBillet, this.typesBilletListe, this.voyages,
+                this.voyagesListe, this.clients)) {
+            FunctionCounter.builder("reference.cache.requests", cache, RefCache::hits)
+                    .tags("cache", cache.name(), "result", "hit").register(registry);
+            FunctionCounter.builder("reference.cache.requests", cache, RefCache::misses)
+                    .tags("cache", cache.name(), "result", "miss").register(registry);
+            FunctionCounter.builder("reference.cache.evictions", cache, RefCache::evictions)
+                    .tags("cache", cache.name()).register(registry);
+            Gauge.builder("reference.cache.size", cache, RefCache::size)
+                    .tags("cache", cache.name()).register(registry);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+import tg.voyage_pro.reservation_pro.dto.BatchStatusRequest;
+import tg.voyage_pro.reservation_pro.dto.BatchStatusResultDTO;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Changements de statut de réservations en lot.
+ *
+ * Chaque paquet d'ids est traité par un seul UPDATE ensembliste
+ * ({@code WHERE id = ANY(?) AND status IN (...)}) dans sa propre transaction, pour ne jamais
+ * garder de verrous longtemps. Les places des réservations qui cessent de retenir du stock
+ * sont rendues au voyage, une fois par voyage et par paquet.
+ */
+@Service
+public class ReservationBatchService {
+
+    // Statuts de départ autorisés pour chaque statut cible
+    static final Map<String, Set<String>> ALLOWED_FROM = Map.of(
+            "CONFIRMED", Set.of("PENDING"),
+            "CANCELLED", Set.of("PENDING", "CONFIRMED"));
+
+    @Value("${bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReservationRepository rsr;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired
+    private KpiService kpi;
+
+    @Autowired
+    private InvoiceService invoices;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    public BatchStatusResultDTO updateStatus(BatchStatusRequest request) {
+        String status = request.getStatus() == null ? null : request.getStatus().trim().toUpperCase();
+        if (status == null || !ALLOWED_FROM.containsKey(status)) {
+            throw new InvalidQueryException("Statut cible invalide : " + request.getStatus() + " (valeurs possibles : " + ALLOWED_FROM.keySet() + ")");
+        }
+
+        List<Long> ids;
+        Set<String> from = ALLOWED_FROM.get(status);
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+            ids.remove(null);
+        } else if (request.getVoyageId() != null) {
+            String current = request.getCurrentStatus() == null ? "PENDING" : request.getCurrentStatus().trim().toUpperCase();
+            ids = this.rsr.findIdsByVoyageAndStatus(request.getVoyageId(), current);
+            from = from.contains(current) ? Set.of(current) : Set.of();
+        } else {
+            throw new InvalidQueryException("Indiquer une liste d'ids ou un voyageId.");
+        }
+
+        BatchStatusResultDTO result = new BatchStatusResultDTO(status);
+        Set<Long> moved = new HashSet<>(transition(ids, from, status));
+        for (Long id : ids) {
+            (moved.contains(id) ? result.getTransitioned() : result.getRejected()).add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Passe {@code ids} au statut {@code status} quand leur statut courant est dans {@code from},
+     * par paquets de {@code bulk.chunk-size}. Rend les ids effectivement modifiés.
+     */
+    public List<Long> transition(List<Long> ids, Set<String> from, String status) {
+        if (from.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return apply(ids, !SeatInventory.holdsSeats(status), status,
+                chunk -> this.rsr.transitionStatus(chunk, from, status, new Timestamp(System.currentTimeMillis())));
+    }
+
+    /**
+     * Passe à EXPIRED ceux des {@code ids} encore PENDING dont la retenue est échue ; leurs places
+     * sont rendues. Rend les ids effectivement expirés.
+     */
+    public List<Long> expire(List<Long> ids) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return apply(ids, true, "EXPIRED", chunk -> this.rsr.expireHolds(chunk, now));
+    }
+
+    // update rend les colonnes de ReservationRepository#transitionStatus pour les lignes modifiées
+    private List<Long> apply(List<Long> ids, boolean releases, String status, Function<Long[], List<Object[]>> update) {
+        List<Long> moved = new ArrayList<>();
+        int size = Math.max(1, this.chunkSize);
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        for (int start = 0; start < ids.size(); start += size) {
+            Long[] chunk = ids.subList(start, Math.min(ids.size(), start + size)).toArray(new Long[0]);
+            List<Long> chunkMoved = tx.execute(txStatus -> {
+                List<Object[]> rows = update.apply(chunk);
+                List<Long> done = new ArrayList<>(rows.size());
+                Map<Long, Integer> freed = new HashMap<>();
+                for (Object[] row : rows) {
+                    done.add(((Number) row[0]).longValue());
+                    this.journal.record("reservation", row[0], "UPDATE", AuditDelta.of().field("status", row[3], status));
+                    this.kpi.reservationChanged(fact(row, (String) row[3]), fact(row, status));
+                    this.availability.reservationChanged(hold(row, (String) row[3]), hold(row, status));
+                    if (releases && row[1] != null && row[2] != null) {
+                        freed.merge(((Number) row[1]).longValue(), ((Number) row[2]).intValue(), Integer::sum);
+                    }
+                }
+                freed.forEach(this.seatInventory::release);
+                this.changes.upsertedAll(ChangeFeed.RESERVATION, done);
+                if ("CONFIRMED".equals(status)) {
+                    this.invoices.requestAll(done);
+                }
+                return done;
+            });
+            moved.addAll(chunkMoved);
+        }
+        return moved;
+    }
+
+    // Places retenues par une ligne rendue par l'UPDATE, au statut donné
+    private static AvailabilityCache.Hold hold(Object[] row, String status) {
+        return AvailabilityCache.hold(row[1] == null ? null : ((Number) row[1]).longValue(),
+                row[5] == null ? null : ((Number) row[5]).longValue(),
+                row[2] == null ? null : ((Number) row[2]).intValue(), status);
+    }
+
+    // Compteurs KPI d'une ligne rendue par l'UPDATE, au statut donné
+    private static KpiService.ReservationFact fact(Object[] row, String status) {
+        return KpiService.fact(status, (String) row[4], row[5] == null ? null : ((Number) row[5]).longValue(),
+                (Date) row[6], row[2] == null ? null : ((Number) row[2]).intValue(),
+                row[7] == null ? null : ((Number) row[7]).doubleValue(),
+                row[8] == null ? null : ((Number) row[8]).doubleValue());
+    }
+}
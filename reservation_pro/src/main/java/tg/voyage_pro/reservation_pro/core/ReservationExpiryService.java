@@ -0,0 +1,121 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.database.ReservationRepository;
+
+/**
+ * Expiration des réservations PENDING non payées.
+ *
+ * Chaque réservation PENDING reçoit une fin de retenue ({@code reservation.hold-minutes}) et est
+ * rangée dans une {@link TimingWheel} ; à chaque tick les échéances arrivées sont passées à
+ * EXPIRED par lots et leurs places rendues. La roue est reconstruite au démarrage par une seule
+ * requête sur l'index (status, hold_expires_at). L'UPDATE d'expiration vérifie le statut et
+ * l'échéance en base : avec plusieurs instances, une réservation n'est expirée qu'une fois.
+ * Un balayage périodique rattrape les échéances planifiées par une instance arrêtée depuis.
+ */
+@Component
+public class ReservationExpiryService {
+
+    private static final int WHEEL_SIZE = 64;
+    private static final int SWEEP_BATCH = 1000;
+
+    @Value("${reservation.hold-minutes:30}")
+    private long holdMinutes;
+
+    @Value("${reservation.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    @Autowired
+    private ReservationRepository rsr;
+
+    @Autowired
+    private ReservationBatchService batchService;
+
+    private TimingWheel wheel;
+
+    @PostConstruct
+    void init() {
+        this.wheel = new TimingWheel(this.tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    public Timestamp holdDeadline() {
+        return new Timestamp(System.currentTimeMillis() + this.holdMinutes * 60_000);
+    }
+
+    /**
+     * À appeler après tout changement de statut d'une réservation enregistrée : une réservation
+     * PENDING reçoit une échéance (si elle n'en a pas) et est planifiée, les autres sont retirées.
+     */
+    public void track(RESERVATION r) {
+        if (r.getIdReservation() == null) {
+            return;
+        }
+        if ("PENDING".equals(r.getStatus())) {
+            if (r.getHoldExpiresAt() == null) {
+                r.setHoldExpiresAt(holdDeadline());
+            }
+            // Une échéance déjà passée est laissée au prochain balayage
+            this.wheel.schedule(r.getIdReservation(), r.getHoldExpiresAt().getTime());
+        } else {
+            r.setHoldExpiresAt(null);
+            this.wheel.cancel(r.getIdReservation());
+        }
+    }
+
+    public void cancel(Long idReservation) {
+        this.wheel.cancel(idReservation);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Long> overdue = new ArrayList<>();
+        for (Object[] row : this.rsr.findPendingHolds()) {
+            Long id = (Long) row[0];
+            if (!this.wheel.schedule(id, ((Timestamp) row[1]).getTime())) {
+                overdue.add(id);
+            }
+        }
+        expire(overdue);
+    }
+
+    // Pool de planification à plusieurs threads (spring.task.scheduling.pool.size) : les tâches
+    // longues (agrégats, index des voyages, KPI) ne retardent pas le tick
+    @Scheduled(fixedDelayString = "${reservation.expiry.tick-ms:1000}")
+    public void tick() {
+        expire(this.wheel.advance(System.currentTimeMillis()));
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.expiry.sweep-ms:300000}", initialDelayString = "${reservation.expiry.sweep-ms:300000}")
+    public void sweep() {
+        for (;;) {
+            List<Long> ids = this.rsr.findExpiredHolds(new Timestamp(System.currentTimeMillis()), PageRequest.of(0, SWEEP_BATCH));
+            if (ids.isEmpty()) {
+                return;
+            }
+            ids.forEach(this.wheel::cancel);
+            // Arrêt si rien n'a bougé (lignes expirées entre-temps par une autre instance)
+            if (this.batchService.expire(ids).isEmpty() || ids.size() < SWEEP_BATCH) {
+                return;
+            }
+        }
+    }
+
+    private void expire(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            this.batchService.expire(ids);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package tg.voyage_pro.reservation_pro.core;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
  
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
  
@@ -13,6 +19,8 @@ import tg.voyage_pro.reservation_pro.Model.RESERVATION;
 import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
 import tg.voyage_pro.reservation_pro.Model.VOYAGE;
 import tg.voyage_pro.reservation_pro.database.*;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
 import tg.voyage_pro.reservation_pro.dto.ClientDTO;
 import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
@@ -27,6 +35,7 @@ import tg.voyage_pro.reservation_pro.mappers.VoyageMapper;
 import tg.voyage_pro.reservation_pro.mappers.TypeBilletMapper;
 
 @Service
+@Transactional
 public class ReservationService {
 
 
@@ -54,6 +63,35 @@ public class ReservationService {
     @Autowired
     private TypeBilletMapper typeBilletMapper;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private KeysetPager pager;
+
+    @Autowired
+    private ReservationExpiryService expiry;
+
+    @Autowired
+    private AuditJournal journal;
+
+    @Autowired
+    private KpiService kpi;
+
+    @Autowired
+    private InvoiceService invoices;
+
+    @Autowired
+    private RollupService rollup;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    private static final Set<String> SORT_KEYS = Set.of("idReservation", "dateReservation", "nombrePlacesReservees");
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -78,6 +116,13 @@ public class ReservationService {
             throw new NullValueException("La date de réservation ne doit pas être nulle.") ; 
        }
 
+       if(reservationDto.getNombrePlacesReservees() == null){
+            throw new NullValueException("Le nombre de places ne doit pas être nul.") ; 
+       }
+       if(reservationDto.getNombrePlacesReservees() <= 0){
+            throw new IllegalArgumentException("Le nombre de places doit être positif.") ; 
+       }
+
         RESERVATION reservationEntity = reservationMapper.toEntity(reservationDto);
         reservationEntity.setClient(client);
         reservationEntity.setVoyage(voyage);
@@ -90,7 +135,16 @@ public class ReservationService {
             reservationEntity.setStatus("PENDING");
         }
 
+        if (SeatInventory.holdsSeats(reservationEntity.getStatus())) {
+            this.seatInventory.reserve(voyage.getIdVoyage(), reservationEntity.getNombrePlacesReservees());
+        }
+
         RESERVATION saved = this.rsr.save(reservationEntity);
+        this.expiry.track(saved);
+        this.journal.record("reservation", saved.getIdReservation(), "CREATE", AuditDelta.between(null, auditState(saved)));
+        this.kpi.reservationChanged(null, KpiService.fact(saved));
+        this.availability.reservationChanged(null, AvailabilityCache.hold(saved));
+        this.changes.upserted(ChangeFeed.RESERVATION, saved.getIdReservation());
         // entityManager.flush();
         // entityManager.refresh(saved);
         System.out.println("ID généré après save = " + saved.getIdReservation());
@@ -103,28 +157,55 @@ public class ReservationService {
 
     public boolean delete(Long IdReservation){
 
-        if(!this.rsr.existsById(IdReservation)){
+        RESERVATION r = this.rsr.findById(IdReservation).orElse(null);
+        if(r == null){
             return false ;
         }
         
-        this.rsr.deleteById(IdReservation);
+        if (r.getVoyage() != null && SeatInventory.holdsSeats(r.getStatus())) {
+            this.seatInventory.release(r.getVoyage().getIdVoyage(), seats(r.getNombrePlacesReservees()));
+        }
+        Map<String, Object> before = auditState(r);
+        KpiService.ReservationFact fact = KpiService.fact(r);
+        AvailabilityCache.Hold held = AvailabilityCache.hold(r);
+        List<LocalDate> days = this.rollup.days("reservation", IdReservation);
+        this.rsr.delete(r);
+        this.rollup.touch(days);
+        this.expiry.cancel(IdReservation);
+        this.journal.record("reservation", IdReservation, "DELETE", AuditDelta.between(before, null));
+        this.kpi.reservationChanged(fact, null);
+        this.availability.reservationChanged(held, null);
         return true ; 
     }
 
 
     
     
+    @Transactional(readOnly = true)
     public List<ReservationDTO> getAll(){
-        List<RESERVATION> reservations = this.rsr.findAll();
-        List<ReservationDTO> dtos = this.reservationMapper.toListDto(reservations);
-        for (int i = 0; i < reservations.size(); i++) {
-            RESERVATION r = reservations.get(i);
-            ReservationDTO dto = dtos.get(i);
-            if (r.getClient() != null) dto.setClient(clientMapper.toDto(r.getClient()));
-            if (r.getVoyage() != null) dto.setVoyage(voyageMapper.toDto(r.getVoyage()));
-            if (r.getTypeBillet() != null) dto.setTypeBillet(typeBilletMapper.toDto(r.getTypeBillet()));
+        return this.reservationMapper.fromRows(this.rsr.findAllRows());
+    }
+
+    @Transactional(readOnly = true)
+    public PageResponse<ReservationDTO> page(ListQuery query){
+        Specification<RESERVATION> filter = Specification
+                .where(ListFilters.<RESERVATION>fetch("client", "voyage", "typeBillet"))
+                .and(ListFilters.equal("status", query.getStatus()))
+                .and(ListFilters.equal("voyage.idVoyage", query.getVoyageId()))
+                .and(ListFilters.equal("client.idClient", query.getClientId()))
+                .and(ListFilters.between("dateReservation", query.getFrom(), query.getTo()));
+        return this.pager.page(RESERVATION.class, "idReservation", SORT_KEYS, "idReservation,desc", query, filter)
+                .map(this.reservationMapper::toListDto);
+    }
+
+    // Historique de réservation d'un client (index reservation(client_id, id_reservation))
+    @Transactional(readOnly = true)
+    public PageResponse<ReservationDTO> historyForClient(Long idClient, ListQuery query){
+        if (!this.cr.existsById(idClient)) {
+            throw new ClientNotFoundException("Client not found with id: " + idClient);
         }
-        return dtos;
+        query.setClientId(idClient);
+        return this.page(query);
     }
 
     public ReservationDTO get(Long idReservation){
@@ -143,14 +224,31 @@ public class ReservationService {
 
         TYPE_BILLET typeBillet = this.tbr.findById(r.getIdTypeBillet()).orElseThrow(() -> new NullValueException("Type Billet not found"));
 
+        if (r.getNombrePlacesReservees() == null || r.getNombrePlacesReservees() <= 0) {
+            throw new IllegalArgumentException("Le nombre de places doit être positif.");
+        }
+        Map<String, Object> before = auditState(res);
+        KpiService.ReservationFact fact = KpiService.fact(res);
+        AvailabilityCache.Hold held = AvailabilityCache.hold(res);
+        // Jour, voyage ou type de billet d'origine : updated_at ne signale que la nouvelle position
+        List<LocalDate> days = this.rollup.days("reservation", res.getIdReservation());
+        moveSeats(res.getVoyage(), seats(res.getNombrePlacesReservees()), SeatInventory.holdsSeats(res.getStatus()),
+                v, r.getNombrePlacesReservees(), SeatInventory.holdsSeats(r.getStatus()));
+
         res.setDateReservation(r.getDateReservation());
         res.setClient(c);
         res.setVoyage(v);
         res.setTypeBillet(typeBillet);
         res.setNombrePlacesReservees(r.getNombrePlacesReservees());
         res.setStatus(r.getStatus());
+        this.expiry.track(res);
 
         this.rsr.save(res) ; 
+        this.rollup.touch(days);
+        this.journal.record("reservation", res.getIdReservation(), "UPDATE", AuditDelta.between(before, auditState(res)));
+        this.kpi.reservationChanged(fact, KpiService.fact(res));
+        this.availability.reservationChanged(held, AvailabilityCache.hold(res));
+        this.changes.upserted(ChangeFeed.RESERVATION, res.getIdReservation());
 
 
         return this.reservationMapper.toDto(res);
@@ -164,8 +262,62 @@ public class ReservationService {
     public ReservationDTO updateStatus(Long idReservation, String status) {
         RESERVATION reservation = this.rsr.findById(idReservation)
             .orElseThrow(() -> new ReservationNotFoundException("Reservation not found with id: " + idReservation));
+        String previous = reservation.getStatus();
+        KpiService.ReservationFact fact = KpiService.fact(reservation);
+        AvailabilityCache.Hold held = AvailabilityCache.hold(reservation);
+        int places = seats(reservation.getNombrePlacesReservees());
+        moveSeats(reservation.getVoyage(), places, SeatInventory.holdsSeats(reservation.getStatus()),
+                reservation.getVoyage(), places, SeatInventory.holdsSeats(status));
         reservation.setStatus(status);
+        this.expiry.track(reservation);
         this.rsr.save(reservation);
+        this.journal.record("reservation", idReservation, "UPDATE", AuditDelta.of().field("status", previous, status));
+        this.kpi.reservationChanged(fact, KpiService.fact(reservation));
+        this.availability.reservationChanged(held, AvailabilityCache.hold(reservation));
+        this.changes.upserted(ChangeFeed.RESERVATION, idReservation);
+        // Facture générée en arrière-plan après le commit
+        if ("CONFIRMED".equals(status) && !status.equals(previous)) {
+            this.invoices.request(idReservation);
+        }
         return this.reservationMapper.toDto(reservation);
     }
+
+    // Ajuste le stock entre l'ancien et le nouvel état d'une réservation
+    private void moveSeats(VOYAGE oldVoyage, int oldPlaces, boolean oldHolds,
+                           VOYAGE newVoyage, int newPlaces, boolean newHolds) {
+        Long oldId = oldHolds && oldVoyage != null ? oldVoyage.getIdVoyage() : null;
+        Long newId = newHolds && newVoyage != null ? newVoyage.getIdVoyage() : null;
+
+        if (oldId != null && oldId.equals(newId)) {
+            int delta = newPlaces - oldPlaces;
+            if (delta > 0) {
+                this.seatInventory.reserve(newId, delta);
+            } else if (delta < 0) {
+                this.seatInventory.release(oldId, -delta);
+            }
+            return;
+        }
+        if (newId != null) {
+            this.seatInventory.reserve(newId, newPlaces);
+        }
+        if (oldId != null) {
+            this.seatInventory.release(oldId, oldPlaces);
+        }
+    }
+
+    // Champs suivis par le journal d'audit
+    static Map<String, Object> auditState(RESERVATION r) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("status", r.getStatus());
+        state.put("nombrePlacesReservees", r.getNombrePlacesReservees());
+        state.put("dateReservation", r.getDateReservation());
+        state.put("client", r.getClient() == null ? null : r.getClient().getIdClient());
+        state.put("voyage", r.getVoyage() == null ? null : r.getVoyage().getIdVoyage());
+        state.put("typeBillet", r.getTypeBillet() == null ? null : r.getTypeBillet().getIdTypeBillet());
+        return state;
+    }
+
+    private static int seats(Integer nombrePlaces) {
+        return nombrePlaces == null ? 0 : nombrePlaces;
+    }
 }
@@ -0,0 +1,140 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tg.voyage_pro.reservation_pro.Model.ROLLUP_STATE;
+import tg.voyage_pro.reservation_pro.database.DailyStatsRepository;
+import tg.voyage_pro.reservation_pro.database.RollupStateRepository;
+import tg.voyage_pro.reservation_pro.dto.DailyStatsDTO;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Tenue à jour de daily_stats par jour « sale ».
+ *
+ * À chaque passage, les jours des réservations et paiements écrits depuis le dernier repère
+ * (updated_at &gt; watermark - rollup.overlap-ms) sont marqués dans daily_stats_dirty, puis
+ * chaque jour marqué est recalculé en entier (DELETE + INSERT ... GROUP BY) dans sa propre
+ * transaction. Le recouvrement rattrape les transactions validées après le passage précédent
+ * avec un updated_at antérieur à son début ; recalculer un jour deux fois est sans effet.
+ * Ce que updated_at ne révèle pas (suppression, réservation déplacée vers un autre jour,
+ * changement de prix d'un type de billet) est marqué par les services via {@link #days} et
+ * {@link #touch}. Un rattrapage ({@link #backfill}) ne fait que marquer une plage de jours ;
+ * le premier passage, sans repère, marque tout l'historique.
+ */
+@Component
+public class RollupService {
+
+    static final String NAME = "daily_stats";
+
+    @Value("${rollup.overlap-ms:300000}")
+    private long overlapMs;
+
+    @Value("${rollup.batch-days:100}")
+    private int batchDays;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DailyStatsRepository dsr;
+
+    @Autowired
+    private RollupStateRepository state;
+
+    /**
+     * Jours touchés par les réservations de {@code owner} (reservation, client, voyage, typeBillet,
+     * agent, paiement). À lire avant une suppression ou un déplacement, puis à passer à {@link #touch}.
+     */
+    public List<LocalDate> days(String owner, Object id) {
+        return this.dsr.findOwnerDays(owner, id);
+    }
+
+    /**
+     * Marque {@code days} à recalculer après le commit de la transaction courante (tout de suite
+     * hors transaction), pour qu'un passage ne les recalcule pas avant que l'écriture soit visible.
+     */
+    public void touch(Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        LocalDate[] marked = new LinkedHashSet<>(days).toArray(new LocalDate[0]);
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AfterCommit.run(() -> tx.executeWithoutResult(s -> this.dsr.markDays(marked, now())));
+    }
+
+    /**
+     * Marque les jours de [from, to] (par défaut du premier jour de l'historique à aujourd'hui) ;
+     * ils sont recalculés au prochain passage. Rend le nombre de jours marqués.
+     */
+    public int backfill(LocalDate from, LocalDate to) {
+        LocalDate first = from != null ? from : this.dsr.findFirstDay();
+        LocalDate last = to != null ? to : LocalDate.now();
+        if (first == null) {
+            return 0;
+        }
+        if (first.isAfter(last)) {
+            throw new InvalidQueryException("Plage invalide : " + first + " est après " + last);
+        }
+        return this.dsr.markRange(first, last, now());
+    }
+
+    public List<DailyStatsDTO> report(LocalDate from, LocalDate to, Long voyageId, Long typeBilletId, String interval) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidQueryException("Plage invalide : " + from + " est après " + to);
+        }
+        return this.dsr.report(from, to, voyageId, typeBilletId, interval);
+    }
+
+    @Scheduled(fixedDelayString = "${rollup.interval-ms:60000}", initialDelayString = "${rollup.interval-ms:60000}")
+    public void refresh() {
+        Timestamp start = now();
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+
+        tx.executeWithoutResult(s -> {
+            ROLLUP_STATE current = this.state.findById(NAME).orElse(null);
+            if (current == null) {
+                LocalDate first = this.dsr.findFirstDay();
+                if (first != null) {
+                    this.dsr.markRange(first, LocalDate.now(), start);
+                }
+                current = new ROLLUP_STATE();
+                current.setName(NAME);
+            } else {
+                this.dsr.markChangedSince(new Timestamp(current.getWatermark().getTime() - this.overlapMs), start);
+            }
+            current.setWatermark(start);
+            this.state.save(current);
+        });
+
+        // Seuls les jours marqués avant start sont traités : la boucle se termine même sous écriture
+        int size = Math.max(1, this.batchDays);
+        List<LocalDate> days;
+        do {
+            days = this.dsr.findDirtyDays(start, size);
+            for (LocalDate day : days) {
+                tx.executeWithoutResult(s -> {
+                    this.dsr.deleteDay(day);
+                    this.dsr.insertDay(day, day.plusDays(1));
+                    this.dsr.clearDirty(day, start);
+                });
+            }
+        } while (days.size() == size);
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
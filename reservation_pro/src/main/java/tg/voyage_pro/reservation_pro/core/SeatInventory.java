@@ -0,0 +1,199 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.exceptions.SeatsUnavailableException;
+
+/**
+ * Stock de places par voyage.
+ *
+ * Un compteur en mémoire (CAS sur un AtomicInteger par voyage) sert de filtre rapide :
+ * une demande qui ne peut pas être servie est rejetée sans toucher la base. Les demandes
+ * acceptées sont ensuite confirmées par un UPDATE conditionnel sur voyage.places_restantes,
+ * qui reste la source de vérité (plusieurs instances, rollback...).
+ * Les voyages sans capacité (places_restantes NULL) ne sont pas limités.
+ *
+ * La ligne du voyage n'est jamais verrouillée par la transaction de l'appelant : les UPDATE
+ * passent dans une courte transaction à part (REQUIRES_NEW), sans quoi toutes les ventes d'un
+ * même voyage attendraient le commit de la précédente. Une réservation prend ses places tout de
+ * suite et les rend si la transaction de l'appelant est annulée ; une libération ne rend les
+ * places qu'après son commit. Un arrêt entre les deux étapes laisse des places retenues en trop
+ * (jamais de survente) jusqu'au prochain recalcul ({@code VoyageRepository#recomputeRemainingSeats},
+ * à chaque changement de capacité).
+ */
+@Component
+public class SeatInventory {
+
+    static final int UNLIMITED = Integer.MAX_VALUE;
+
+    @Autowired
+    private VoyageRepository vr;
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> remaining = new ConcurrentHashMap<>();
+
+    public static boolean holdsSeats(String status) {
+        return !"CANCELLED".equals(status) && !"EXPIRED".equals(status);
+    }
+
+    /**
+     * Retient {@code places} sur le voyage. Appelé dans la transaction qui enregistre la
+     * réservation : en cas de rollback, les places sont rendues à la base et au compteur.
+     */
+    public void reserve(Long idVoyage, int places) {
+        if (places <= 0) {
+            return;
+        }
+        AtomicInteger counter = counter(idVoyage);
+        if (counter.get() == UNLIMITED) {
+            return;
+        }
+        if (!tryTake(counter, places)) {
+            // Le compteur a pu être libéré par une autre instance : on relit la base une fois
+            counter = reload(idVoyage);
+            if (counter.get() == UNLIMITED) {
+                return;
+            }
+            if (!tryTake(counter, places)) {
+                throw new SeatsUnavailableException("Plus assez de places disponibles pour le voyage " + idVoyage);
+            }
+        }
+
+        if (!write(idVoyage, () -> this.vr.decrementRemainingSeats(idVoyage, places))) {
+            // Compteur en avance sur la base : on le resynchronise et on refuse
+            reload(idVoyage);
+            throw new SeatsUnavailableException("Plus assez de places disponibles pour le voyage " + idVoyage);
+        }
+
+        final AtomicInteger taken = counter;
+        AfterCommit.afterCompletion(null, () -> {
+            write(idVoyage, () -> this.vr.incrementRemainingSeats(idVoyage, places));
+            give(taken, places);
+        });
+    }
+
+    /**
+     * Rend {@code places} au voyage, après le commit de l'appelant pour ne pas revendre des
+     * places encore retenues.
+     */
+    public void release(Long idVoyage, int places) {
+        if (places <= 0) {
+            return;
+        }
+        AfterCommit.afterCompletion(() -> {
+            if (write(idVoyage, () -> this.vr.incrementRemainingSeats(idVoyage, places))) {
+                AtomicInteger counter = this.remaining.get(idVoyage);
+                if (counter != null) {
+                    give(counter, places);
+                }
+            }
+        }, null);
+    }
+
+    /**
+     * Places restantes connues en mémoire, ou {@code null} si le voyage n'est pas limité.
+     */
+    public Integer remaining(Long idVoyage) {
+        int value = counter(idVoyage).get();
+        return value == UNLIMITED ? null : value;
+    }
+
+    /**
+     * Amorce le compteur d'un voyage avec une valeur déjà lue (chargement en masse) ; un
+     * compteur existant est conservé.
+     */
+    public void prime(Long idVoyage, Integer places) {
+        this.remaining.putIfAbsent(idVoyage, new AtomicInteger(places == null ? UNLIMITED : places));
+    }
+
+    /**
+     * Remplace le compteur d'un voyage par une valeur relue en base (écritures d'une autre
+     * instance). Une retenue en cours peut être perdue de vue jusqu'à son UPDATE, qui reste
+     * conditionnel : au pire une demande est refusée après relecture, jamais de survente.
+     */
+    public void refresh(Long idVoyage, Integer places) {
+        int value = places == null ? UNLIMITED : places;
+        this.remaining.compute(idVoyage, (id, counter) -> {
+            if (counter == null) {
+                return new AtomicInteger(value);
+            }
+            counter.set(value);
+            return counter;
+        });
+    }
+
+    /**
+     * Oublie le compteur d'un voyage (capacité modifiée, voyage supprimé) :
+     * il sera relu depuis la base au prochain accès.
+     */
+    public void evict(Long idVoyage) {
+        this.remaining.remove(idVoyage);
+    }
+
+    private AtomicInteger counter(Long idVoyage) {
+        return this.remaining.computeIfAbsent(idVoyage, id -> new AtomicInteger(load(id)));
+    }
+
+    private AtomicInteger reload(Long idVoyage) {
+        AtomicInteger counter = counter(idVoyage);
+        counter.set(load(idVoyage));
+        return counter;
+    }
+
+    // UPDATE de places_restantes dans sa propre transaction ; false si aucune ligne modifiée
+    private boolean write(Long idVoyage, IntSupplier update) {
+        TransactionTemplate tx = new TransactionTemplate(this.transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            if (update.getAsInt() == 0) {
+                return false;
+            }
+            // places_restantes fait partie de la liste des voyages : une reconstruction par
+            // regroupement, pas par réservation (les places exactes : disponibilités)
+            this.versions.changedLater(ChangeVersions.VOYAGES);
+            this.changes.upserted(ChangeFeed.VOYAGE, idVoyage);
+            return true;
+        }));
+    }
+
+    private int load(Long idVoyage) {
+        Integer places = this.vr.findRemainingSeats(idVoyage);
+        return places == null ? UNLIMITED : places;
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int places) {
+        for (;;) {
+            int current = counter.get();
+            if (current == UNLIMITED) {
+                return true;
+            }
+            if (current < places) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - places)) {
+                return true;
+            }
+        }
+    }
+
+    private static void give(AtomicInteger counter, int places) {
+        counter.getAndUpdate(current -> current == UNLIMITED ? current : current + places);
+    }
+}
@@ -0,0 +1,158 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roue de temporisation hiérarchique (échéances identifiées par un id long).
+ *
+ * Le niveau 0 a {@code wheelSize} cases de {@code tickMs} ; chaque niveau supérieur a des cases
+ * {@code wheelSize} fois plus larges et n'est créé qu'au besoin. Une échéance lointaine est
+ * rangée dans un niveau haut puis redescendue (cascade) quand sa case arrive. Planifier et
+ * annuler sont en O(1) ; {@link #advance(long)} ne touche que les cases traversées.
+ * Les échéances sont rendues au plus tard un tick après leur heure, jamais avant.
+ */
+public class TimingWheel {
+
+    private static final class Entry {
+        final long id;
+        final long deadline;
+        Set<Entry> bucket;
+
+        Entry(long id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<List<Set<Entry>>> levels = new ArrayList<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long currentTime;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs > 0 et wheelSize >= 2 attendus");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+    }
+
+    /**
+     * Planifie (ou replanifie) l'échéance de {@code id}. Rend {@code false} si l'échéance est
+     * déjà passée : elle n'est pas retenue et l'appelant doit la traiter lui-même.
+     */
+    public synchronized boolean schedule(long id, long deadlineMs) {
+        cancel(id);
+        // Arrondi au tick supérieur : une échéance ne sort jamais avant son heure
+        long rounded = Math.floorDiv(deadlineMs, this.tickMs) * this.tickMs;
+        Entry entry = new Entry(id, rounded < deadlineMs ? rounded + this.tickMs : rounded);
+        if (!place(entry)) {
+            return false;
+        }
+        this.entries.put(id, entry);
+        return true;
+    }
+
+    public synchronized boolean cancel(long id) {
+        Entry entry = this.entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        return true;
+    }
+
+    /**
+     * Fait avancer la roue jusqu'à {@code nowMs} et rend les ids arrivés à échéance.
+     */
+    public synchronized List<Long> advance(long nowMs) {
+        List<Long> due = new ArrayList<>();
+        while (this.currentTime + this.tickMs <= nowMs) {
+            this.currentTime += this.tickMs;
+            // Les niveaux hauts d'abord : leurs entrées peuvent retomber dans la case courante du niveau 0
+            for (int level = this.levels.size() - 1; level >= 1; level--) {
+                long span = span(level);
+                if (this.currentTime % span == 0) {
+                    for (Entry entry : drain(level, slot(this.currentTime, span))) {
+                        if (!place(entry)) {
+                            expire(entry, due);
+                        }
+                    }
+                }
+            }
+            if (!this.levels.isEmpty()) {
+                for (Entry entry : drain(0, slot(this.currentTime, this.tickMs))) {
+                    expire(entry, due);
+                }
+            }
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    // Range l'entrée au plus bas niveau qui couvre son échéance ; false si elle est déjà échue
+    private boolean place(Entry entry) {
+        for (int level = 0; ; level++) {
+            long span = span(level);
+            long diff = Math.floorDiv(entry.deadline, span) - Math.floorDiv(this.currentTime, span);
+            if (level == 0 && diff <= 0) {
+                return false;
+            }
+            if (diff < this.wheelSize) {
+                Set<Entry> bucket = bucket(level, slot(entry.deadline, span));
+                bucket.add(entry);
+                entry.bucket = bucket;
+                return true;
+            }
+        }
+    }
+
+    private void expire(Entry entry, List<Long> due) {
+        this.entries.remove(entry.id);
+        due.add(entry.id);
+    }
+
+    private List<Entry> drain(int level, int slot) {
+        if (level >= this.levels.size()) {
+            return List.of();
+        }
+        Set<Entry> bucket = this.levels.get(level).get(slot);
+        List<Entry> drained = new ArrayList<>(bucket);
+        bucket.clear();
+        return drained;
+    }
+
+    private Set<Entry> bucket(int level, int slot) {
+        while (this.levels.size() <= level) {
+            List<Set<Entry>> buckets = new ArrayList<>(this.wheelSize);
+            for (int i = 0; i < this.wheelSize; i++) {
+                buckets.add(new HashSet<>());
+            }
+            this.levels.add(buckets);
+        }
+        return this.levels.get(level).get(slot);
+    }
+
+    // Largeur d'une case du niveau : tickMs * wheelSize^level
+    private long span(int level) {
+        long span = this.tickMs;
+        for (int i = 0; i < level; i++) {
+            span = Math.multiplyExact(span, this.wheelSize);
+        }
+        return span;
+    }
+
+    private int slot(long time, long span) {
+        return (int) Math.floorMod(Math.floorDiv(time, span), (long) this.wheelSize);
+    }
+}
@@ -1,14 +1,21 @@
 package tg.voyage_pro.reservation_pro.core;
 
  
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
  
 import org.springframework.beans.factory.annotation.Autowired;
  
 import org.springframework.stereotype.Service;
 
 import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
+import tg.voyage_pro.reservation_pro.database.KeysetPager;
 import tg.voyage_pro.reservation_pro.database.TypeBilletRepository;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
 import tg.voyage_pro.reservation_pro.mappers.TypeBilletMapper;
 
@@ -20,20 +27,57 @@ public class TypeBilletService {
     @Autowired
     private TypeBilletMapper  mapper;
 
+    @Autowired
+    private KeysetPager pager ;
+
+    @Autowired
+    private KpiService kpi ;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private RollupService rollup ;
+
+    @Autowired
+    private ReferenceCaches caches ;
+
+    @Autowired
+    private ChangeVersions versions ;
+
+    @Autowired
+    private ChangeFeed changes ;
+
+    private static final Set<String> SORT_KEYS = Set.of("idTypeBillet", "libelleTypeBillet", "prixTypeBillet");
+
     public TypeBilletDTO create(TypeBilletDTO dto) {
         TYPE_BILLET entity = mapper.toEntity(dto);
         TYPE_BILLET saved = repo.save(entity);
+        caches.invalidateAll(caches.typesBilletListe);
+        versions.changed(ChangeVersions.TYPES_BILLET);
+        changes.upserted(ChangeFeed.TYPE_BILLET, saved.getIdTypeBillet());
         return mapper.toDto(saved);
     }
 
+    // Servi depuis le cache : les types de billet ne changent presque jamais
     public List<TypeBilletDTO> all() {
-        List<TYPE_BILLET> entities = repo.findAll();
-        return mapper.toListDto(entities);
+        return caches.typesBilletListe.get(ReferenceCaches.ALL,
+                k -> Collections.unmodifiableList(mapper.toListDto(repo.findAll())));
+    }
+
+    public PageResponse<TypeBilletDTO> page(ListQuery query) {
+        return pager.page(TYPE_BILLET.class, "idTypeBillet", SORT_KEYS, "idTypeBillet,desc", query, null)
+                .map(mapper::toListDto);
     }
 
     public boolean delete(Long idType){
         if(this.repo.existsById(idType)){
+            List<LocalDate> days = this.rollup.days("typeBillet", idType);
             this.repo.deleteById(idType);
+            this.rollup.touch(days);
+            this.invalidate(idType);
+            this.kpi.invalidate();
+            this.availability.clear();
             return true ; 
         }
         return false  ;
@@ -49,14 +93,31 @@ public class TypeBilletService {
         var id  = t.getIdTypeBillet() ; 
         t =  this.mapper.toEntity(type) ; 
         t.setIdTypeBillet(id);
+        // Le prix entre dans le revenu des réservations déjà comptées
+        this.kpi.invalidate();
+        List<LocalDate> days = this.rollup.days("typeBillet", id);
 
-     
-
-        return this.mapper.toDto(this.repo.save(t));
+        TypeBilletDTO saved = this.mapper.toDto(this.repo.save(t));
+        this.rollup.touch(days);
+        this.invalidate(id);
+        this.changes.upserted(ChangeFeed.TYPE_BILLET, id);
+        return saved;
     }
 
     public TypeBilletDTO get(Long id) {
-        TYPE_BILLET entity = repo.findById(id).orElseThrow();
-        return mapper.toDto(entity);
+        return Optional.ofNullable(find(id)).orElseThrow();
+    }
+
+    /**
+     * Type de billet depuis le cache, ou null s'il n'existe pas.
+     */
+    public TypeBilletDTO find(Long id) {
+        return caches.typesBillet.get(id, k -> repo.findById(k).map(mapper::toDto).orElse(null));
+    }
+
+    private void invalidate(Long id) {
+        caches.invalidate(caches.typesBillet, id);
+        caches.invalidateAll(caches.typesBilletListe);
+        versions.changed(ChangeVersions.TYPES_BILLET);
     }
 }
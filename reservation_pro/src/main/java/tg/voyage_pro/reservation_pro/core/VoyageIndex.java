@@ -0,0 +1,276 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index des voyages par trajet et par date.
+ *
+ * Chaque trajet (ville de départ, ville d'arrivée, normalisées par {@link #normalize}) a une
+ * {@code NavigableMap} jour → voyages du jour ; les voyages d'un jour sont deux tableaux
+ * primitifs (ids, prix) triés par prix, remplacés en entier à chaque écriture. Une recherche
+ * lit la tranche de dates du ou des trajets concernés et s'arrête dès que les {@code limit}
+ * meilleurs résultats (date, puis prix) sont connus.
+ *
+ * Les lectures sont sans verrou et peuvent tourner pendant une écriture ; les écritures
+ * ({@link #put}, {@link #remove}) doivent être sérialisées par l'appelant.
+ */
+public class VoyageIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("[\\s\\-_']+");
+
+    // Séparateur des deux villes dans la clé d'un trajet ; normalize le remplace par un espace
+    private static final char SEPARATOR = '\t';
+
+    private record Hit(int day, double prix, long id) {
+    }
+
+    private static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::day)
+            .thenComparingDouble(Hit::prix).thenComparingLong(Hit::id);
+
+    private record Entry(String depart, String arrive, int day, double prix) {
+        String route() {
+            return depart + SEPARATOR + arrive;
+        }
+    }
+
+    // Voyages d'un trajet pour un jour, triés par (prix, id) ; immuable
+    private static final class Day {
+        static final Day EMPTY = new Day(new long[0], new double[0]);
+
+        final long[] ids;
+        final double[] prix;
+
+        Day(long[] ids, double[] prix) {
+            this.ids = ids;
+            this.prix = prix;
+        }
+
+        Day with(long id, double p) {
+            int at = 0;
+            while (at < ids.length && (prix[at] < p || (prix[at] == p && ids[at] < id))) {
+                at++;
+            }
+            long[] i = new long[ids.length + 1];
+            double[] q = new double[ids.length + 1];
+            System.arraycopy(ids, 0, i, 0, at);
+            System.arraycopy(prix, 0, q, 0, at);
+            i[at] = id;
+            q[at] = p;
+            System.arraycopy(ids, at, i, at + 1, ids.length - at);
+            System.arraycopy(prix, at, q, at + 1, ids.length - at);
+            return new Day(i, q);
+        }
+
+        Day without(long id) {
+            for (int at = 0; at < ids.length; at++) {
+                if (ids[at] == id) {
+                    long[] i = new long[ids.length - 1];
+                    double[] q = new double[ids.length - 1];
+                    System.arraycopy(ids, 0, i, 0, at);
+                    System.arraycopy(prix, 0, q, 0, at);
+                    System.arraycopy(ids, at + 1, i, at, ids.length - at - 1);
+                    System.arraycopy(prix, at + 1, q, at, ids.length - at - 1);
+                    return new Day(i, q);
+                }
+            }
+            return this;
+        }
+
+        // Nombre de voyages dont le prix est <= max
+        int upTo(double max) {
+            int lo = 0;
+            int hi = prix.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prix[mid] <= max) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Integer, Day>> routes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> routesByDepart = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> routesByArrive = new ConcurrentHashMap<>();
+
+    /**
+     * Forme de comparaison d'un nom de ville : sans accents, en minuscules, espaces, tirets et
+     * apostrophes réduits à un espace ({@code "Lomé"}, {@code "LOME "} → {@code "lome"}).
+     */
+    public static String normalize(String city) {
+        if (city == null) {
+            return "";
+        }
+        String s = MARKS.matcher(Normalizer.normalize(city, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(s).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Ajoute ou déplace le voyage {@code id}. Un voyage sans ville ou sans date n'est pas indexé.
+     */
+    public void put(long id, String depart, String arrive, LocalDate date, double prix) {
+        String d = normalize(depart);
+        String a = normalize(arrive);
+        if (d.isEmpty() || a.isEmpty() || date == null) {
+            remove(id);
+            return;
+        }
+        Entry entry = new Entry(d, a, (int) date.toEpochDay(), prix);
+        Entry old = this.entries.put(id, entry);
+        if (entry.equals(old)) {
+            return;
+        }
+        String route = entry.route();
+        NavigableMap<Integer, Day> days = this.routes.computeIfAbsent(route, k -> new ConcurrentSkipListMap<>());
+        Day current = days.getOrDefault(entry.day(), Day.EMPTY);
+        if (old != null && old.route().equals(route) && old.day() == entry.day()) {
+            // Même jour, autre prix : remplacement en une écriture
+            days.put(entry.day(), current.without(id).with(id, prix));
+            return;
+        }
+        // Ajout avant retrait : un voyage déplacé reste visible à l'une de ses deux places
+        days.put(entry.day(), current.with(id, prix));
+        this.routesByDepart.computeIfAbsent(d, k -> ConcurrentHashMap.newKeySet()).add(route);
+        this.routesByArrive.computeIfAbsent(a, k -> ConcurrentHashMap.newKeySet()).add(route);
+        if (old != null) {
+            unlink(id, old);
+        }
+    }
+
+    public boolean remove(long id) {
+        Entry old = this.entries.remove(id);
+        if (old == null) {
+            return false;
+        }
+        unlink(id, old);
+        return true;
+    }
+
+    /**
+     * Ids des voyages de {@code depart} vers {@code arrive} (villes vides = toutes) entre
+     * {@code from} et {@code to} inclus (null = sans borne), de prix {@code <= maxPrix}, triés par
+     * date, prix puis id ; au plus {@code limit}.
+     */
+    public long[] search(String depart, String arrive, LocalDate from, LocalDate to, double maxPrix, int limit) {
+        if (limit <= 0) {
+            return new long[0];
+        }
+        String d = normalize(depart);
+        String a = normalize(arrive);
+        Collection<String> candidates;
+        if (!d.isEmpty() && !a.isEmpty()) {
+            candidates = List.of(d + SEPARATOR + a);
+        } else if (!d.isEmpty()) {
+            candidates = this.routesByDepart.getOrDefault(d, Set.of());
+        } else if (!a.isEmpty()) {
+            candidates = this.routesByArrive.getOrDefault(a, Set.of());
+        } else {
+            candidates = this.routes.keySet();
+        }
+        Integer lo = from == null ? null : (int) from.toEpochDay();
+        Integer hi = to == null ? null : (int) to.toEpochDay();
+        if (lo != null && hi != null && lo > hi) {
+            return new long[0];
+        }
+
+        // Les limit meilleurs vus jusqu'ici ; la tête est le moins bon
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, ORDER.reversed());
+        for (String route : candidates) {
+            NavigableMap<Integer, Day> days = this.routes.get(route);
+            if (days == null) {
+                continue;
+            }
+            if (lo != null && hi != null) {
+                days = days.subMap(lo, true, hi, true);
+            } else if (lo != null) {
+                days = days.tailMap(lo, true);
+            } else if (hi != null) {
+                days = days.headMap(hi, true);
+            }
+            for (Map.Entry<Integer, Day> e : days.entrySet()) {
+                int day = e.getKey();
+                if (best.size() == limit && day > best.peek().day()) {
+                    break;
+                }
+                Day voyages = e.getValue();
+                int n = voyages.upTo(maxPrix);
+                for (int i = 0; i < n; i++) {
+                    Hit hit = new Hit(day, voyages.prix[i], voyages.ids[i]);
+                    if (best.size() < limit) {
+                        best.add(hit);
+                    } else if (ORDER.compare(hit, best.peek()) < 0) {
+                        best.poll();
+                        best.add(hit);
+                    } else {
+                        // Les suivants du même jour sont plus chers
+                        break;
+                    }
+                }
+            }
+        }
+
+        Hit[] hits = best.toArray(new Hit[0]);
+        Arrays.sort(hits, ORDER);
+        long[] ids = new long[hits.length];
+        for (int i = 0; i < hits.length; i++) {
+            ids[i] = hits[i].id();
+        }
+        return ids;
+    }
+
+    private void unlink(long id, Entry entry) {
+        String route = entry.route();
+        NavigableMap<Integer, Day> days = this.routes.get(route);
+        if (days == null) {
+            return;
+        }
+        Day day = days.get(entry.day());
+        if (day != null) {
+            Day rest = day.without(id);
+            if (rest.ids.length == 0) {
+                days.remove(entry.day());
+            } else {
+                days.put(entry.day(), rest);
+            }
+        }
+        if (days.isEmpty()) {
+            this.routes.remove(route);
+            Set<String> byDepart = this.routesByDepart.get(entry.depart());
+            if (byDepart != null) {
+                byDepart.remove(route);
+                if (byDepart.isEmpty()) {
+                    this.routesByDepart.remove(entry.depart());
+                }
+            }
+            Set<String> byArrive = this.routesByArrive.get(entry.arrive());
+            if (byArrive != null) {
+                byArrive.remove(route);
+                if (byArrive.isEmpty()) {
+                    this.routesByArrive.remove(entry.arrive());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.ItineraireDTO;
+import tg.voyage_pro.reservation_pro.dto.ItinerairesDTO;
+import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
+import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+import tg.voyage_pro.reservation_pro.exceptions.TypeBilletNotFoundException;
+
+/**
+ * Recherche de voyages, autocomplétion des villes et itinéraires avec correspondances servis
+ * depuis la mémoire.
+ *
+ * Tous les voyages sont chargés au démarrage (une requête de projection) dans un
+ * {@link VoyageIndex}, un {@link CityIndex}, un {@link ItineraryGraph} et une table id → voyage ;
+ * {@link VoyageService} y reporte ses écritures après commit. Un voyage dont les heures de
+ * départ ou d'arrivée ne sont pas lisibles n'entre pas dans les itinéraires. Les places restantes viennent des compteurs de
+ * {@link SeatInventory}, amorcés au chargement : une recherche ne lit pas la base. L'index est rechargé toutes les
+ * {@code voyage.index.resync-ms} pour rattraper les écritures d'une autre instance.
+ */
+@Component
+public class VoyageSearchService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+    public static final int DEFAULT_SUGGESTIONS = 8;
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final int DEFAULT_LEGS = 3;
+    public static final int MAX_LEGS = 4;
+    public static final int DEFAULT_DAYS = 2;
+    public static final int MAX_DAYS = 7;
+
+    private static final class State {
+        final VoyageIndex index = new VoyageIndex();
+        final CityIndex villes = new CityIndex();
+        final Map<Long, VoyageDTO> voyages = new ConcurrentHashMap<>();
+        // Remplacé en entier à chaque écriture
+        volatile ItineraryGraph graph = ItineraryGraph.EMPTY;
+    }
+
+    @Value("${itinerary.min-connection-minutes:60}")
+    private int minConnection;
+
+    @Autowired
+    private VoyageRepository vr;
+
+    @Autowired
+    private TypeBilletService typesBillet;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    private volatile State state;
+
+    public List<VoyageDTO> search(String depart, String arrive, LocalDate from, LocalDate to, Double prixMax, Integer limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidQueryException("Plage invalide : " + from + " est après " + to);
+        }
+        if (prixMax != null && prixMax < 0) {
+            throw new InvalidQueryException("prixMax doit être positif");
+        }
+        State s = this.state;
+        if (s == null) {
+            rebuild();
+            s = this.state;
+        }
+        int max = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        long[] ids = s.index.search(depart, arrive, from, to, prixMax == null ? Double.MAX_VALUE : prixMax, max);
+        List<VoyageDTO> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            VoyageDTO v = s.voyages.get(id);
+            if (v != null) {
+                result.add(copy(v, this.seatInventory.remaining(id)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Villes de départ et / ou d'arrivée commençant par {@code q}, les plus desservies d'abord.
+     */
+    public List<CityIndex.Suggestion> villes(String q, String role, Integer limit) {
+        String r = role == null || role.isBlank() ? null : role.trim().toLowerCase();
+        if (r != null && !r.equals(CityIndex.DEPART) && !r.equals(CityIndex.ARRIVEE)) {
+            throw new InvalidQueryException("Rôle invalide : " + role + " (depart ou arrivee)");
+        }
+        State s = this.state;
+        if (s == null) {
+            rebuild();
+            s = this.state;
+        }
+        int max = limit == null || limit <= 0 ? DEFAULT_SUGGESTIONS : Math.min(limit, MAX_SUGGESTIONS);
+        return s.villes.suggest(q, r, max);
+    }
+
+    /**
+     * Itinéraires de {@code depart} à {@code arrivee} en au plus {@code etapes} voyages partant
+     * entre {@code date} à {@code heure} (00:00 par défaut) et {@code jours} jours plus tard :
+     * celui qui arrive le plus tôt et le moins cher. Avec {@code idTypeBillet}, le prix du type de
+     * billet est compté pour chaque voyage.
+     */
+    public ItinerairesDTO itineraires(String depart, String arrivee, LocalDate date, String heure, Integer jours,
+                                      Integer etapes, Long idTypeBillet, Integer correspondance) {
+        if (depart == null || depart.isBlank() || arrivee == null || arrivee.isBlank()) {
+            throw new InvalidQueryException("Indiquer une ville de départ et une ville d'arrivée.");
+        }
+        int minute = heure == null || heure.isBlank() ? 0 : ItineraryGraph.parseHeure(heure);
+        if (minute < 0) {
+            throw new InvalidQueryException("Heure invalide : " + heure + " (HH:mm)");
+        }
+        if (correspondance != null && correspondance < 0) {
+            throw new InvalidQueryException("La correspondance minimale doit être positive");
+        }
+        double prixType = 0;
+        if (idTypeBillet != null) {
+            TypeBilletDTO type = this.typesBillet.find(idTypeBillet);
+            if (type == null) {
+                throw new TypeBilletNotFoundException("Type de billet introuvable : " + idTypeBillet);
+            }
+            prixType = type.getPrixTypeBillet() == null ? 0 : type.getPrixTypeBillet();
+        }
+        State s = this.state;
+        if (s == null) {
+            rebuild();
+            s = this.state;
+        }
+        int nbJours = jours == null || jours <= 0 ? DEFAULT_DAYS : Math.min(jours, MAX_DAYS);
+        int nbEtapes = etapes == null || etapes <= 0 ? DEFAULT_LEGS : Math.min(etapes, MAX_LEGS);
+        int start = (int) (date == null ? LocalDate.now() : date).toEpochDay() * 1440 + minute;
+
+        ItineraryGraph.Result result = s.graph.search(depart, arrivee, start, start + nbJours * 1440 - 1, nbEtapes,
+                correspondance == null ? this.minConnection : correspondance, prixType);
+        return new ItinerairesDTO(itineraire(s, result.plusTot()), itineraire(s, result.moinsCher()));
+    }
+
+    /**
+     * Reporte un voyage créé ou modifié dans l'index, après le commit de la transaction courante.
+     */
+    public void saved(VoyageDTO voyage) {
+        VoyageDTO v = copy(voyage, voyage.getPlacesRestantes());
+        AfterCommit.run(() -> apply(v.getIdVoyage(), v));
+    }
+
+    public void deleted(Long idVoyage) {
+        AfterCommit.run(() -> apply(idVoyage, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${voyage.index.resync-ms:600000}", initialDelayString = "${voyage.index.resync-ms:600000}")
+    public synchronized void rebuild() {
+        State fresh = new State();
+        List<ItineraryGraph.Connection> connections = new ArrayList<>();
+        for (VoyageDTO v : this.vr.findAllForIndex()) {
+            put(fresh, v);
+            ItineraryGraph.Connection c = connection(v);
+            if (c != null) {
+                connections.add(c);
+            }
+            this.seatInventory.prime(v.getIdVoyage(), v.getPlacesRestantes());
+        }
+        fresh.graph = ItineraryGraph.of(connections);
+        this.state = fresh;
+    }
+
+    // Sérialisé avec rebuild : une écriture validée pendant un rechargement s'applique à l'index neuf
+    private synchronized void apply(Long idVoyage, VoyageDTO voyage) {
+        State s = this.state;
+        if (s == null) {
+            return;
+        }
+        if (voyage == null) {
+            s.index.remove(idVoyage);
+            s.graph = s.graph.without(idVoyage);
+            VoyageDTO old = s.voyages.remove(idVoyage);
+            if (old != null) {
+                s.villes.add(old.getDepartVoyage(), -1, 0);
+                s.villes.add(old.getArriveVoyage(), 0, -1);
+            }
+        } else {
+            put(s, voyage);
+            ItineraryGraph.Connection c = connection(voyage);
+            s.graph = c == null ? s.graph.without(idVoyage) : s.graph.with(c);
+            // Compteur évincé par un changement de capacité : relu ici plutôt qu'à la recherche
+            this.seatInventory.prime(idVoyage, voyage.getPlacesRestantes());
+        }
+    }
+
+    private static void put(State s, VoyageDTO v) {
+        VoyageDTO old = s.voyages.put(v.getIdVoyage(), v);
+        if (old != null) {
+            s.villes.add(old.getDepartVoyage(), -1, 0);
+            s.villes.add(old.getArriveVoyage(), 0, -1);
+        }
+        s.villes.add(v.getDepartVoyage(), 1, 0);
+        s.villes.add(v.getArriveVoyage(), 0, 1);
+        s.index.put(v.getIdVoyage(), v.getDepartVoyage(), v.getArriveVoyage(), day(v.getDateVoyage()),
+                v.getPrix() == null ? 0 : v.getPrix());
+    }
+
+    // Liaison du voyage ; une arrivée pas après le départ est le lendemain
+    private static ItineraryGraph.Connection connection(VoyageDTO v) {
+        LocalDate day = day(v.getDateVoyage());
+        int departMinute = ItineraryGraph.parseHeure(v.getHeureDepart());
+        int arriveMinute = ItineraryGraph.parseHeure(v.getHeureArrivee());
+        if (day == null || departMinute < 0 || arriveMinute < 0) {
+            return null;
+        }
+        int base = (int) day.toEpochDay() * 1440;
+        int dep = base + departMinute;
+        int arr = base + arriveMinute;
+        return new ItineraryGraph.Connection(v.getIdVoyage(), v.getDepartVoyage(), v.getArriveVoyage(),
+                dep, arr <= dep ? arr + 1440 : arr, v.getPrix() == null ? 0 : v.getPrix());
+    }
+
+    private ItineraireDTO itineraire(State s, ItineraryGraph.Itinerary it) {
+        if (it == null) {
+            return null;
+        }
+        List<VoyageDTO> etapes = new ArrayList<>(it.ids().length);
+        for (long id : it.ids()) {
+            VoyageDTO v = s.voyages.get(id);
+            if (v != null) {
+                etapes.add(copy(v, this.seatInventory.remaining(id)));
+            }
+        }
+        return ItineraireDTO.builder()
+                .etapes(etapes)
+                .depart(dateTime(it.departMinute()))
+                .arrivee(dateTime(it.arriveMinute()))
+                .dureeMinutes(it.arriveMinute() - it.departMinute())
+                .correspondances(it.ids().length - 1)
+                .prixTotal(it.prix())
+                .build();
+    }
+
+    private static LocalDateTime dateTime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    static LocalDate day(Date date) {
+        if (date == null) {
+            return null;
+        }
+        // java.sql.Date / Timestamp (lus en base) sont en heure locale ; les dates JSON sont en UTC
+        if (date instanceof java.sql.Date d) {
+            return d.toLocalDate();
+        }
+        if (date instanceof java.sql.Timestamp t) {
+            return t.toLocalDateTime().toLocalDate();
+        }
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    static VoyageDTO copy(VoyageDTO v, Integer placesRestantes) {
+        return VoyageDTO.builder()
+                .idVoyage(v.getIdVoyage())
+                .departVoyage(v.getDepartVoyage())
+                .arriveVoyage(v.getArriveVoyage())
+                .heureDepart(v.getHeureDepart())
+                .heureArrivee(v.getHeureArrivee())
+                .dateVoyage(v.getDateVoyage())
+                .prix(v.getPrix())
+                .capacite(v.getCapacite())
+                .placesRestantes(placesRestantes)
+                .build();
+    }
+}
@@ -1,6 +1,9 @@
 package tg.voyage_pro.reservation_pro.core;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
  
  
 
@@ -11,8 +14,13 @@ import org.springframework.stereotype.Service;
 import jakarta.transaction.Transactional;
  
 import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+import tg.voyage_pro.reservation_pro.database.KeysetPager;
+import tg.voyage_pro.reservation_pro.database.ListFilters;
 import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
 import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
+import tg.voyage_pro.reservation_pro.exceptions.SeatsUnavailableException;
 import tg.voyage_pro.reservation_pro.exceptions.VoyageNotFoundException;
 import tg.voyage_pro.reservation_pro.mappers.VoyageMapper; // Changed import
 
@@ -31,6 +39,35 @@ public class VoyageService {
     @Autowired
     private VoyageMapper voyageMapper;
 
+    @Autowired
+    private SeatInventory seatInventory;
+
+    @Autowired
+    private KeysetPager pager;
+
+    @Autowired
+    private KpiService kpi;
+
+    @Autowired
+    private RollupService rollup;
+
+    @Autowired
+    private VoyageSearchService search;
+
+    @Autowired
+    private AvailabilityCache availability;
+
+    @Autowired
+    private ReferenceCaches caches;
+
+    @Autowired
+    private ChangeVersions versions;
+
+    @Autowired
+    private ChangeFeed changes;
+
+    private static final Set<String> SORT_KEYS = Set.of("idVoyage", "dateVoyage", "prix", "departVoyage", "arriveVoyage");
+
 
  
 
@@ -38,14 +75,33 @@ public class VoyageService {
 
 
     public VoyageDTO create(VoyageDTO voyage){
-        return this.mapper.toDto(
-                this.vr.save(this.mapper.toEntity(voyage)));
+        VOYAGE v = this.mapper.toEntity(voyage);
+        v.setPlacesRestantes(v.getCapacite());
+        VoyageDTO saved = this.mapper.toDto(this.vr.save(v));
+        this.search.saved(saved);
+        this.caches.invalidateAll(this.caches.voyagesListe);
+        this.versions.changed(ChangeVersions.VOYAGES);
+        this.changes.upserted(ChangeFeed.VOYAGE, saved.getIdVoyage());
+        return saved;
     }
 
 
 
+    // Liste en cache ; les places restantes viennent des compteurs en mémoire
     public List<VoyageDTO> getAll(){
-        return this.mapper.toDtos(this.vr.findAllByOrderByDateVoyageDesc()) ;
+        List<VoyageDTO> voyages = this.caches.voyagesListe.get(ReferenceCaches.ALL,
+                k -> this.mapper.toDtos(this.vr.findAllByOrderByDateVoyageDesc()));
+        List<VoyageDTO> result = new ArrayList<>(voyages.size());
+        for (VoyageDTO v : voyages) {
+            result.add(withSeats(v));
+        }
+        return result;
+    }
+
+    public PageResponse<VoyageDTO> page(ListQuery query){
+        return this.pager.page(VOYAGE.class, "idVoyage", SORT_KEYS, "dateVoyage,desc", query,
+                        ListFilters.<VOYAGE>between("dateVoyage", query.getFrom(), query.getTo()))
+                .map(this.mapper::toDtos);
     }
         
 
@@ -58,12 +114,40 @@ public class VoyageService {
 
         VOYAGE v = this.vr.findById(idVoyage).get() ;
          
+        // Les compteurs KPI par destination sont à reconstruire
+        if (voyage.getArriveVoyage() != null && !voyage.getArriveVoyage().equals(v.getArriveVoyage())) {
+            this.kpi.invalidate();
+        }
         v.setDateVoyage(voyage.getDateVoyage());
         v.setDepartVoyage(voyage.getDepartVoyage());
         v.setArriveVoyage(voyage.getArriveVoyage());
         v.setHeureDepart(voyage.getHeureDepart());
         v.setHeureArrivee(voyage.getHeureArrivee());
-        return this.mapper.toDto(this.vr.save(v)) ; 
+
+        // Capacité absente du payload = inchangée
+        boolean capaciteModifiee = voyage.getCapacite() != null && !voyage.getCapacite().equals(v.getCapacite());
+        if (capaciteModifiee) {
+            v.setCapacite(voyage.getCapacite());
+        }
+        VOYAGE saved = this.vr.save(v);
+        if (capaciteModifiee) {
+            this.vr.flush();
+            this.vr.recomputeRemainingSeats(idVoyage);
+            Integer restantes = this.vr.findRemainingSeats(idVoyage);
+            // Capacité sous les places déjà vendues : refusé (la transaction est annulée)
+            if (restantes != null && restantes < 0) {
+                throw new SeatsUnavailableException("La capacité du voyage " + idVoyage
+                        + " ne peut pas descendre sous les " + (voyage.getCapacite() - restantes) + " places déjà réservées");
+            }
+            this.seatInventory.evict(idVoyage);
+            this.availability.evict(idVoyage);
+            saved.setPlacesRestantes(restantes);
+        }
+        VoyageDTO dto = this.mapper.toDto(saved);
+        this.search.saved(dto);
+        this.invalidate(idVoyage);
+        this.changes.upserted(ChangeFeed.VOYAGE, idVoyage);
+        return dto ; 
         
 
         
@@ -72,7 +156,14 @@ public class VoyageService {
 
     public boolean delete(Long idVoyage){
         if(this.vr.existsById(idVoyage)){
+            List<LocalDate> days = this.rollup.days("voyage", idVoyage);
             this.vr.deleteById(idVoyage);
+            this.rollup.touch(days);
+            this.seatInventory.evict(idVoyage);
+            this.availability.evict(idVoyage);
+            this.search.deleted(idVoyage);
+            this.invalidate(idVoyage);
+            this.kpi.invalidate();
             return true ; 
         }
         return false ; 
@@ -85,7 +176,17 @@ public class VoyageService {
     }
 
     public VoyageDTO getDto(Long id) {
-        VOYAGE v = this.get(id); // ou findById(id) selon votre code
-        return voyageMapper.toDto(v);
+        VoyageDTO v = this.caches.voyages.get(id, k -> voyageMapper.toDto(this.get(k)));
+        return v == null ? null : withSeats(v);
+    }
+
+    private VoyageDTO withSeats(VoyageDTO v) {
+        return VoyageSearchService.copy(v, this.seatInventory.remaining(v.getIdVoyage()));
+    }
+
+    private void invalidate(Long idVoyage) {
+        this.caches.invalidate(this.caches.voyages, idVoyage);
+        this.caches.invalidateAll(this.caches.voyagesListe);
+        this.versions.changed(ChangeVersions.VOYAGES);
     }
 }
@@ -0,0 +1,45 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import tg.voyage_pro.reservation_pro.Model.CHANGE_LOG;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<CHANGE_LOG, Long> {
+
+    // ids séparés par le caractère 31 (séparateur d'unités) ; dans la transaction de l'appelant
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO change_log (type, entity_id, op, xid, created_at) " +
+            "SELECT :type, id, :op, txid_current(), now() FROM unnest(string_to_array(:ids, chr(31))) AS id",
+            nativeQuery = true)
+    int append(@Param("type") String type, @Param("ids") String ids, @Param("op") String op);
+
+    @Query(value = "SELECT CAST(txid_current_snapshot() AS text)", nativeQuery = true)
+    String currentSnapshot();
+
+    /**
+     * Entrées validées après {@code since} et au plus tard dans {@code until} (deux instantanés
+     * txid_snapshot), de version supérieure à {@code after} : version, type, entity_id, op.
+     */
+    @Query(value = "SELECT c.version, c.type, c.entity_id, c.op FROM change_log c " +
+            "WHERE c.xid >= :sinceXmin AND c.version > :after " +
+            "AND txid_visible_in_snapshot(c.xid, CAST(:until AS txid_snapshot)) " +
+            "AND NOT txid_visible_in_snapshot(c.xid, CAST(:since AS txid_snapshot)) " +
+            "ORDER BY c.version LIMIT :limit", nativeQuery = true)
+    List<Object[]> between(@Param("since") String since, @Param("sinceXmin") long sinceXmin,
+                           @Param("until") String until, @Param("after") long after, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CHANGE_LOG c WHERE c.createdAt < :before")
+    int purge(@Param("before") Timestamp before);
+}
@@ -0,0 +1,12 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.util.List;
+
+import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.dto.ClientSearchQuery;
+
+public interface ClientSearchRepository {
+
+    List<CLIENT> search(ClientSearchQuery query);
+
+}
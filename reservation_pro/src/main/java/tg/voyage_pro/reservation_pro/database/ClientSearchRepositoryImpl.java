@@ -0,0 +1,114 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.dto.ClientSearchQuery;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Recherche de clients en une seule requête.
+ *
+ * Les sous-chaînes (nom/prénom, mail, téléphone) sont cherchées avec ILIKE '%x%', servi par
+ * les index GIN pg_trgm (voir database_update.sql) ; la date de naissance est un intervalle
+ * sur la colonne, servi par un index B-tree. Les résultats sont triés par distance trigramme
+ * ({@code <->}) au premier critère texte (nom, puis mail, puis téléphone), puis par id
+ * décroissant, et limités : ce tri est servi par les index GiST gist_trgm_ops (parcours du plus
+ * proche au plus loin, arrêté à la limite) au lieu de noter toutes les lignes trouvées.
+ */
+public class ClientSearchRepositoryImpl implements ClientSearchRepository {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // Même expression que l'index idx_client_nom_prenom_gist
+    private static final String NOM_PRENOM = "(c.nom_client || ' ' || c.prenom_client)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CLIENT> search(ClientSearchQuery q) {
+        List<String> conditions = new ArrayList<>();
+        List<String> distances = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+
+        if (hasText(q.getNom())) {
+            conditions.add("(c.nom_client ILIKE :nomPattern ESCAPE '\\' OR c.prenom_client ILIKE :nomPattern ESCAPE '\\')");
+            distances.add(NOM_PRENOM + " <-> :nom");
+            params.put("nom", q.getNom().trim());
+            params.put("nomPattern", contains(q.getNom()));
+        }
+        if (hasText(q.getMail())) {
+            conditions.add("c.mail_client ILIKE :mailPattern ESCAPE '\\'");
+            distances.add("c.mail_client <-> :mail");
+            params.put("mail", q.getMail().trim());
+            params.put("mailPattern", contains(q.getMail()));
+        }
+        if (hasText(q.getTel())) {
+            conditions.add("c.tel_client LIKE :telPattern ESCAPE '\\'");
+            distances.add("c.tel_client <-> :tel");
+            params.put("tel", q.getTel().trim());
+            params.put("telPattern", contains(q.getTel()));
+        }
+        if (hasText(q.getSexe())) {
+            conditions.add("c.sexe_client = :sexe");
+            params.put("sexe", q.getSexe().trim());
+        }
+        if (q.getDateNaissFrom() != null || q.getDateNaissTo() != null) {
+            List<String> range = new ArrayList<>();
+            if (q.getDateNaissFrom() != null) {
+                range.add("c.date_naiss >= :dateFrom");
+                params.put("dateFrom", new Timestamp(q.getDateNaissFrom().getTime()));
+            }
+            if (q.getDateNaissTo() != null) {
+                range.add("c.date_naiss < :dateBefore");
+                params.put("dateBefore", ListFilters.nextDay(q.getDateNaissTo()));
+            }
+            conditions.add("(" + String.join(" AND ", range) + ")");
+        }
+
+        String mode = q.getMode() == null ? "AND" : q.getMode().trim().toUpperCase();
+        if (!mode.equals("AND") && !mode.equals("OR")) {
+            throw new InvalidQueryException("Mode de recherche invalide : " + q.getMode() + " (AND ou OR)");
+        }
+        int limit = q.getLimit() == null ? DEFAULT_LIMIT : Math.max(1, Math.min(MAX_LIMIT, q.getLimit()));
+
+        StringBuilder sql = new StringBuilder("SELECT c.* FROM client c");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" " + mode + " ", conditions));
+        }
+        sql.append(" ORDER BY ");
+        if (!distances.isEmpty()) {
+            // Une seule distance : l'index ne sert le tri que sur une expression indexée
+            sql.append(distances.get(0)).append(", ");
+        }
+        sql.append("c.id_client DESC LIMIT :limit");
+
+        Query query = this.entityManager.createNativeQuery(sql.toString(), CLIENT.class);
+        params.forEach(query::setParameter);
+        query.setParameter("limit", limit);
+        return query.getResultList();
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    // Les jokers saisis par l'utilisateur sont recherchés littéralement
+    private static String contains(String value) {
+        String escaped = value.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,78 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import tg.voyage_pro.reservation_pro.Model.DAILY_STATS;
+
+@Repository
+public interface DailyStatsRepository extends JpaRepository<DAILY_STATS, DAILY_STATS.Key>, RollupQueryRepository {
+
+    // Jours touchés par une écriture depuis since (index reservation(updated_at) et paiement(updated_at))
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO daily_stats_dirty (day, marked_at) " +
+            "SELECT day, :now FROM (" +
+            "SELECT r.date_reservation AS day FROM reservation r WHERE r.updated_at > :since " +
+            "UNION SELECT CAST(p.date_paiement AS date) FROM paiement p WHERE p.updated_at > :since" +
+            ") changed WHERE day IS NOT NULL " +
+            "ON CONFLICT (day) DO UPDATE SET marked_at = EXCLUDED.marked_at",
+            nativeQuery = true)
+    int markChangedSince(@Param("since") Timestamp since, @Param("now") Timestamp now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO daily_stats_dirty (day, marked_at) " +
+            "SELECT day, :now FROM unnest(CAST(:days AS date[])) AS day " +
+            "ON CONFLICT (day) DO UPDATE SET marked_at = EXCLUDED.marked_at",
+            nativeQuery = true)
+    int markDays(@Param("days") LocalDate[] days, @Param("now") Timestamp now);
+
+    // Rattrapage : marque tous les jours de [from, to]
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO daily_stats_dirty (day, marked_at) " +
+            "SELECT CAST(d AS date), :now FROM generate_series(CAST(:from AS date), CAST(:to AS date), interval '1 day') AS d " +
+            "ON CONFLICT (day) DO UPDATE SET marked_at = EXCLUDED.marked_at",
+            nativeQuery = true)
+    int markRange(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("now") Timestamp now);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_stats WHERE day = :day", nativeQuery = true)
+    int deleteDay(@Param("day") LocalDate day);
+
+    // Recalcul complet d'un jour : un GROUP BY sur les réservations du jour et les paiements du jour
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (day, voyage_id, type_billet_id, reservations, places_vendues, " +
+            "revenu_confirme, paiements, montant_paye) " +
+            "SELECT CAST(:day AS date), x.voyage_id, x.type_billet_id, SUM(x.reservations), SUM(x.places), " +
+            "SUM(x.revenu), SUM(x.paiements), SUM(x.montant) FROM (" +
+            "SELECT COALESCE(r.voyage_id, 0) AS voyage_id, COALESCE(r.type_billet_id, 0) AS type_billet_id, " +
+            "1 AS reservations, " +
+            "CASE WHEN r.status = 'CONFIRMED' THEN COALESCE(r.nombre_places_reservees, 0) ELSE 0 END AS places, " +
+            "CASE WHEN r.status = 'CONFIRMED' THEN (COALESCE(v.prix, 0) + COALESCE(t.prix_type_billet, 0)) " +
+            "* COALESCE(r.nombre_places_reservees, 1) ELSE 0 END AS revenu, " +
+            "0 AS paiements, 0 AS montant " +
+            "FROM reservation r LEFT JOIN voyage v ON v.id_voyage = r.voyage_id " +
+            "LEFT JOIN type_billet t ON t.id_type_billet = r.type_billet_id " +
+            "WHERE r.date_reservation = :day " +
+            "UNION ALL " +
+            "SELECT COALESCE(r.voyage_id, 0), COALESCE(r.type_billet_id, 0), 0, 0, 0, 1, COALESCE(p.montant_paiement, 0) " +
+            "FROM paiement p LEFT JOIN reservation r ON r.id_reservation = p.reservation " +
+            "WHERE p.date_paiement >= :day AND p.date_paiement < :next" +
+            ") x GROUP BY x.voyage_id, x.type_billet_id",
+            nativeQuery = true)
+    int insertDay(@Param("day") LocalDate day, @Param("next") LocalDate next);
+
+    // Ne retire pas un jour remarqué pendant son recalcul
+    @Modifying
+    @Query(value = "DELETE FROM daily_stats_dirty WHERE day = :day AND marked_at <= :before", nativeQuery = true)
+    int clearDirty(@Param("day") LocalDate day, @Param("before") Timestamp before);
+}
@@ -0,0 +1,50 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import tg.voyage_pro.reservation_pro.Model.FACTURE;
+import tg.voyage_pro.reservation_pro.dto.FactureRow;
+
+@Repository
+public interface FactureRepository extends JpaRepository<FACTURE, Long> {
+
+    // (Re)demande la facture des réservations ids, en un seul ordre ; rejoint la transaction appelante
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO facture (id_reservation, status, requested_at) " +
+            "SELECT id, 'EN_ATTENTE', :now FROM unnest(CAST(:ids AS bigint[])) AS id " +
+            "ON CONFLICT (id_reservation) DO UPDATE SET status = 'EN_ATTENTE', requested_at = :now, erreur = NULL",
+            nativeQuery = true)
+    int request(@Param("ids") Long[] ids, @Param("now") Timestamp now);
+
+    @Query("SELECT f.idReservation FROM FACTURE f WHERE f.status = 'EN_ATTENTE' ORDER BY f.requestedAt")
+    List<Long> findPendingIds(Pageable limit);
+
+    // Ne marque la facture que si aucune nouvelle demande n'est arrivée pendant le rendu
+    @Modifying
+    @Transactional
+    @Query("UPDATE FACTURE f SET f.status = :status, f.generatedAt = :now, f.fichier = :fichier, f.erreur = :erreur " +
+            "WHERE f.idReservation = :id AND f.requestedAt = :requestedAt")
+    int complete(@Param("id") Long id, @Param("requestedAt") Timestamp requestedAt, @Param("status") String status,
+                 @Param("fichier") String fichier, @Param("erreur") String erreur, @Param("now") Timestamp now);
+
+    @Query("SELECT new tg.voyage_pro.reservation_pro.dto.FactureRow(" +
+            "r.idReservation, r.dateReservation, r.status, r.nombrePlacesReservees, " +
+            "c.idClient, c.nomClient, c.prenomClient, c.mailClient, c.telClient, " +
+            "v.departVoyage, v.arriveVoyage, v.dateVoyage, v.heureDepart, v.prix, " +
+            "t.libelleTypeBillet, t.prixTypeBillet, " +
+            "(SELECT COALESCE(SUM(p.montantPaiement), 0) FROM PAIEMENT p WHERE p.reservation = r)) " +
+            "FROM RESERVATION r LEFT JOIN r.client c LEFT JOIN r.voyage v LEFT JOIN r.typeBillet t " +
+            "WHERE r.idReservation = :id")
+    Optional<FactureRow> findRow(@Param("id") Long id);
+}
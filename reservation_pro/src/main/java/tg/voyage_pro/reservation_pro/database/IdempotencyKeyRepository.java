@@ -0,0 +1,49 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import tg.voyage_pro.reservation_pro.Model.IDEMPOTENCY_KEY;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IDEMPOTENCY_KEY, String> {
+
+    // Réserve la clé ; 0 si elle existe déjà (autre requête, éventuellement sur une autre instance)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_key (cle, request_hash, created_at) VALUES (:cle, :hash, :createdAt) " +
+            "ON CONFLICT (cle) DO NOTHING", nativeQuery = true)
+    int claim(@Param("cle") String cle, @Param("hash") String hash, @Param("createdAt") Timestamp createdAt);
+
+    // Reprend une clé restée en cours au-delà du bail (requête d'origine arrêtée en route) ; 0 sinon
+    @Modifying
+    @Transactional
+    @Query("UPDATE IDEMPOTENCY_KEY k SET k.requestHash = :hash, k.createdAt = :createdAt " +
+            "WHERE k.cle = :cle AND k.httpStatus IS NULL AND k.createdAt < :staleBefore")
+    int reclaim(@Param("cle") String cle, @Param("hash") String hash, @Param("createdAt") Timestamp createdAt,
+                @Param("staleBefore") Timestamp staleBefore);
+
+    // claimedAt : date de la réservation, sans effet si la clé a été reprise depuis
+    @Modifying
+    @Transactional
+    @Query("UPDATE IDEMPOTENCY_KEY k SET k.httpStatus = :status, k.responseBody = :body " +
+            "WHERE k.cle = :cle AND k.createdAt = :claimedAt AND k.httpStatus IS NULL")
+    int complete(@Param("cle") String cle, @Param("claimedAt") Timestamp claimedAt,
+                 @Param("status") int status, @Param("body") String body);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IDEMPOTENCY_KEY k WHERE k.cle = :cle AND k.createdAt = :claimedAt AND k.httpStatus IS NULL")
+    int release(@Param("cle") String cle, @Param("claimedAt") Timestamp claimedAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IDEMPOTENCY_KEY k WHERE k.createdAt < :before")
+    int purge(@Param("before") Timestamp before);
+}
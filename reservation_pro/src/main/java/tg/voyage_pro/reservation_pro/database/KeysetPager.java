@@ -0,0 +1,181 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PageResponse;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Pagination par clé (seek) commune à toutes les listes.
+ *
+ * La page suivante est lue avec {@code WHERE (tri, id) > (dernier tri, dernier id)} au lieu
+ * d'un OFFSET : le coût d'une page ne dépend pas de sa position dans la table. Le curseur
+ * rendu au client encode le tri et la dernière clé lue ; il n'est valable que pour ce tri.
+ *
+ * Un tri peut porter sur une colonne nullable : les valeurs nulles sont rangées après les
+ * autres en tri croissant et avant en tri décroissant (NULLS LAST / NULLS FIRST explicites,
+ * l'ordre par défaut de PostgreSQL, qu'un index sur la colonne sert dans les deux sens). Le
+ * curseur distingue une dernière valeur nulle d'une chaîne vide et le prédicat de reprise a
+ * ses branches {@code IS NULL}.
+ */
+@Component
+public class KeysetPager {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param idAttribute  identifiant de l'entité, utilisé pour départager les égalités de tri
+     * @param sortKeys     attributs autorisés pour le tri
+     * @param defaultSort  tri appliqué si la requête n'en donne pas ({@code champ,asc|desc})
+     * @param filter       filtres propres à la liste (peut aussi déclarer des fetch joins)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> PageResponse<T> page(Class<T> type, String idAttribute, Set<String> sortKeys, String defaultSort,
+                                    ListQuery query, Specification<T> filter) {
+        String[] sort = parseSort(query.getSort() == null || query.getSort().isBlank() ? defaultSort : query.getSort(), sortKeys);
+        String sortAttribute = sort[0];
+        boolean desc = "desc".equals(sort[1]);
+        int size = query.getSize() == null ? DEFAULT_SIZE : Math.max(1, Math.min(MAX_SIZE, query.getSize()));
+
+        HibernateCriteriaBuilder cb = (HibernateCriteriaBuilder) this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(type);
+        Root<T> root = cq.from(type);
+        Path sortPath = root.get(sortAttribute);
+        Path idPath = root.get(idAttribute);
+
+        List<Predicate> where = new ArrayList<>();
+        if (filter != null) {
+            Predicate p = filter.toPredicate(root, cq, cb);
+            if (p != null) {
+                where.add(p);
+            }
+        }
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            String[] cursor = decodeCursor(query.getCursor(), sort);
+            Comparable lastId = (Comparable) parseValue(cursor[2], idPath.getJavaType());
+            if (sortAttribute.equals(idAttribute)) {
+                where.add(desc ? cb.lessThan(idPath, lastId) : cb.greaterThan(idPath, lastId));
+            } else {
+                Predicate idAfter = desc ? cb.lessThan(idPath, lastId) : cb.greaterThan(idPath, lastId);
+                if (cursor[3] == null) {
+                    // Dernière valeur nulle : suite des nulles, puis (tri décroissant) les non nulles
+                    Predicate nulls = cb.and(cb.isNull(sortPath), idAfter);
+                    where.add(desc ? cb.or(nulls, cb.isNotNull(sortPath)) : nulls);
+                } else {
+                    Comparable lastValue = (Comparable) parseValue(cursor[3], sortPath.getJavaType());
+                    Predicate after = desc ? cb.lessThan(sortPath, lastValue) : cb.greaterThan(sortPath, lastValue);
+                    Predicate tie = cb.and(cb.equal(sortPath, lastValue), idAfter);
+                    // Tri croissant : les nulles viennent après toutes les valeurs
+                    where.add(desc ? cb.or(after, tie) : cb.or(after, tie, cb.isNull(sortPath)));
+                }
+            }
+        }
+
+        cq.select(root).where(where.toArray(new Predicate[0]));
+        cq.orderBy(desc ? cb.desc(sortPath, true) : cb.asc(sortPath, false), desc ? cb.desc(idPath) : cb.asc(idPath));
+
+        List<T> rows = this.entityManager.createQuery(cq).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            var last = PropertyAccessorFactory.forBeanPropertyAccess(items.get(items.size() - 1));
+            nextCursor = encodeCursor(sort, last.getPropertyValue(idAttribute), last.getPropertyValue(sortAttribute));
+        }
+        return new PageResponse<>(items, nextCursor, hasNext, size);
+    }
+
+    private static String[] parseSort(String sort, Set<String> sortKeys) {
+        String[] parts = sort.split(",");
+        String attribute = parts[0].trim();
+        String direction = parts.length > 1 ? parts[1].trim().toLowerCase() : "asc";
+        if (!sortKeys.contains(attribute)) {
+            throw new InvalidQueryException("Tri non autorisé : " + attribute + " (valeurs possibles : " + sortKeys + ")");
+        }
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new InvalidQueryException("Sens de tri invalide : " + direction);
+        }
+        return new String[]{attribute, direction};
+    }
+
+    // Format interne : champ,sens;id;valeur (la valeur, éventuellement une chaîne libre, reste en
+    // dernier) ; champ,sens;id sans valeur quand elle est nulle
+    private static String encodeCursor(String[] sort, Object id, Object value) {
+        String raw = sort[0] + "," + sort[1] + ";" + formatValue(id) + (value == null ? "" : ";" + formatValue(value));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor, String[] sort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("Curseur invalide");
+        }
+        String[] head = raw.split(";", 3);
+        if (head.length < 2 || head[1].isEmpty() || !head[0].equals(sort[0] + "," + sort[1])) {
+            throw new InvalidQueryException("Curseur invalide pour ce tri");
+        }
+        return new String[]{sort[0], sort[1], head[1], head.length == 3 ? head[2] : null};
+    }
+
+    private static String formatValue(Object value) {
+        if (value instanceof Date d) {
+            return Long.toString(d.getTime());
+        }
+        return value.toString();
+    }
+
+    static Object parseValue(String value, Class<?> type) {
+        try {
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            }
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == Double.class) {
+                return Double.valueOf(value);
+            }
+            if (Date.class.isAssignableFrom(type)) {
+                return toDateType(new Date(Long.parseLong(value)), type);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidQueryException("Curseur invalide");
+        }
+        return value;
+    }
+
+    // Les attributs Date peuvent être déclarés en java.util.Date ou java.sql.Date
+    static Date toDateType(Date date, Class<?> type) {
+        if (type == java.sql.Date.class) {
+            return new java.sql.Date(date.getTime());
+        }
+        if (type == java.sql.Timestamp.class) {
+            return new java.sql.Timestamp(date.getTime());
+        }
+        return date;
+    }
+}
@@ -0,0 +1,110 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Set;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import tg.voyage_pro.reservation_pro.exceptions.InvalidQueryException;
+
+/**
+ * Filtres typés réutilisés par les listes paginées. Un filtre dont la valeur est nulle
+ * ne restreint rien. Les attributs imbriqués s'écrivent avec des points
+ * (ex : {@code "reservation.client.idClient"}).
+ */
+public final class ListFilters {
+
+    // Intervalles des totaux, passés à date_trunc : liste blanche, la valeur entre dans le SQL
+    public static final Set<String> INTERVALS = Set.of("day", "week", "month");
+
+    private ListFilters() {
+    }
+
+    /**
+     * Intervalle de regroupement validé ({@code day}, {@code week} ou {@code month}) ;
+     * {@code defaultUnit} si {@code interval} est nul.
+     */
+    public static String interval(String interval, String defaultUnit) {
+        String unit = interval == null ? defaultUnit : interval.trim().toLowerCase();
+        if (!INTERVALS.contains(unit)) {
+            throw new InvalidQueryException("Intervalle invalide : " + interval + " (day, week ou month)");
+        }
+        return unit;
+    }
+
+    public static <T> Specification<T> equal(String attribute, Object value) {
+        return (root, query, cb) -> value == null ? null : cb.equal(path(root, attribute), value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Specification<T> between(String attribute, Date from, Date to) {
+        return (root, query, cb) -> {
+            Path<Date> path = (Path<Date>) path(root, attribute);
+            if (from != null && to != null) {
+                return cb.between(path, KeysetPager.toDateType(from, path.getJavaType()), KeysetPager.toDateType(to, path.getJavaType()));
+            }
+            if (from != null) {
+                return cb.greaterThanOrEqualTo(path, KeysetPager.toDateType(from, path.getJavaType()));
+            }
+            if (to != null) {
+                return cb.lessThanOrEqualTo(path, KeysetPager.toDateType(to, path.getJavaType()));
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Comme {@link #between}, pour une colonne qui porte une heure (TIMESTAMP) : {@code to} couvre
+     * tout le jour, la borne haute est {@code < to + 1 jour}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Specification<T> betweenDays(String attribute, Date from, Date to) {
+        return (root, query, cb) -> {
+            Path<Date> path = (Path<Date>) path(root, attribute);
+            Predicate after = from == null ? null
+                    : cb.greaterThanOrEqualTo(path, KeysetPager.toDateType(from, path.getJavaType()));
+            Predicate before = to == null ? null
+                    : cb.lessThan(path, KeysetPager.toDateType(nextDay(to), path.getJavaType()));
+            if (after != null && before != null) {
+                return cb.and(after, before);
+            }
+            return after != null ? after : before;
+        };
+    }
+
+    // Début du jour qui suit day : borne haute exclusive d'un filtre « jusqu'au jour inclus »
+    public static Timestamp nextDay(Date day) {
+        return Timestamp.from(Instant.ofEpochMilli(day.getTime()).plus(1, ChronoUnit.DAYS));
+    }
+
+    /**
+     * Charge les associations ManyToOne dans la même requête que la page (évite le N+1
+     * lors du mapping en DTO).
+     */
+    public static <T> Specification<T> fetch(String... associations) {
+        return (root, query, cb) -> {
+            for (String association : associations) {
+                From<?, ?> from = root;
+                for (String part : association.split("\\.")) {
+                    from = (From<?, ?>) from.fetch(part, JoinType.LEFT);
+                }
+            }
+            return null;
+        };
+    }
+
+    private static Path<?> path(Path<?> root, String attribute) {
+        Path<?> path = root;
+        for (String part : attribute.split("\\.")) {
+            path = path.get(part);
+        }
+        return path;
+    }
+}
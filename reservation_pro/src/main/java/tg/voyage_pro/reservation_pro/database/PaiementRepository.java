@@ -1,10 +1,46 @@
 package tg.voyage_pro.reservation_pro.database;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
 import tg.voyage_pro.reservation_pro.Model.PAIEMENT;
+import tg.voyage_pro.reservation_pro.dto.PaiementAggregate;
+import tg.voyage_pro.reservation_pro.dto.PaiementRow;
 
 
 @Repository
-public interface PaiementRepository extends JpaRepository<PAIEMENT , String> {
+public interface PaiementRepository extends JpaRepository<PAIEMENT , String>, PaiementStatsRepository {
+
+    // Export : curseur en avant seulement, lu par paquets de 500 lignes (à consommer dans une transaction)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT new tg.voyage_pro.reservation_pro.dto.PaiementRow(" +
+            "p.codePaiement, p.datePaiement, p.montantPaiement, p.status, p.method, r.idReservation, " +
+            "c.idClient, c.nomClient, c.prenomClient, a.idAgent, a.nomAgent, a.prenomAgent) " +
+            "FROM PAIEMENT p LEFT JOIN p.reservation r LEFT JOIN r.client c LEFT JOIN p.agent a " +
+            "WHERE (:status IS NULL OR p.status = :status) " +
+            "AND (:from IS NULL OR p.datePaiement >= :from) AND (:before IS NULL OR p.datePaiement < :before) " +
+            "ORDER BY p.datePaiement, p.codePaiement")
+    Stream<PaiementRow> streamRows(@Param("status") String status, @Param("from") Date from, @Param("before") Date before);
+
+    // Flux de changements : paiements modifiés avec leur réservation et leur agent, en une requête
+    @Query("SELECT p FROM PAIEMENT p LEFT JOIN FETCH p.reservation LEFT JOIN FETCH p.agent WHERE p.codePaiement IN :codes")
+    List<PAIEMENT> findWithLinks(@Param("codes") Collection<String> codes);
+
+    // Démarrage des compteurs KPI : un seul parcours de la table
+    @Query("SELECT p.status AS status, p.method AS method, CAST(p.datePaiement AS LocalDate) AS day, COUNT(p) AS total, " +
+            "SUM(ROUND(COALESCE(p.montantPaiement, 0) * 100, 0)) AS montantCentimes " +
+            "FROM PAIEMENT p GROUP BY p.status, p.method, CAST(p.datePaiement AS LocalDate)")
+    List<PaiementAggregate> aggregateForKpi();
 }
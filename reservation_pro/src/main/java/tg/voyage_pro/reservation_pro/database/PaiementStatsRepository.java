@@ -0,0 +1,11 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.util.List;
+
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PaiementTotalDTO;
+
+public interface PaiementStatsRepository {
+
+    List<PaiementTotalDTO> totals(ListQuery query, String interval);
+}
@@ -0,0 +1,82 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import tg.voyage_pro.reservation_pro.dto.ListQuery;
+import tg.voyage_pro.reservation_pro.dto.PaiementTotalDTO;
+
+/**
+ * Totaux de paiements par intervalle (date_trunc + GROUP BY en base).
+ *
+ * Seuls les filtres renseignés entrent dans la requête, pour que le planificateur choisisse
+ * l'index qui correspond : paiement(agent, date_paiement) pour un relevé d'agent,
+ * paiement(reservation, date_paiement) pour un client, paiement(date_paiement, code_paiement)
+ * sinon. La réponse a une ligne par intervalle, quel que soit le nombre de paiements.
+ */
+public class PaiementStatsRepositoryImpl implements PaiementStatsRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PaiementTotalDTO> totals(ListQuery q, String interval) {
+        String unit = ListFilters.interval(interval, "month");
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (q.getAgentId() != null) {
+            conditions.add("p.agent = :agentId");
+            params.put("agentId", q.getAgentId());
+        }
+        if (q.getClientId() != null) {
+            // Jointure par la réservation : index reservation(client_id, ...) puis paiement(reservation, date_paiement)
+            conditions.add("p.reservation IN (SELECT r.id_reservation FROM reservation r WHERE r.client_id = :clientId)");
+            params.put("clientId", q.getClientId());
+        }
+        if (q.getVoyageId() != null) {
+            conditions.add("p.reservation IN (SELECT r.id_reservation FROM reservation r WHERE r.voyage_id = :voyageId)");
+            params.put("voyageId", q.getVoyageId());
+        }
+        if (q.getMethod() != null && !q.getMethod().isBlank()) {
+            conditions.add("p.method = :method");
+            params.put("method", q.getMethod().trim());
+        }
+        if (q.getStatus() != null && !q.getStatus().isBlank()) {
+            conditions.add("p.status = :status");
+            params.put("status", q.getStatus().trim());
+        }
+        if (q.getFrom() != null) {
+            conditions.add("p.date_paiement >= :from");
+            params.put("from", new Timestamp(q.getFrom().getTime()));
+        }
+        if (q.getTo() != null) {
+            conditions.add("p.date_paiement < :before");
+            params.put("before", ListFilters.nextDay(q.getTo()));
+        }
+
+        // unit validé par ListFilters.interval (liste blanche)
+        StringBuilder sql = new StringBuilder("SELECT date_trunc('" + unit + "', p.date_paiement) AS periode, " +
+                "COUNT(*) AS nombre, COALESCE(SUM(p.montant_paiement), 0) AS montant FROM paiement p");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" GROUP BY 1 ORDER BY 1");
+
+        Query query = this.entityManager.createNativeQuery(sql.toString());
+        params.forEach(query::setParameter);
+        List<PaiementTotalDTO> totals = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            totals.add(new PaiementTotalDTO((Date) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).doubleValue()));
+        }
+        return totals;
+    }
+}
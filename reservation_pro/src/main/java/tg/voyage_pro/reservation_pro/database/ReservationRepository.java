@@ -1,13 +1,120 @@
 package tg.voyage_pro.reservation_pro.database;
 
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
 import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.dto.CountByLabel;
+import tg.voyage_pro.reservation_pro.dto.ReservationAggregate;
+import tg.voyage_pro.reservation_pro.dto.ReservationRow;
 
 
 @Repository
 public interface ReservationRepository  extends JpaRepository<RESERVATION , Long>{
 
+    String ROW_SELECT = "SELECT new tg.voyage_pro.reservation_pro.dto.ReservationRow(" +
+            "r.idReservation, r.nombrePlacesReservees, r.dateReservation, r.status, " +
+            "c.idClient, c.nomClient, c.prenomClient, c.mailClient, c.telClient, " +
+            "v.idVoyage, v.departVoyage, v.arriveVoyage, v.heureDepart, v.heureArrivee, v.dateVoyage, v.prix, " +
+            "t.idTypeBillet, t.libelleTypeBillet, t.prixTypeBillet) " +
+            "FROM RESERVATION r LEFT JOIN r.client c LEFT JOIN r.voyage v LEFT JOIN r.typeBillet t ";
+
+    @Query(ROW_SELECT + "ORDER BY r.idReservation DESC")
+    List<ReservationRow> findAllRows();
+
+    // Flux de changements : état courant des réservations modifiées, en une requête
+    @Query(ROW_SELECT + "WHERE r.idReservation IN :ids")
+    List<ReservationRow> findRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Agrégats du tableau de bord ; from/to nuls = pas de borne sur la date de réservation
+    String DATE_RANGE = "(:from IS NULL OR r.dateReservation >= :from) AND (:to IS NULL OR r.dateReservation <= :to)";
+
+    @Query("SELECT COALESCE(SUM((COALESCE(v.prix, 0) + COALESCE(t.prixTypeBillet, 0)) * COALESCE(r.nombrePlacesReservees, 1)), 0) " +
+            "FROM RESERVATION r LEFT JOIN r.voyage v LEFT JOIN r.typeBillet t " +
+            "WHERE UPPER(r.status) = 'CONFIRMED' AND " + DATE_RANGE)
+    Double sumConfirmedRevenue(@Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT r.status AS label, COUNT(r) AS total FROM RESERVATION r WHERE " + DATE_RANGE + " GROUP BY r.status")
+    List<CountByLabel> countByStatus(@Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT v.arriveVoyage AS label, COUNT(r) AS total FROM RESERVATION r JOIN r.voyage v " +
+            "WHERE " + DATE_RANGE + " GROUP BY v.arriveVoyage ORDER BY COUNT(r) DESC")
+    List<CountByLabel> countByDestination(@Param("from") Date from, @Param("to") Date to, Pageable top);
+
+    @Query("SELECT COUNT(r) FROM RESERVATION r JOIN r.voyage v WHERE " + DATE_RANGE)
+    long countWithVoyage(@Param("from") Date from, @Param("to") Date to);
+
+    // Démarrage des compteurs KPI : un seul parcours de la table
+    @Query("SELECT r.status AS status, v.arriveVoyage AS destination, t.idTypeBillet AS idTypeBillet, " +
+            "CAST(r.dateReservation AS LocalDate) AS day, COUNT(r) AS total, " +
+            "COALESCE(SUM(r.nombrePlacesReservees), 0) AS places, " +
+            "SUM(ROUND((COALESCE(v.prix, 0) + COALESCE(t.prixTypeBillet, 0)) * COALESCE(r.nombrePlacesReservees, 1) * 100, 0)) AS valeurCentimes " +
+            "FROM RESERVATION r LEFT JOIN r.voyage v LEFT JOIN r.typeBillet t " +
+            "GROUP BY r.status, v.arriveVoyage, t.idTypeBillet, CAST(r.dateReservation AS LocalDate)")
+    List<ReservationAggregate> aggregateForKpi();
+
+    // Export : curseur en avant seulement, lu par paquets de 500 lignes (à consommer dans une transaction)
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query(ROW_SELECT + "WHERE (:status IS NULL OR r.status = :status) AND " + DATE_RANGE + " ORDER BY r.idReservation")
+    Stream<ReservationRow> streamRows(@Param("status") String status, @Param("from") Date from, @Param("to") Date to);
+
+    // UPDATE de statut en lot : l'ancien statut est lu sous verrou (FOR UPDATE) dans le même ordre
+    String MOVED_SELECT = "SELECT m.id_reservation, m.voyage_id, m.nombre_places_reservees, m.previous_status, " +
+            "v.arrive_voyage, m.type_billet_id, m.date_reservation, v.prix, t.prix_type_billet " +
+            "FROM moved m LEFT JOIN voyage v ON v.id_voyage = m.voyage_id " +
+            "LEFT JOIN type_billet t ON t.id_type_billet = m.type_billet_id";
+    String MOVED_RETURNING = "RETURNING r.id_reservation, r.voyage_id, r.nombre_places_reservees, old.status AS previous_status, " +
+            "r.type_billet_id, r.date_reservation) ";
+
+    /**
+     * Passe au statut {@code status} celles des réservations {@code ids} dont le statut courant est
+     * dans {@code fromStatuses}, en un seul UPDATE. Rend, pour les lignes effectivement modifiées,
+     * (id_reservation, voyage_id, nombre_places_reservees, ancien statut, arrive_voyage,
+     * type_billet_id, date_reservation, prix du voyage, prix du type de billet).
+     */
+    @Query(value = "WITH old AS (SELECT id_reservation, status FROM reservation " +
+            "WHERE id_reservation = ANY(:ids) AND status IN (:fromStatuses) FOR UPDATE), " +
+            "moved AS (UPDATE reservation r SET status = :status, hold_expires_at = NULL, updated_at = :now FROM old " +
+            "WHERE r.id_reservation = old.id_reservation " + MOVED_RETURNING + MOVED_SELECT, nativeQuery = true)
+    List<Object[]> transitionStatus(@Param("ids") Long[] ids, @Param("fromStatuses") Collection<String> fromStatuses,
+                                    @Param("status") String status, @Param("now") Timestamp now);
+
+    @Query("SELECT r.idReservation FROM RESERVATION r WHERE r.voyage.idVoyage = :idVoyage AND r.status = :status ORDER BY r.idReservation")
+    List<Long> findIdsByVoyageAndStatus(@Param("idVoyage") Long idVoyage, @Param("status") String status);
+
+    // Échéances des réservations PENDING (index reservation(status, hold_expires_at))
+    @Query("SELECT r.idReservation, r.holdExpiresAt FROM RESERVATION r " +
+            "WHERE r.status = 'PENDING' AND r.holdExpiresAt IS NOT NULL ORDER BY r.holdExpiresAt")
+    List<Object[]> findPendingHolds();
+
+    @Query("SELECT r.idReservation FROM RESERVATION r " +
+            "WHERE r.status = 'PENDING' AND r.holdExpiresAt <= :now ORDER BY r.holdExpiresAt")
+    List<Long> findExpiredHolds(@Param("now") Timestamp now, Pageable limit);
+
+    /**
+     * Passe à EXPIRED celles des réservations {@code ids} encore PENDING dont la retenue est échue
+     * à {@code now}. Une réservation n'est modifiée qu'une fois, même si plusieurs instances
+     * tentent de l'expirer en même temps. Rend les mêmes colonnes que {@link #transitionStatus}.
+     */
+    @Query(value = "WITH old AS (SELECT id_reservation, status FROM reservation " +
+            "WHERE id_reservation = ANY(:ids) AND status = 'PENDING' AND hold_expires_at <= :now FOR UPDATE), " +
+            "moved AS (UPDATE reservation r SET status = 'EXPIRED', hold_expires_at = NULL, updated_at = :now FROM old " +
+            "WHERE r.id_reservation = old.id_reservation " + MOVED_RETURNING + MOVED_SELECT, nativeQuery = true)
+    List<Object[]> expireHolds(@Param("ids") Long[] ids, @Param("now") Timestamp now);
 
 }
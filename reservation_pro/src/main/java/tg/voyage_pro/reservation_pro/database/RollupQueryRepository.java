@@ -0,0 +1,20 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import tg.voyage_pro.reservation_pro.dto.DailyStatsDTO;
+
+public interface RollupQueryRepository {
+
+    // Jours des réservations rattachées à owner et de leurs paiements
+    List<LocalDate> findOwnerDays(String owner, Object id);
+
+    List<LocalDate> findDirtyDays(Timestamp before, int limit);
+
+    // Premier jour de l'historique (réservations et paiements), null si les tables sont vides
+    LocalDate findFirstDay();
+
+    List<DailyStatsDTO> report(LocalDate from, LocalDate to, Long voyageId, Long typeBilletId, String interval);
+}
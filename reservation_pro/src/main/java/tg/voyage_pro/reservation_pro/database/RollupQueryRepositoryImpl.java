@@ -0,0 +1,136 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import tg.voyage_pro.reservation_pro.dto.DailyStatsDTO;
+
+/**
+ * Requêtes dynamiques autour de daily_stats : jours touchés par une écriture que updated_at ne
+ * révèle pas (suppression, déplacement d'une réservation, changement de prix), et lecture des
+ * agrégats par intervalle.
+ */
+public class RollupQueryRepositoryImpl implements RollupQueryRepository {
+
+    // Réservations rattachées à chaque propriétaire ; :id est le seul paramètre
+    private static final Map<String, String> OWNERS = Map.of(
+            "reservation", "r.id_reservation = :id",
+            "client", "r.client_id = :id",
+            "voyage", "r.voyage_id = :id",
+            "typeBillet", "r.type_billet_id = :id",
+            "agent", "r.id_reservation IN (SELECT p.reservation FROM paiement p WHERE p.agent = :id)",
+            "paiement", "r.id_reservation IN (SELECT p.reservation FROM paiement p WHERE p.code_paiement = :id)");
+
+    // Paiements rattachés directement au propriétaire, même sans réservation
+    private static final Map<String, String> DIRECT_PAIEMENTS = Map.of(
+            "agent", "p.agent = :id",
+            "paiement", "p.code_paiement = :id");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<LocalDate> findOwnerDays(String owner, Object id) {
+        String reservations = OWNERS.get(owner);
+        if (reservations == null) {
+            throw new IllegalArgumentException("Propriétaire inconnu : " + owner);
+        }
+        StringBuilder sql = new StringBuilder("SELECT day FROM (")
+                .append("SELECT r.date_reservation AS day FROM reservation r WHERE ").append(reservations)
+                .append(" UNION SELECT CAST(p.date_paiement AS date) FROM paiement p WHERE p.reservation IN ")
+                .append("(SELECT r.id_reservation FROM reservation r WHERE ").append(reservations).append(")");
+        if (DIRECT_PAIEMENTS.containsKey(owner)) {
+            sql.append(" UNION SELECT CAST(p.date_paiement AS date) FROM paiement p WHERE ").append(DIRECT_PAIEMENTS.get(owner));
+        }
+        sql.append(") touched WHERE day IS NOT NULL");
+        List<Object> rows = this.entityManager.createNativeQuery(sql.toString()).setParameter("id", id).getResultList();
+        List<LocalDate> days = new ArrayList<>(rows.size());
+        rows.forEach(row -> days.add(localDate(row)));
+        return days;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<LocalDate> findDirtyDays(Timestamp before, int limit) {
+        List<Object> rows = this.entityManager
+                .createNativeQuery("SELECT day FROM daily_stats_dirty WHERE marked_at <= :before ORDER BY day")
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+        List<LocalDate> days = new ArrayList<>(rows.size());
+        rows.forEach(row -> days.add(localDate(row)));
+        return days;
+    }
+
+    @Override
+    public LocalDate findFirstDay() {
+        Object first = this.entityManager.createNativeQuery("SELECT MIN(day) FROM (" +
+                "SELECT MIN(date_reservation) AS day FROM reservation " +
+                "UNION ALL SELECT CAST(MIN(date_paiement) AS date) FROM paiement) bounds").getSingleResult();
+        return localDate(first);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<DailyStatsDTO> report(LocalDate from, LocalDate to, Long voyageId, Long typeBilletId, String interval) {
+        String unit = ListFilters.interval(interval, "day");
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (voyageId != null) {
+            // Index daily_stats(voyage_id, day)
+            conditions.add("s.voyage_id = :voyageId");
+            params.put("voyageId", voyageId);
+        }
+        if (typeBilletId != null) {
+            conditions.add("s.type_billet_id = :typeBilletId");
+            params.put("typeBilletId", typeBilletId);
+        }
+        if (from != null) {
+            conditions.add("s.day >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            conditions.add("s.day <= :to");
+            params.put("to", to);
+        }
+
+        // unit validé par ListFilters.interval (liste blanche)
+        StringBuilder sql = new StringBuilder("SELECT CAST(date_trunc('" + unit + "', CAST(s.day AS timestamp)) AS date) AS periode, " +
+                "SUM(s.reservations), SUM(s.places_vendues), SUM(s.revenu_confirme), SUM(s.paiements), SUM(s.montant_paye) " +
+                "FROM daily_stats s");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" GROUP BY 1 ORDER BY 1");
+
+        Query query = this.entityManager.createNativeQuery(sql.toString());
+        params.forEach(query::setParameter);
+        List<DailyStatsDTO> stats = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            stats.add(new DailyStatsDTO(java.sql.Date.valueOf(localDate(row[0])),
+                    ((Number) row[1]).longValue(), ((Number) row[2]).longValue(), ((Number) row[3]).doubleValue(),
+                    ((Number) row[4]).longValue(), ((Number) row[5]).doubleValue()));
+        }
+        return stats;
+    }
+
+    // Selon la configuration Hibernate, une colonne date arrive en java.sql.Date ou en LocalDate
+    private static LocalDate localDate(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof LocalDate d) {
+            return d;
+        }
+        return ((java.sql.Date) value).toLocalDate();
+    }
+}
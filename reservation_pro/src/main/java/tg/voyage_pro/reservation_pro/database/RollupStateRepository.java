@@ -0,0 +1,10 @@
+package tg.voyage_pro.reservation_pro.database;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import tg.voyage_pro.reservation_pro.Model.ROLLUP_STATE;
+
+@Repository
+public interface RollupStateRepository extends JpaRepository<ROLLUP_STATE, String> {
+}
@@ -1,9 +1,11 @@
 package tg.voyage_pro.reservation_pro.database;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
@@ -16,5 +18,7 @@ public interface TypeBilletRepository extends JpaRepository<TYPE_BILLET , Long>{
     @Query(value = "SELECT * FROM type_billet ORDER BY id_type_billet DESC ;" , nativeQuery = true)
     List<TYPE_BILLET>findAllDesc();
 
+    @Query("SELECT e.idTypeBillet FROM TYPE_BILLET e WHERE e.idTypeBillet IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
 }
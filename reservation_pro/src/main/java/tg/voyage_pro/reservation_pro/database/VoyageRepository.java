@@ -1,12 +1,17 @@
 package tg.voyage_pro.reservation_pro.database;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+import tg.voyage_pro.reservation_pro.dto.AvailabilityRow;
+import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
 
 
 @Repository
@@ -16,6 +21,43 @@ public interface VoyageRepository extends JpaRepository<VOYAGE , Long> {
     @Query(value = "SELECT * FROM VOYAGE v ORDER BY v.date_voyage DESC" , nativeQuery = true)
     List<VOYAGE> findAllByOrderByDateVoyageDesc();
 
-
+    @Query(value = "SELECT v.places_restantes FROM voyage v WHERE v.id_voyage = :idVoyage" , nativeQuery = true)
+    Integer findRemainingSeats(@Param("idVoyage") Long idVoyage);
+
+    // Décrément conditionnel : 0 ligne modifiée => plus assez de places en base
+    @Modifying
+    @Query(value = "UPDATE voyage SET places_restantes = places_restantes - :places " +
+            "WHERE id_voyage = :idVoyage AND places_restantes >= :places" , nativeQuery = true)
+    int decrementRemainingSeats(@Param("idVoyage") Long idVoyage , @Param("places") int places);
+
+    @Modifying
+    @Query(value = "UPDATE voyage SET places_restantes = places_restantes + :places " +
+            "WHERE id_voyage = :idVoyage AND places_restantes IS NOT NULL" , nativeQuery = true)
+    int incrementRemainingSeats(@Param("idVoyage") Long idVoyage , @Param("places") int places);
+
+    // Recalcule le stock à partir de la capacité et des réservations qui retiennent encore des places
+    @Modifying
+    @Query(value = "UPDATE voyage v SET places_restantes = v.capacite - (" +
+            "SELECT COALESCE(SUM(r.nombre_places_reservees), 0) FROM reservation r " +
+            "WHERE r.voyage_id = v.id_voyage AND r.status NOT IN ('CANCELLED', 'EXPIRED')) " +
+            "WHERE v.id_voyage = :idVoyage" , nativeQuery = true)
+    int recomputeRemainingSeats(@Param("idVoyage") Long idVoyage);
+
+    // Chargement de l'index de recherche : projection, aucune entité gérée
+    @Query("SELECT new tg.voyage_pro.reservation_pro.dto.VoyageDTO(v.idVoyage, v.departVoyage, v.arriveVoyage, " +
+            "v.heureDepart, v.heureArrivee, v.dateVoyage, v.prix, v.capacite, v.placesRestantes) FROM VOYAGE v")
+    List<VoyageDTO> findAllForIndex();
+
+    // Cache de disponibilité : places retenues par (voyage, type de billet), un seul GROUP BY pour tous les ids
+    @Query("SELECT v.idVoyage AS idVoyage, v.dateVoyage AS dateVoyage, v.capacite AS capacite, " +
+            "v.placesRestantes AS placesRestantes, t.idTypeBillet AS idTypeBillet, " +
+            "SUM(COALESCE(r.nombrePlacesReservees, 0)) AS places " +
+            "FROM VOYAGE v LEFT JOIN v.reservations r ON r.status NOT IN ('CANCELLED', 'EXPIRED') " +
+            "LEFT JOIN r.typeBillet t WHERE v.idVoyage IN :ids " +
+            "GROUP BY v.idVoyage, v.dateVoyage, v.capacite, v.placesRestantes, t.idTypeBillet")
+    List<AvailabilityRow> findAvailability(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT e.idVoyage FROM VOYAGE e WHERE e.idVoyage IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 
 }
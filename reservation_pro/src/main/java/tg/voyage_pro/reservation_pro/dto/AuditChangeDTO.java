@@ -0,0 +1,16 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditChangeDTO {
+    private String field ;
+    private String before ;
+    private String after ;
+}
@@ -0,0 +1,29 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Une entrée du journal d'audit : opération sur une entité, auteur, date et champs modifiés.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuditRecordDTO {
+    private Date timestamp ;
+    private String entity ;
+    private String id ;
+    private String operation ;
+    private String actor ;
+    @Builder.Default
+    private List<AuditChangeDTO> changes = new ArrayList<>() ;
+}
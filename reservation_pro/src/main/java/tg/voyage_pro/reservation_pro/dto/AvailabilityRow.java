@@ -0,0 +1,21 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+/**
+ * Projection du chargement du cache de disponibilité : places retenues d'un voyage pour un type
+ * de billet (une ligne avec type null pour un voyage sans réservation).
+ */
+public interface AvailabilityRow {
+    Long getIdVoyage();
+
+    Date getDateVoyage();
+
+    Integer getCapacite();
+
+    Integer getPlacesRestantes();
+
+    Long getIdTypeBillet();
+
+    Long getPlaces();
+}
@@ -0,0 +1,25 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Changement de statut en lot : soit une liste d'ids, soit un filtre
+ * (toutes les réservations du voyage {@code voyageId} au statut {@code currentStatus}).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BatchStatusRequest {
+    private String status ;
+
+    private List<Long> ids ;
+
+    private Long voyageId ;
+    private String currentStatus ;
+}
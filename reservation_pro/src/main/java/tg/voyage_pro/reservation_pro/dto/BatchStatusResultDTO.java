@@ -0,0 +1,25 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Résultat d'un changement de statut en lot : ids passés au nouveau statut et ids refusés
+ * (introuvables, ou dont le statut courant n'autorise pas la transition).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchStatusResultDTO {
+    private String status ;
+    private List<Long> transitioned = new ArrayList<>() ;
+    private List<Long> rejected = new ArrayList<>() ;
+
+    public BatchStatusResultDTO(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,24 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Compte rendu d'un import en masse : lignes insérées et erreurs ligne par ligne.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkResultDTO {
+    private int total ;
+    private int inserted ;
+    private List<BulkRowErrorDTO> errors = new ArrayList<>() ;
+
+    public BulkResultDTO(int total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,16 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRowErrorDTO {
+    // Position de la ligne dans le lot envoyé (à partir de 0)
+    private int index ;
+    private String message ;
+}
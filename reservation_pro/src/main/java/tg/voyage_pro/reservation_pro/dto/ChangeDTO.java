@@ -0,0 +1,27 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Une modification du flux de changements : {@code op} U (créé ou modifié, {@code data} = état
+ * courant) ou D (supprimé).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+    private String type ;
+    private Object id ;
+    private String op ;
+    private long version ;
+    private Object data ;
+}
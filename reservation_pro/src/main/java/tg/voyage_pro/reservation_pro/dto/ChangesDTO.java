@@ -0,0 +1,26 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Réponse de {@code GET /changes} : les modifications depuis le jeton reçu et le jeton à
+ * renvoyer au prochain appel. {@code reset} = le jeton est trop ancien (ou absent) : recharger
+ * les listes complètes, puis repartir du nouveau jeton.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangesDTO {
+    private String token ;
+    private boolean reset ;
+    private boolean hasMore ;
+    private List<ChangeDTO> changes ;
+}
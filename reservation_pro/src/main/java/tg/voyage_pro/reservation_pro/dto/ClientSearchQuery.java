@@ -0,0 +1,36 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Critères de recherche de clients. Les critères absents sont ignorés ;
+ * {@code mode} indique s'ils doivent tous correspondre (AND, défaut) ou au moins un (OR).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ClientSearchQuery {
+    // Recherché dans le nom et le prénom
+    private String nom ;
+    private String mail ;
+    private String tel ;
+    private String sexe ;
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private Date dateNaissFrom ;
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private Date dateNaissTo ;
+    private String mode ;
+    private Integer limit ;
+}
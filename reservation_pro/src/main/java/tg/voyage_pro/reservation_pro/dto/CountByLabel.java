@@ -0,0 +1,10 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+/**
+ * Projection d'un agrégat {@code GROUP BY} : un libellé et le nombre de lignes associées.
+ */
+public interface CountByLabel {
+    String getLabel();
+
+    Long getTotal();
+}
@@ -0,0 +1,28 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Totaux d'un intervalle (jour ou mois) lus dans daily_stats.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyStatsDTO {
+    // Début de l'intervalle
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
+    private Date periode ;
+    private long reservations ;
+    private long placesVendues ;
+    private double revenuConfirme ;
+    private long paiements ;
+    private double montantPaye ;
+}
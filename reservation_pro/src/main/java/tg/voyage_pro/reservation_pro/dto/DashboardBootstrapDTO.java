@@ -0,0 +1,33 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Premier affichage du tableau de bord en un seul appel : indicateurs, première page de chaque
+ * table et listes de référence, toutes lues sur le même instantané de la base.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardBootstrapDTO {
+    private DashboardStatsDTO stats ;
+    private PageResponse<ClientDTO> clients ;
+    private PageResponse<VoyageDTO> voyages ;
+    private PageResponse<ReservationDTO> reservations ;
+    private List<TypeBilletDTO> typesBillet ;
+    // true si les lectures ont été faites en parallèle (sinon l'une après l'autre)
+    private boolean parallele ;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private Date genereLe ;
+}
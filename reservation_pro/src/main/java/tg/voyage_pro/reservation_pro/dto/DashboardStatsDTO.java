@@ -0,0 +1,28 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Indicateurs du tableau de bord administrateur, calculés en base par agrégats.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardStatsDTO {
+    private long totalClients ;
+    private long totalVoyages ;
+    private long totalReservations ;
+    // Réservations confirmées × (prix du voyage + prix du type de billet) × places
+    private double totalRevenus ;
+    private Map<String, Long> reservationsParStatut ;
+    private List<DestinationStatDTO> topDestinations ;
+}
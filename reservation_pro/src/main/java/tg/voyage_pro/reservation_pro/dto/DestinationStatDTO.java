@@ -0,0 +1,18 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DestinationStatDTO {
+    private String destination ;
+    private long count ;
+    private int percent ;
+}
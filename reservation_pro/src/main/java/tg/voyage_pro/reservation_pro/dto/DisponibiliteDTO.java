@@ -0,0 +1,24 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DisponibiliteDTO {
+    private Long idVoyage ;
+    // null : voyage sans capacité (non limité)
+    private Integer capacite ;
+    private Integer placesRestantes ;
+    // Places retenues (réservations PENDING et CONFIRMED), au total et par type de billet
+    private int placesReservees ;
+    private Map<Long, Integer> parTypeBillet ;
+}
@@ -0,0 +1,36 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Données d'une facture lues en une seule requête : la réservation, son client, son voyage,
+ * son type de billet et le total de ses paiements (constructeur JPQL, aucune entité chargée).
+ */
+@Getter
+@AllArgsConstructor
+public class FactureRow {
+    private Long idReservation ;
+    private Date dateReservation ;
+    private String status ;
+    private Integer nombrePlacesReservees ;
+
+    private Long idClient ;
+    private String nomClient ;
+    private String prenomClient ;
+    private String mailClient ;
+    private String telClient ;
+
+    private String departVoyage ;
+    private String arriveVoyage ;
+    private Date dateVoyage ;
+    private String heureDepart ;
+    private Double prix ;
+
+    private String libelleTypeBillet ;
+    private Double prixTypeBillet ;
+
+    private Double totalPaye ;
+}
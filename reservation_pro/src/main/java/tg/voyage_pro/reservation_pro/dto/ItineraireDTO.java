@@ -0,0 +1,30 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ItineraireDTO {
+    // Voyages dans l'ordre du trajet
+    private List<VoyageDTO> etapes ;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime depart ;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd HH:mm")
+    private LocalDateTime arrivee ;
+    private long dureeMinutes ;
+    private int correspondances ;
+    // Prix des voyages + prix du type de billet par voyage
+    private double prixTotal ;
+}
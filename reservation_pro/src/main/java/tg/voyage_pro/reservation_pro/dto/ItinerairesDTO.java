@@ -0,0 +1,18 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Meilleurs itinéraires d'une recherche ; null quand aucun trajet n'existe dans la fenêtre.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItinerairesDTO {
+    private ItineraireDTO plusTot ;
+    private ItineraireDTO moinsCher ;
+}
@@ -0,0 +1,43 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Indicateurs temps réel lus dans les compteurs en mémoire (aucune requête en base).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class KpiSnapshotDTO {
+    private long totalReservations ;
+    // Réservations confirmées × (prix du voyage + prix du type de billet) × places
+    private double totalRevenus ;
+    // Places des réservations confirmées
+    private long placesReservees ;
+    private Map<String, Long> reservationsParStatut ;
+    private List<DestinationStatDTO> topDestinations ;
+    private Map<Long, Long> reservationsParTypeBillet ;
+    // Clés yyyy-MM-dd, du plus ancien au plus récent
+    private Map<String, Long> reservationsParJour ;
+    private Map<String, Double> revenusParJour ;
+    private long totalPaiements ;
+    private double montantPaiements ;
+    private Map<String, Double> paiementsParStatut ;
+    private Map<String, Double> paiementsParMethode ;
+    private Map<String, Double> encaissementsParJour ;
+    // Dernière reconstruction complète des compteurs
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss", timezone = "UTC")
+    private Date calculeLe ;
+}
@@ -0,0 +1,35 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Paramètres communs des listes paginées (query string) : curseur opaque, taille de page,
+ * tri ({@code champ,asc|desc}) et filtres typés. Chaque liste n'utilise que les filtres
+ * qui ont un sens pour elle.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ListQuery {
+    private String cursor ;
+    private Integer size ;
+    private String sort ;
+
+    private String status ;
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private Date from ;
+    @DateTimeFormat(pattern = "yyyy-MM-dd")
+    private Date to ;
+    private Long voyageId ;
+    private Long clientId ;
+    private Long agentId ;
+    private String method ;
+}
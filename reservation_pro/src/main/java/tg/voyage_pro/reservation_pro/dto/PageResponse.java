@@ -0,0 +1,28 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Enveloppe d'une page : les éléments et le curseur à renvoyer pour obtenir la suite
+ * ({@code null} sur la dernière page).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> items ;
+    private String nextCursor ;
+    private boolean hasNext ;
+    private int size ;
+
+    public <R> PageResponse<R> map(Function<List<T>, List<R>> mapper) {
+        return new PageResponse<>(mapper.apply(this.items), this.nextCursor, this.hasNext, this.size);
+    }
+}
@@ -0,0 +1,20 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection de l'agrégat de démarrage des compteurs KPI : un groupe
+ * (statut, méthode, jour) de paiements et ses totaux.
+ */
+public interface PaiementAggregate {
+    String getStatus();
+
+    String getMethod();
+
+    LocalDate getDay();
+
+    Long getTotal();
+
+    // Somme des montants en centimes, arrondis ligne par ligne
+    Double getMontantCentimes();
+}
@@ -0,0 +1,34 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ligne plate d'un paiement pour l'export : le paiement, sa réservation, son client et son
+ * agent, lus en une seule requête (constructeur JPQL, aucune entité chargée).
+ */
+@Getter
+@AllArgsConstructor
+public class PaiementRow {
+    private String codePaiement ;
+    // Même format que la colonne CSV : date et heure ISO 8601 en UTC
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ssXXX", timezone = "UTC")
+    private Date datePaiement ;
+    private Double montantPaiement ;
+    private String status ;
+    private String method ;
+
+    private Long idReservation ;
+
+    private Long idClient ;
+    private String nomClient ;
+    private String prenomClient ;
+
+    private Long idAgent ;
+    private String nomAgent ;
+    private String prenomAgent ;
+}
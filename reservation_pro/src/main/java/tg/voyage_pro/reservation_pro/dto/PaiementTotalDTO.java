@@ -0,0 +1,25 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Total des paiements d'un intervalle (jour, semaine ou mois), calculé en base.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaiementTotalDTO {
+    // Début de l'intervalle (lundi pour une semaine, 1er du mois pour un mois)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
+    private Date periode ;
+    private long nombre ;
+    private double montant ;
+}
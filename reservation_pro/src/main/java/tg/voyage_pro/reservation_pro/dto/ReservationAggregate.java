@@ -0,0 +1,24 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projection de l'agrégat de démarrage des compteurs KPI : un groupe
+ * (statut, destination, type de billet, jour) et ses totaux.
+ */
+public interface ReservationAggregate {
+    String getStatus();
+
+    String getDestination();
+
+    Long getIdTypeBillet();
+
+    LocalDate getDay();
+
+    Long getTotal();
+
+    Long getPlaces();
+
+    // Somme des montants de ligne en centimes, arrondis ligne par ligne
+    Double getValeurCentimes();
+}
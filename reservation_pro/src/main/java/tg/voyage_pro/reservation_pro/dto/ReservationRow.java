@@ -0,0 +1,42 @@
+package tg.voyage_pro.reservation_pro.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Ligne plate d'une liste de réservations : la réservation et les colonnes utiles de
+ * son client, de son voyage et de son type de billet, lues en une seule requête
+ * (constructeur JPQL, aucune entité chargée dans le contexte de persistance).
+ */
+@Getter
+@AllArgsConstructor
+public class ReservationRow {
+    private Long idReservation ;
+    private Integer nombrePlacesReservees ;
+    private java.sql.Date dateReservation ;
+    private String status ;
+
+    private Long idClient ;
+    private String nomClient ;
+    private String prenomClient ;
+    private String mailClient ;
+    private String telClient ;
+
+    private Long idVoyage ;
+    private String departVoyage ;
+    private String arriveVoyage ;
+    private String heureDepart ;
+    private String heureArrivee ;
+    // Même format que la colonne CSV : date et heure ISO 8601 en UTC
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ssXXX", timezone = "UTC")
+    private Date dateVoyage ;
+    private Double prix ;
+
+    private Long idTypeBillet ;
+    private String libelleTypeBillet ;
+    private Double prixTypeBillet ;
+}
@@ -22,4 +22,6 @@ public class VoyageDTO {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "UTC")
     private Date dateVoyage ;
     private Double prix;
+    private Integer capacite;
+    private Integer placesRestantes;
 }
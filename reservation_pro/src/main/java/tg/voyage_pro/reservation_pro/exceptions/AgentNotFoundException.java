@@ -4,7 +4,7 @@ package tg.voyage_pro.reservation_pro.exceptions;
 
 public class AgentNotFoundException  extends RuntimeException{
 
-    AgentNotFoundException(String message){
+    public AgentNotFoundException(String message){
             super(message) ;
     }
 }
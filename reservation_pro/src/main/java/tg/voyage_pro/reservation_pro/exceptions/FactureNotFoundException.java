@@ -0,0 +1,7 @@
+package tg.voyage_pro.reservation_pro.exceptions;
+
+public class FactureNotFoundException extends RuntimeException {
+    public FactureNotFoundException(String message) {
+        super(message);
+    }
+}
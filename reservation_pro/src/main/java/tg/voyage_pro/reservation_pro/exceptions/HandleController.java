@@ -41,10 +41,30 @@ public class HandleController {
     public ResponseEntity<?> handlePaiementNotFoundException(PaiementNotFoundException ex, WebRequest request) {
         return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.NOT_FOUND);
     }
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<?> handleIdempotencyConflictException(IdempotencyConflictException ex, WebRequest request) {
+        return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.CONFLICT);
+    }
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<?> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException ex, WebRequest request) {
+        return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+    @ExceptionHandler(SeatsUnavailableException.class)
+    public ResponseEntity<?> handleSeatsUnavailableException(SeatsUnavailableException ex, WebRequest request) {
+        return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.CONFLICT);
+    }
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<?> handleInvalidQueryException(InvalidQueryException ex, WebRequest request) {
+        return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.BAD_REQUEST);
+    }
     @ExceptionHandler( AgentNotFoundException.class)
     public ResponseEntity<?> handleAgentNotFoundException(AgentNotFoundException ex, WebRequest request) {
         return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.NOT_FOUND);
     }
+    @ExceptionHandler(FactureNotFoundException.class)
+    public ResponseEntity<?> handleFactureNotFoundException(FactureNotFoundException ex, WebRequest request) {
+        return new ResponseEntity<>(new ErrorResponse(ex.getMessage()), HttpStatus.NOT_FOUND);
+    }
 
  
     @ExceptionHandler(Exception.class)
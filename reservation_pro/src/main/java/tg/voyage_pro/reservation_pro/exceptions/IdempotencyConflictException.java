@@ -0,0 +1,9 @@
+package tg.voyage_pro.reservation_pro.exceptions;
+
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message){
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package tg.voyage_pro.reservation_pro.exceptions;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String message){
+        super(message);
+    }
+
+}
@@ -0,0 +1,9 @@
+package tg.voyage_pro.reservation_pro.exceptions;
+
+public class InvalidQueryException extends RuntimeException {
+
+    public InvalidQueryException(String message){
+        super(message);
+    }
+
+}
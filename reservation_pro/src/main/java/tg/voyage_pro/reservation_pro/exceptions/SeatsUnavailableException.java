@@ -0,0 +1,9 @@
+package tg.voyage_pro.reservation_pro.exceptions;
+
+public class SeatsUnavailableException extends RuntimeException {
+
+    public SeatsUnavailableException(String message){
+        super(message);
+    }
+
+}
@@ -16,6 +16,7 @@ public interface PaiementMapper {
     @Mapping(target = "montantPaiement", source = "montantPaiement")
     @Mapping(target = "status", source = "status")
     @Mapping(target = "method", source = "method")
+    @Mapping(target = "updatedAt", ignore = true)
     PAIEMENT toEntity( PaiementDTO  dto);
 
     @Mapping(target = "reservationId", expression = "java(entity.getReservation() != null ? entity.getReservation().getIdReservation() : null)")
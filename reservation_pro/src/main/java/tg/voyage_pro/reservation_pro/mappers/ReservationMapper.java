@@ -6,10 +6,12 @@ import org.mapstruct.Named;
 import tg.voyage_pro.reservation_pro.Model.RESERVATION;
 import tg.voyage_pro.reservation_pro.Model.VOYAGE;
 import tg.voyage_pro.reservation_pro.dto.ReservationDTO;
+import tg.voyage_pro.reservation_pro.dto.ReservationRow;
 import tg.voyage_pro.reservation_pro.dto.ClientDTO;
 import tg.voyage_pro.reservation_pro.dto.VoyageDTO;
 import tg.voyage_pro.reservation_pro.dto.TypeBilletDTO;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Mapper(componentModel = "spring", uses = {ClientMapper.class, VoyageMapper.class, TypeBilletMapper.class})
@@ -31,6 +33,8 @@ public interface ReservationMapper {
     @Mapping(target = "client", ignore = true)
     @Mapping(target = "voyage", ignore = true)
     @Mapping(target = "typeBillet", ignore = true)
+    @Mapping(target = "holdExpiresAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     @Mapping(source = "idReservation", target = "idReservation")
     @Mapping(source = "nombrePlacesReservees", target = "nombrePlacesReservees")
     @Mapping(source = "status", target = "status")
@@ -39,6 +43,54 @@ public interface ReservationMapper {
     @Mapping(source = "idTypeBillet", target = "typeBillet.idTypeBillet")
     RESERVATION toEntity(ReservationDTO dto);
 
+    // Construit le DTO complet à partir d'une ligne plate, sans passer par les entités
+    default ReservationDTO fromRow(ReservationRow row) {
+        if (row == null) {
+            return null;
+        }
+        ClientDTO client = row.getIdClient() == null ? null : ClientDTO.builder()
+                .idClient(row.getIdClient())
+                .nomClient(row.getNomClient())
+                .prenomClient(row.getPrenomClient())
+                .mailClient(row.getMailClient())
+                .telClient(row.getTelClient())
+                .build();
+        VoyageDTO voyage = row.getIdVoyage() == null ? null : VoyageDTO.builder()
+                .idVoyage(row.getIdVoyage())
+                .departVoyage(row.getDepartVoyage())
+                .arriveVoyage(row.getArriveVoyage())
+                .heureDepart(row.getHeureDepart())
+                .heureArrivee(row.getHeureArrivee())
+                .dateVoyage(row.getDateVoyage())
+                .prix(row.getPrix())
+                .build();
+        TypeBilletDTO typeBillet = row.getIdTypeBillet() == null ? null : TypeBilletDTO.builder()
+                .idTypeBillet(row.getIdTypeBillet())
+                .libelleTypeBillet(row.getLibelleTypeBillet())
+                .prixTypeBillet(row.getPrixTypeBillet())
+                .build();
+        return ReservationDTO.builder()
+                .idReservation(row.getIdReservation())
+                .idClient(row.getIdClient())
+                .idVoyage(row.getIdVoyage())
+                .idTypeBillet(row.getIdTypeBillet())
+                .nombrePlacesReservees(row.getNombrePlacesReservees())
+                .dateReservation(row.getDateReservation())
+                .status(row.getStatus())
+                .client(client)
+                .voyage(voyage)
+                .typeBillet(typeBillet)
+                .build();
+    }
+
+    default List<ReservationDTO> fromRows(List<ReservationRow> rows) {
+        List<ReservationDTO> dtos = new ArrayList<>(rows.size());
+        for (ReservationRow row : rows) {
+            dtos.add(fromRow(row));
+        }
+        return dtos;
+    }
+
     // Custom mapping for libelleVoyage
     @Named("mapVoyageToLibelle")
     default String mapVoyageToLibelle(VOYAGE voyage) {
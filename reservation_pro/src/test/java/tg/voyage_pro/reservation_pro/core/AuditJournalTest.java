@@ -0,0 +1,80 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import tg.voyage_pro.reservation_pro.dto.AuditRecordDTO;
+
+class AuditJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void historiqueSurPlusieursSegmentsApresRedemarrage() throws Exception {
+        AuditJournal journal = journal();
+        for (int i = 0; i < 200; i++) {
+            journal.record("reservation", i % 10, "UPDATE", AuditDelta.of().field("statut", "v" + i, "v" + (i + 1)));
+        }
+        journal.stop();
+        assertEquals(0, journal.dropped());
+        assertTrue(files(".log").size() > 2);
+        // Tous les segments sauf le dernier sont scellés, avec leur index
+        assertEquals(files(".log").size() - 1, files(".idx").size());
+
+        AuditJournal reopened = journal();
+        List<AuditRecordDTO> history = reopened.history("reservation", 7);
+        reopened.stop();
+        assertEquals(20, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals("7", history.get(i).getId());
+            assertEquals("v" + (10 * i + 7), history.get(i).getChanges().get(0).getBefore());
+        }
+        assertEquals(journal.history("reservation", 7).size(), history.size());
+    }
+
+    @Test
+    void indexManquantReconstruitAuDemarrage() throws Exception {
+        AuditJournal journal = journal();
+        for (int i = 0; i < 100; i++) {
+            journal.record("client", i % 4, "UPDATE", AuditDelta.of().field("nom", null, "n" + i));
+        }
+        journal.stop();
+        for (Path index : files(".idx")) {
+            Files.delete(index);
+        }
+
+        AuditJournal reopened = journal();
+        List<AuditRecordDTO> history = reopened.history("client", 3);
+        reopened.stop();
+        assertEquals(25, history.size());
+        assertEquals("n99", history.get(24).getChanges().get(0).getAfter());
+        assertEquals(files(".log").size() - 1, files(".idx").size());
+    }
+
+    private AuditJournal journal() throws IOException {
+        AuditJournal journal = new AuditJournal();
+        ReflectionTestUtils.setField(journal, "dir", this.dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", 1024);
+        ReflectionTestUtils.setField(journal, "flushMs", 10L);
+        ReflectionTestUtils.setField(journal, "queueCapacity", 1024);
+        journal.start();
+        return journal;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(this.dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).toList();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CityIndexTest {
+
+    @Test
+    void prefixeSansAccentsNiCasseLesPlusDesserviesDAbord() {
+        CityIndex index = new CityIndex();
+        index.add("Lomé", 3, 0);
+        index.add("Lome", 1, 2);
+        index.add("Lokossa", 0, 1);
+        index.add("Kara", 2, 2);
+        index.add("Lagos", 1, 0);
+
+        List<CityIndex.Suggestion> lo = index.suggest("LO", null, 10);
+        assertEquals(List.of(new CityIndex.Suggestion("Lomé", 4, 2), new CityIndex.Suggestion("Lokossa", 0, 1)), lo);
+        assertEquals(List.of(new CityIndex.Suggestion("Lomé", 4, 2)), index.suggest("lo", CityIndex.DEPART, 10));
+        assertEquals(2, index.suggest("", null, 2).size());
+        assertEquals(List.of(), index.suggest("x", null, 10));
+    }
+
+    @Test
+    void uneVilleSansVoyageDisparait() {
+        CityIndex index = new CityIndex();
+        index.add("Sokodé", 1, 0);
+        index.add("Sokode", 0, 1);
+        index.add("Sokodé", -1, 0);
+        assertEquals(List.of(new CityIndex.Suggestion("Sokode", 0, 1)), index.suggest("so", null, 5));
+        index.add("Sokode", 0, -1);
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.suggest("so", null, 5));
+    }
+}
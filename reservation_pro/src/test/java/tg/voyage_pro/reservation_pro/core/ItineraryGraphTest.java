@@ -0,0 +1,152 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ItineraryGraphTest {
+
+    private static final String[] VILLES = {"Lomé", "Accra", "Kara", "Ouagadougou", "Cotonou", "Lagos", "Niamey"};
+    private static final int CORRESPONDANCE = 60;
+
+    // Meilleur trouvé par énumération de tous les chemins : {arrivée, étapes, prix} ou {prix, arrivée, étapes}
+    private double[] plusTot;
+    private double[] moinsCher;
+
+    @Test
+    void memesOptimumsQuUneEnumerationComplete() {
+        Random random = new Random(5);
+        List<ItineraryGraph.Connection> connections = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            connections.add(tirage(random, id));
+        }
+        ItineraryGraph graph = ItineraryGraph.of(connections.subList(0, 200));
+        // Le reste arrive par ajouts successifs ; quelques voyages sont déplacés ou supprimés
+        for (ItineraryGraph.Connection c : connections.subList(200, 400)) {
+            graph = graph.with(c);
+        }
+        for (long id = 1; id <= 400; id += 9) {
+            ItineraryGraph.Connection c = tirage(random, id);
+            connections.set((int) id - 1, c);
+            graph = graph.with(c);
+        }
+        for (long id = 5; id <= 400; id += 13) {
+            graph = graph.without(id);
+            connections.set((int) id - 1, null);
+        }
+        connections.removeIf(c -> c == null);
+        assertEquals(connections.size(), graph.size());
+
+        for (int q = 0; q < 200; q++) {
+            String origine = VILLES[random.nextInt(VILLES.length)];
+            String destination = VILLES[random.nextInt(VILLES.length)];
+            int start = random.nextInt(3 * 1440);
+            int end = start + 1440 + random.nextInt(1440);
+            int maxLegs = 1 + random.nextInt(4);
+            double extra = random.nextInt(3) * 1000;
+
+            this.plusTot = null;
+            this.moinsCher = null;
+            if (!memeVille(origine, destination)) {
+                enumerer(connections, origine, origine, destination, start, end, maxLegs, extra, start, 0, 0);
+            }
+            ItineraryGraph.Result result = graph.search(origine, destination, start, end, maxLegs, CORRESPONDANCE, extra);
+            verifier(this.plusTot, result.plusTot(), connections, extra, true);
+            verifier(this.moinsCher, result.moinsCher(), connections, extra, false);
+        }
+    }
+
+    @Test
+    void litLesHeuresSaisiesLibrement() {
+        assertEquals(8 * 60 + 30, ItineraryGraph.parseHeure("08:30"));
+        assertEquals(8 * 60 + 30, ItineraryGraph.parseHeure(" 8h30 "));
+        assertEquals(17 * 60, ItineraryGraph.parseHeure("17H"));
+        assertEquals(6 * 60 + 5, ItineraryGraph.parseHeure("06:05:00"));
+        assertEquals(-1, ItineraryGraph.parseHeure("matin"));
+        assertEquals(-1, ItineraryGraph.parseHeure("25:00"));
+    }
+
+    // Tous les chemins depuis ville, prêts à repartir à la minute pret
+    private void enumerer(List<ItineraryGraph.Connection> connections, String origine, String ville, String destination,
+                          int start, int end, int restantes, double extra, int pret, int etapes, double prix) {
+        for (ItineraryGraph.Connection c : connections) {
+            if (!memeVille(c.depart(), ville) || c.departMinute() < Math.max(start, pret) || c.departMinute() > end
+                    || memeVille(c.arrive(), origine)) {
+                continue;
+            }
+            double total = prix + c.prix() + extra;
+            if (memeVille(c.arrive(), destination)) {
+                double[] tot = {c.arriveMinute(), etapes + 1, total};
+                if (this.plusTot == null || compare(tot, this.plusTot) < 0) {
+                    this.plusTot = tot;
+                }
+                double[] cher = {total, c.arriveMinute(), etapes + 1};
+                if (this.moinsCher == null || compare(cher, this.moinsCher) < 0) {
+                    this.moinsCher = cher;
+                }
+            } else if (restantes > 1) {
+                enumerer(connections, origine, c.arrive(), destination, start, end, restantes - 1, extra,
+                        c.arriveMinute() + CORRESPONDANCE, etapes + 1, total);
+            }
+        }
+    }
+
+    private static boolean memeVille(String a, String b) {
+        return VoyageIndex.normalize(a).equals(VoyageIndex.normalize(b));
+    }
+
+    private static int compare(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int c = Double.compare(a[i], b[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    private static void verifier(double[] attendu, ItineraryGraph.Itinerary trouve,
+                                 List<ItineraryGraph.Connection> connections, double extra, boolean parArrivee) {
+        if (attendu == null) {
+            assertNull(trouve);
+            return;
+        }
+        // L'itinéraire rendu est cohérent et atteint l'optimum attendu
+        double prix = 0;
+        int pret = Integer.MIN_VALUE;
+        String ville = null;
+        ItineraryGraph.Connection derniere = null;
+        for (long id : trouve.ids()) {
+            ItineraryGraph.Connection c = connections.stream().filter(x -> x.id() == id).findFirst().orElseThrow();
+            if (ville != null) {
+                assertTrue(memeVille(ville, c.depart()));
+            }
+            assertTrue(c.departMinute() >= pret);
+            prix += c.prix() + extra;
+            pret = c.arriveMinute() + CORRESPONDANCE;
+            ville = c.arrive();
+            derniere = c;
+        }
+        assertEquals(prix, trouve.prix(), 1e-6);
+        assertEquals(derniere.arriveMinute(), trouve.arriveMinute());
+        double[] obtenu = parArrivee
+                ? new double[]{trouve.arriveMinute(), trouve.ids().length, trouve.prix()}
+                : new double[]{trouve.prix(), trouve.arriveMinute(), trouve.ids().length};
+        assertArrayEquals(attendu, obtenu, 1e-6);
+    }
+
+    private static ItineraryGraph.Connection tirage(Random random, long id) {
+        int depart = random.nextInt(VILLES.length);
+        int arrive = (depart + 1 + random.nextInt(VILLES.length - 1)) % VILLES.length;
+        int minute = random.nextInt(5 * 1440);
+        return new ItineraryGraph.Connection(id, VILLES[depart], VILLES[arrive], minute,
+                minute + 60 + random.nextInt(600), 1000 * (1 + random.nextInt(20)));
+    }
+}
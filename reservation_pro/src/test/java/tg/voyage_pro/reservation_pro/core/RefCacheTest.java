@@ -0,0 +1,88 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class RefCacheTest {
+
+    @Test
+    void lectureUniqueJusquAExpirationOuInvalidation() {
+        AtomicLong now = new AtomicLong(1_000);
+        AtomicInteger lectures = new AtomicInteger();
+        RefCache<Long, String> cache = new RefCache<>("test", 100, 500, now::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v1", cache.get(1L, k -> "v" + lectures.incrementAndGet()));
+        }
+        assertEquals(1, lectures.get());
+        assertEquals(9, cache.hits());
+        assertEquals(1, cache.misses());
+
+        now.addAndGet(500);
+        cache.get(1L, k -> "v" + lectures.incrementAndGet());
+        assertEquals(2, lectures.get());
+
+        cache.invalidate(1L);
+        cache.get(1L, k -> "v" + lectures.incrementAndGet());
+        assertEquals(3, lectures.get());
+    }
+
+    @Test
+    void valeurNulleNonGardee() {
+        AtomicInteger lectures = new AtomicInteger();
+        RefCache<Long, String> cache = new RefCache<>("test", 100, 60_000);
+        assertNull(cache.get(1L, k -> {
+            lectures.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.get(1L, k -> {
+            lectures.incrementAndGet();
+            return null;
+        }));
+        assertEquals(2, lectures.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void chargementCroiseParUneInvalidationNonGarde() {
+        RefCache<Long, String> cache = new RefCache<>("test", 100, 60_000);
+        // L'écriture arrive pendant la lecture en base : l'ancienne valeur n'est pas gardée
+        assertEquals("ancien", cache.get(1L, k -> {
+            cache.invalidate(1L);
+            return "ancien";
+        }));
+        assertEquals("nouveau", cache.get(1L, k -> "nouveau"));
+        assertEquals("nouveau", cache.get(1L, k -> "autre"));
+    }
+
+    @Test
+    void tailleBorneeEtClesFrequentesGardees() {
+        RefCache<Long, String> cache = new RefCache<>("test", 100, 60_000);
+        // 20 clés très demandées
+        for (int round = 0; round < 10; round++) {
+            for (long k = 0; k < 20; k++) {
+                cache.get(k, String::valueOf);
+            }
+        }
+        // Parcours de clés vues une seule fois, 15 fois la taille du cache
+        for (long k = 1000; k < 2500; k++) {
+            cache.get(k, String::valueOf);
+            assertTrue(cache.size() <= 100);
+        }
+        AtomicInteger relues = new AtomicInteger();
+        for (long k = 0; k < 20; k++) {
+            cache.get(k, key -> {
+                relues.incrementAndGet();
+                return String.valueOf(key);
+            });
+        }
+        assertEquals(0, relues.get());
+        assertTrue(cache.evictions() > 0);
+    }
+}
@@ -0,0 +1,79 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Date;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import tg.voyage_pro.reservation_pro.Model.CLIENT;
+import tg.voyage_pro.reservation_pro.Model.RESERVATION;
+import tg.voyage_pro.reservation_pro.Model.TYPE_BILLET;
+import tg.voyage_pro.reservation_pro.Model.VOYAGE;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class ReservationListingQueryCountTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void getAllUsesTheSameNumberOfStatementsWhateverTheRowCount() {
+        Statistics stats = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        insertReservations(5);
+        long petit = countStatements(stats);
+
+        insertReservations(50);
+        long grand = countStatements(stats);
+
+        assertEquals(1, petit);
+        assertEquals(petit, grand);
+    }
+
+    private long countStatements(Statistics stats) {
+        entityManager.flush();
+        entityManager.clear();
+        stats.clear();
+        reservationService.getAll();
+        return stats.getPrepareStatementCount();
+    }
+
+    // Chaque réservation a son propre client et son propre voyage pour qu'un N+1 soit visible
+    private void insertReservations(int count) {
+        TYPE_BILLET type = TYPE_BILLET.builder().libelleTypeBillet("ECONOMY").prixTypeBillet(1000.0).build();
+        entityManager.persist(type);
+        for (int i = 0; i < count; i++) {
+            CLIENT client = CLIENT.builder()
+                    .nomClient("Nom" + i).prenomClient("Prenom" + i)
+                    .dateNaiss(Date.valueOf("1990-01-01"))
+                    .mailClient("client" + i + "@test.tg").telClient("900000" + i)
+                    .sexeClient("M").login("login" + i).password("secret")
+                    .build();
+            entityManager.persist(client);
+            VOYAGE voyage = VOYAGE.builder()
+                    .departVoyage("Lomé").arriveVoyage("Accra")
+                    .dateVoyage(Date.valueOf("2026-01-01")).prix(15000.0)
+                    .build();
+            entityManager.persist(voyage);
+            RESERVATION reservation = RESERVATION.builder()
+                    .client(client).voyage(voyage).typeBillet(type)
+                    .nombrePlacesReservees(1)
+                    .dateReservation(Date.valueOf("2025-12-01"))
+                    .status("PENDING")
+                    .build();
+            entityManager.persist(reservation);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tg.voyage_pro.reservation_pro.database.VoyageRepository;
+import tg.voyage_pro.reservation_pro.exceptions.SeatsUnavailableException;
+
+class SeatInventoryTest {
+
+    private static final long VOYAGE = 42L;
+    private static final int CAPACITE = 150;
+
+    // Simule la colonne voyage.places_restantes et son UPDATE conditionnel
+    private final AtomicInteger placesEnBase = new AtomicInteger(CAPACITE);
+
+    private SeatInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        VoyageRepository vr = mock(VoyageRepository.class);
+        when(vr.findRemainingSeats(anyLong())).thenAnswer(inv -> placesEnBase.get());
+        when(vr.decrementRemainingSeats(anyLong(), anyInt())).thenAnswer(inv -> {
+            int places = inv.getArgument(1);
+            for (;;) {
+                int current = placesEnBase.get();
+                if (current < places) {
+                    return 0;
+                }
+                if (placesEnBase.compareAndSet(current, current - places)) {
+                    return 1;
+                }
+            }
+        });
+        when(vr.incrementRemainingSeats(anyLong(), anyInt())).thenAnswer(inv -> {
+            placesEnBase.addAndGet(inv.getArgument(1));
+            return 1;
+        });
+
+        inventory = new SeatInventory();
+        ReflectionTestUtils.setField(inventory, "vr", vr);
+        ReflectionTestUtils.setField(inventory, "versions", new ChangeVersions());
+        ReflectionTestUtils.setField(inventory, "changes", mock(ChangeFeed.class));
+        ReflectionTestUtils.setField(inventory, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void concurrentBookingsNeverOversell() throws Exception {
+        int threads = 64;
+        int demandes = 800;
+        AtomicInteger acceptees = new AtomicInteger();
+        AtomicInteger refusees = new AtomicInteger();
+        AtomicInteger placesVendues = new AtomicInteger();
+        CountDownLatch depart = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < demandes; i++) {
+            int places = 1 + (i % 3);
+            pool.submit(() -> {
+                depart.await();
+                try {
+                    inventory.reserve(VOYAGE, places);
+                    acceptees.incrementAndGet();
+                    placesVendues.addAndGet(places);
+                } catch (SeatsUnavailableException e) {
+                    refusees.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        depart.countDown();
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+
+        assertEquals(demandes, acceptees.get() + refusees.get());
+        assertEquals(CAPACITE, placesVendues.get() + placesEnBase.get());
+        assertEquals(placesEnBase.get(), inventory.remaining(VOYAGE));
+        assertTrue(placesEnBase.get() >= 0);
+    }
+
+    @Test
+    void releasedSeatsCanBeBookedAgain() {
+        inventory.reserve(VOYAGE, CAPACITE);
+        assertThrows(SeatsUnavailableException.class, () -> inventory.reserve(VOYAGE, 1));
+
+        inventory.release(VOYAGE, 2);
+        inventory.reserve(VOYAGE, 2);
+
+        assertEquals(0, placesEnBase.get());
+        assertEquals(0, inventory.remaining(VOYAGE));
+    }
+
+    @Test
+    void staleCounterIsResynchronisedFromDatabase() {
+        inventory.reserve(VOYAGE, 10);
+        // Une autre instance a vendu toutes les places restantes
+        placesEnBase.set(0);
+
+        assertThrows(SeatsUnavailableException.class, () -> inventory.reserve(VOYAGE, 1));
+        assertEquals(0, inventory.remaining(VOYAGE));
+    }
+}
@@ -0,0 +1,62 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    private static final long DEBUT = 1_700_000_000_123L;
+
+    @Test
+    void chaqueEcheanceSortUneFoisJamaisAvantSonHeure() {
+        TimingWheel wheel = new TimingWheel(1000, 8, DEBUT);
+        Random random = new Random(7);
+        Map<Long, Long> echeances = new HashMap<>();
+        // Jusqu'à ~3 jours : plusieurs niveaux et cascades
+        for (long id = 0; id < 5000; id++) {
+            long echeance = DEBUT + 1000 + (long) (random.nextDouble() * random.nextDouble() * 250_000_000L);
+            assertTrue(wheel.schedule(id, echeance));
+            echeances.put(id, echeance);
+        }
+        Set<Long> annulees = new HashSet<>();
+        for (long id = 0; id < 5000; id += 5) {
+            assertTrue(wheel.cancel(id));
+            annulees.add(id);
+        }
+
+        Set<Long> sorties = new HashSet<>();
+        long now = DEBUT;
+        while (now < DEBUT + 251_000_000L) {
+            now += 1 + random.nextInt(60_000);
+            for (long id : wheel.advance(now)) {
+                long echeance = echeances.get(id);
+                assertFalse(annulees.contains(id));
+                assertTrue(echeance <= now, "sortie avant l'échéance");
+                assertTrue(sorties.add(id), "sortie deux fois");
+            }
+        }
+        assertEquals(echeances.size() - annulees.size(), sorties.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void uneEcheancePasseeEstRefuseeEtUneReplanificationRemplaceLaPrecedente() {
+        TimingWheel wheel = new TimingWheel(1000, 64, DEBUT);
+        assertFalse(wheel.schedule(1L, DEBUT - 5_000));
+
+        wheel.schedule(2L, DEBUT + 5_000);
+        wheel.schedule(2L, DEBUT + 120_000);
+        assertEquals(List.of(), wheel.advance(DEBUT + 10_000));
+        assertEquals(List.of(2L), wheel.advance(DEBUT + 121_000));
+    }
+}
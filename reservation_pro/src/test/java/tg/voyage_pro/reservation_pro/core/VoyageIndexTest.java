@@ -0,0 +1,85 @@
+package tg.voyage_pro.reservation_pro.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class VoyageIndexTest {
+
+    private static final LocalDate DEBUT = LocalDate.of(2026, 1, 1);
+    private static final String[] VILLES = {"Lomé", "Accra", "Kara", "Sokodé", "Cotonou", "Atakpamé"};
+
+    private record Voyage(long id, String depart, String arrive, LocalDate date, double prix) {
+    }
+
+    @Test
+    void memesResultatsQuUnParcoursComplet() {
+        VoyageIndex index = new VoyageIndex();
+        Map<Long, Voyage> voyages = new HashMap<>();
+        Random random = new Random(11);
+        for (long id = 1; id <= 3000; id++) {
+            Voyage v = tirage(random, id);
+            index.put(id, v.depart(), v.arrive(), v.date(), v.prix());
+            voyages.put(id, v);
+        }
+        // Déplacements (trajet, jour, prix) et suppressions
+        for (long id = 1; id <= 3000; id += 7) {
+            Voyage v = tirage(random, id);
+            index.put(id, v.depart(), v.arrive(), v.date(), v.prix());
+            voyages.put(id, v);
+        }
+        for (long id = 3; id <= 3000; id += 11) {
+            assertTrue(index.remove(id));
+            voyages.remove(id);
+        }
+        assertEquals(voyages.size(), index.size());
+
+        for (int q = 0; q < 500; q++) {
+            String depart = random.nextInt(4) == 0 ? null : VILLES[random.nextInt(VILLES.length)];
+            String arrive = random.nextInt(4) == 0 ? null : VILLES[random.nextInt(VILLES.length)];
+            LocalDate from = random.nextBoolean() ? null : DEBUT.plusDays(random.nextInt(60));
+            LocalDate to = from == null || random.nextBoolean() ? null : from.plusDays(random.nextInt(20));
+            double prixMax = random.nextBoolean() ? Double.MAX_VALUE : 5000 + random.nextInt(10000);
+            int limit = 1 + random.nextInt(40);
+
+            List<Voyage> attendus = new ArrayList<>();
+            for (Voyage v : voyages.values()) {
+                if ((depart == null || VoyageIndex.normalize(depart).equals(VoyageIndex.normalize(v.depart())))
+                        && (arrive == null || VoyageIndex.normalize(arrive).equals(VoyageIndex.normalize(v.arrive())))
+                        && (from == null || !v.date().isBefore(from)) && (to == null || !v.date().isAfter(to))
+                        && v.prix() <= prixMax) {
+                    attendus.add(v);
+                }
+            }
+            attendus.sort(Comparator.comparing(Voyage::date).thenComparingDouble(Voyage::prix).thenComparingLong(Voyage::id));
+            long[] ids = attendus.stream().limit(limit).mapToLong(Voyage::id).toArray();
+
+            // Casse et accents ignorés
+            String d = depart == null ? null : depart.toUpperCase();
+            assertArrayEquals(ids, index.search(d, arrive, from, to, prixMax, limit));
+        }
+    }
+
+    @Test
+    void normaliseLesNomsDeVilles() {
+        assertEquals("lome", VoyageIndex.normalize("  Lomé "));
+        assertEquals("porto novo", VoyageIndex.normalize("Porto-Novo"));
+        assertEquals("", VoyageIndex.normalize(null));
+    }
+
+    private static Voyage tirage(Random random, long id) {
+        int depart = random.nextInt(VILLES.length);
+        int arrive = (depart + 1 + random.nextInt(VILLES.length - 1)) % VILLES.length;
+        return new Voyage(id, VILLES[depart], VILLES[arrive], DEBUT.plusDays(random.nextInt(90)), 5000 + 500 * random.nextInt(30));
+    }
+}